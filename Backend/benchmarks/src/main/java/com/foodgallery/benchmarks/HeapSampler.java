@@ -0,0 +1,120 @@
+package com.foodgallery.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Polls the application's heap usage and GC pauses through the actuator
+ * metrics endpoint while a phase runs, so it works the same against an
+ * in-process or a remote server.
+ */
+final class HeapSampler implements AutoCloseable {
+
+    private static final Duration INTERVAL = Duration.ofMillis(250);
+
+    private final HttpClient client;
+    private final URI heapUsed;
+    private final URI gcPauses;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Thread thread;
+    private final double gcCountAtStart;
+    private final double gcTimeAtStart;
+
+    private volatile boolean running = true;
+    private double heapSum;
+    private double heapMax;
+    private int samples;
+
+    HeapSampler(HttpClient client, String baseUrl) {
+        this.client = client;
+        this.heapUsed = URI.create(baseUrl + "/actuator/metrics/jvm.memory.used?tag=area:heap");
+        this.gcPauses = URI.create(baseUrl + "/actuator/metrics/jvm.gc.pause");
+        double[] gc = gcTotals();
+        this.gcCountAtStart = gc[0];
+        this.gcTimeAtStart = gc[1];
+        this.thread = new Thread(this::run, "heap-sampler");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    private void run() {
+        while (running) {
+            JsonNode metric = fetch(heapUsed);
+            if (metric != null) {
+                double used = measurement(metric, "VALUE");
+                synchronized (this) {
+                    heapSum += used;
+                    heapMax = Math.max(heapMax, used);
+                    samples++;
+                }
+            }
+            try {
+                Thread.sleep(INTERVAL.toMillis());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops sampling and returns mean and peak heap used, in bytes, plus the
+     * number and total seconds of GC pauses since this sampler was created.
+     */
+    Summary stop() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        double[] gc = gcTotals();
+        synchronized (this) {
+            return new Summary(samples > 0 ? heapSum / samples : 0, heapMax,
+                    (long) (gc[0] - gcCountAtStart), gc[1] - gcTimeAtStart);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+    }
+
+    private double[] gcTotals() {
+        JsonNode metric = fetch(gcPauses);
+        // Absent until the first collection
+        return metric == null ? new double[]{0, 0} : new double[]{measurement(metric, "COUNT"), measurement(metric, "TOTAL_TIME")};
+    }
+
+    private JsonNode fetch(URI uri) {
+        try {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(5)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200 ? objectMapper.readTree(response.body()) : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static double measurement(JsonNode metric, String statistic) {
+        for (JsonNode measurement : metric.path("measurements")) {
+            if (statistic.equals(measurement.path("statistic").asText())) {
+                return measurement.path("value").asDouble();
+            }
+        }
+        return 0;
+    }
+
+    record Summary(double heapMean, double heapMax, long gcCount, double gcSeconds) {
+    }
+}
@@ -0,0 +1,63 @@
+package com.foodgallery.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foodgallery.model.DecorationTip;
+import com.foodgallery.model.FoodPost;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response serialization of post and tip lists, as the list endpoints produce
+ * them. {@code inlineMediaBytes = 0} uses media references; a positive value
+ * embeds legacy data URIs of that size, for comparison with the old format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class JsonSerializationBenchmark {
+
+    @Param({"20", "200", "2000"})
+    private int count;
+
+    @Param({"0", "65536"})
+    private int inlineMediaBytes;
+
+    private ObjectMapper objectMapper;
+    private List<FoodPost> posts;
+    private List<DecorationTip> tips;
+
+    @Setup
+    public void setUp() {
+        // Configured the way Spring MVC configures its message converter
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        posts = SyntheticData.posts(count, inlineMediaBytes, SyntheticData.SEED);
+        tips = SyntheticData.tips(count, inlineMediaBytes, SyntheticData.SEED);
+    }
+
+    @Benchmark
+    public byte[] serializePosts() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(posts);
+    }
+
+    @Benchmark
+    public byte[] serializeTips() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(tips);
+    }
+}
@@ -0,0 +1,51 @@
+package com.foodgallery.benchmarks;
+
+import java.util.Arrays;
+
+/**
+ * Latencies of one load-test phase, kept in full so percentiles are exact.
+ */
+final class LatencyRecorder {
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private int errors;
+    private int dropped;
+
+    synchronized void record(long latencyNanos, boolean ok) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+        if (!ok) {
+            errors++;
+        }
+    }
+
+    /**
+     * A request that was due but not sent because too many were outstanding.
+     */
+    synchronized void drop() {
+        dropped++;
+    }
+
+    synchronized Summary summarize(long elapsedNanos) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        return new Summary(count, errors, dropped, count * 1e9 / elapsedNanos,
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                percentile(sorted, 0.999), count > 0 ? sorted[count - 1] : 0);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    record Summary(int completed, int errors, int dropped, double throughput,
+                   long p50, long p90, long p99, long p999, long max) {
+    }
+}
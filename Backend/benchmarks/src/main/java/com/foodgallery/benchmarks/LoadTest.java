@@ -0,0 +1,323 @@
+package com.foodgallery.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foodgallery.FoodGalleryApplication;
+import com.foodgallery.model.DecorationTip;
+import com.foodgallery.model.FoodPost;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Open-loop load test of the real controllers. Each scenario is driven on its
+ * own at a fixed request rate; latency is measured from when a request was due
+ * rather than when it was sent, so a stalled server shows up in the
+ * percentiles instead of silently lowering the rate.
+ * <p>
+ * Without {@code target}, the application is started in this JVM with the
+ * {@code fake} profile (in-memory stores with simulated latency) and seeded
+ * with synthetic posts and tips. Options are {@code name=value} arguments:
+ * <ul>
+ *     <li>{@code target}: base URL of a running server to test instead</li>
+ *     <li>{@code rps}: requests per second per scenario (default 200)</li>
+ *     <li>{@code duration}, {@code warmup}: per scenario (default 30s and 5s)</li>
+ *     <li>{@code scenarios}: comma-separated subset of the names below</li>
+ *     <li>{@code posts}, {@code tips}: how many to seed (default 2000 and 500)</li>
+ *     <li>{@code max-in-flight}: outstanding requests before new ones are
+ *     dropped (default 1000)</li>
+ *     <li>{@code profiles}: profiles for the in-process application (default
+ *     {@code fake}), e.g. {@code fake,virtual-threads}</li>
+ * </ul>
+ * Reported per scenario: throughput, errors (status 400 and up or no
+ * response), dropped requests, latency percentiles, and the server's mean and
+ * peak heap used and GC pauses. In-process runs share the heap with the load
+ * generator, so compare heap figures between runs rather than reading them as
+ * absolute.
+ */
+public final class LoadTest {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int SEED_CHUNK = 500;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+
+    private LoadTest(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        run(parse(args));
+    }
+
+    /**
+     * Runs the load test; {@code properties} are passed to the in-process
+     * application as {@code --name=value} arguments.
+     */
+    static void run(Map<String, String> options, String... properties) throws Exception {
+        int rps = Integer.parseInt(options.getOrDefault("rps", "200"));
+        Duration duration = Duration.parse("PT" + options.getOrDefault("duration", "30s"));
+        Duration warmup = Duration.parse("PT" + options.getOrDefault("warmup", "5s"));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "1000"));
+
+        ConfigurableApplicationContext context = null;
+        String target = options.get("target");
+        if (target == null) {
+            SpringApplication application = new SpringApplication(FoodGalleryApplication.class);
+            application.setAdditionalProfiles(options.getOrDefault("profiles", "fake").split(","));
+            List<String> arguments = new ArrayList<>(List.of(properties));
+            arguments.add("--server.port=0");
+            // Per-request info logging would dominate what is being measured
+            arguments.add("--logging.level.com.foodgallery=ERROR");
+            context = application.run(arguments.toArray(new String[0]));
+            target = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+
+        try {
+            LoadTest loadTest = new LoadTest(target);
+            Map<String, Function<Random, HttpRequest>> scenarios = loadTest.seed(
+                    Integer.parseInt(options.getOrDefault("posts", "2000")),
+                    Integer.parseInt(options.getOrDefault("tips", "500")));
+            if (options.containsKey("scenarios")) {
+                List<String> selected = Arrays.asList(options.get("scenarios").split(","));
+                scenarios.keySet().retainAll(selected);
+            }
+
+            System.out.printf("Target %s, %d req/s per scenario, %s warmup + %s measured%n%n",
+                    target, rps, warmup.toSeconds() + "s", duration.toSeconds() + "s");
+            System.out.printf("%-18s %9s %7s %7s %7s %8s %8s %8s %8s %8s %9s %9s %6s %8s%n",
+                    "scenario", "req/s", "ok", "errors", "dropped", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms",
+                    "heap MB", "peak MB", "gcs", "gc ms");
+            for (Map.Entry<String, Function<Random, HttpRequest>> scenario : scenarios.entrySet()) {
+                loadTest.drive(scenario.getValue(), rps, warmup, maxInFlight, null);
+                LatencyRecorder recorder = new LatencyRecorder();
+                HeapSampler.Summary heap;
+                long elapsed;
+                try (HeapSampler sampler = new HeapSampler(loadTest.client, target)) {
+                    elapsed = loadTest.drive(scenario.getValue(), rps, duration, maxInFlight, recorder);
+                    heap = sampler.stop();
+                }
+                LatencyRecorder.Summary latency = recorder.summarize(elapsed);
+                System.out.printf("%-18s %9.1f %7d %7d %7d %8.2f %8.2f %8.2f %8.2f %8.2f %9.1f %9.1f %6d %8.1f%n",
+                        scenario.getKey(), latency.throughput(), latency.completed() - latency.errors(), latency.errors(),
+                        latency.dropped(), millis(latency.p50()), millis(latency.p90()), millis(latency.p99()),
+                        millis(latency.p999()), millis(latency.max()), heap.heapMean() / (1 << 20), heap.heapMax() / (1 << 20),
+                        heap.gcCount(), heap.gcSeconds() * 1000);
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    /**
+     * Sends requests at {@code rps} for {@code duration}, then waits for the
+     * outstanding ones; returns the elapsed time.
+     */
+    private long drive(Function<Random, HttpRequest> scenario, int rps, Duration duration, int maxInFlight,
+                       LatencyRecorder recorder) {
+        Random random = new Random(SyntheticData.SEED);
+        AtomicInteger inFlight = new AtomicInteger();
+        long interval = 1_000_000_000L / rps;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long due = start; due < end; due += interval) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (inFlight.get() >= maxInFlight) {
+                if (recorder != null) {
+                    recorder.drop();
+                }
+                continue;
+            }
+            inFlight.incrementAndGet();
+            long scheduled = due;
+            client.sendAsync(scenario.apply(random), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, e) -> {
+                        inFlight.decrementAndGet();
+                        if (recorder != null) {
+                            recorder.record(System.nanoTime() - scheduled, e == null && response.statusCode() < 400);
+                        }
+                    });
+        }
+        long drainDeadline = System.nanoTime() + REQUEST_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(1_000_000);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Loads synthetic posts and tips plus one uploaded image, and builds the
+     * scenarios over them.
+     */
+    private Map<String, Function<Random, HttpRequest>> seed(int postCount, int tipCount) throws Exception {
+        List<FoodPost> posts = SyntheticData.posts(postCount, 0, SyntheticData.SEED);
+        List<DecorationTip> tips = SyntheticData.tips(tipCount, 0, SyntheticData.SEED);
+        // Stored media is only attached through uploads, so the API rejects items that reference it
+        for (FoodPost post : posts) {
+            post.setMediaUrls(new ArrayList<>());
+            post.setMediaVariants(null);
+        }
+        for (DecorationTip tip : tips) {
+            tip.setMedia(new ArrayList<>());
+            tip.setThumbnail(null);
+        }
+        for (int i = 0; i < posts.size(); i += SEED_CHUNK) {
+            send(json("/api/posts/batch", posts.subList(i, Math.min(i + SEED_CHUNK, posts.size()))));
+        }
+        for (int i = 0; i < tips.size(); i += SEED_CHUNK) {
+            send(json("/api/decoration-tips/batch", tips.subList(i, Math.min(i + SEED_CHUNK, tips.size()))));
+        }
+        JsonNode uploaded = objectMapper.readTree(send(multipart("/api/posts", "Load test image", image())));
+        String mediaUrl = uploaded.path("mediaUrls").path(0).asText();
+
+        List<String> postIds = posts.stream().map(FoodPost::getId).collect(Collectors.toList());
+        List<String> tipIds = tips.stream().map(DecorationTip::getId).collect(Collectors.toList());
+        List<String> categories = posts.stream().map(FoodPost::getCategory).distinct().collect(Collectors.toList());
+        List<String> words = posts.stream().flatMap(post -> Arrays.stream(post.getTitle().split(" ")))
+                .distinct().collect(Collectors.toList());
+
+        Map<String, Function<Random, HttpRequest>> scenarios = new LinkedHashMap<>();
+        scenarios.put("posts.byId", random -> get("/api/posts/" + pick(random, postIds)));
+        scenarios.put("posts.byCategory", random -> get("/api/posts/category/" + pick(random, categories)));
+        scenarios.put("posts.page", random -> get("/api/posts/category/" + pick(random, categories) + "?size=20"));
+        scenarios.put("posts.batch", random -> get("/api/posts/batch?ids=" + String.join(",",
+                random.ints(20, 0, postIds.size()).mapToObj(postIds::get).collect(Collectors.toList()))));
+        scenarios.put("posts.create", random -> multipart("/api/posts", "Load test post " + random.nextInt(), null));
+        scenarios.put("tips.byId", random -> get("/api/decoration-tips/" + pick(random, tipIds)));
+        scenarios.put("tips.all", random -> get("/api/decoration-tips"));
+        scenarios.put("tips.page", random -> get("/api/decoration-tips?size=20"));
+        scenarios.put("tips.create", random -> {
+            DecorationTip tip = SyntheticData.tips(1, 0, random.nextLong()).get(0);
+            tip.setId(null);
+            tip.setMedia(new ArrayList<>());
+            tip.setThumbnail(null);
+            return json("/api/decoration-tips", tip);
+        });
+        scenarios.put("search", random -> get("/api/search?q="
+                + URLEncoder.encode(pick(random, words) + " " + pick(random, words), StandardCharsets.UTF_8)));
+        scenarios.put("media", random -> get(mediaUrl));
+        return scenarios;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    private HttpRequest json(String path, Object body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A post creation form; {@code png}, when given, is attached as its media.
+     */
+    private HttpRequest multipart(String path, String title, byte[] png) {
+        String boundary = "----loadtest" + Long.toHexString(System.nanoTime());
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        writePart(body, boundary, "title", null, title.getBytes(StandardCharsets.UTF_8));
+        writePart(body, boundary, "description", null, "Generated by the load test".getBytes(StandardCharsets.UTF_8));
+        if (png != null) {
+            writePart(body, boundary, "media", "image.png", png);
+        }
+        body.writeBytes(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+    }
+
+    private static void writePart(ByteArrayOutputStream body, String boundary, String name, String filename, byte[] content) {
+        StringBuilder header = new StringBuilder("--").append(boundary).append("\r\n")
+                .append("Content-Disposition: form-data; name=\"").append(name).append('"');
+        if (filename != null) {
+            header.append("; filename=\"").append(filename).append("\"\r\nContent-Type: image/png");
+        }
+        header.append("\r\n\r\n");
+        body.writeBytes(header.toString().getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(content);
+        body.writeBytes("\r\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException("Seeding failed: " + request.method() + " " + request.uri()
+                    + " returned " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    /**
+     * A real image, so the upload also exercises derivative generation.
+     */
+    private static byte[] image() throws IOException {
+        Random random = new Random(SyntheticData.SEED);
+        BufferedImage image = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static <T> T pick(Random random, List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals < 1) {
+                throw new IllegalArgumentException("Expected name=value, got: " + arg);
+            }
+            options.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        return options;
+    }
+}
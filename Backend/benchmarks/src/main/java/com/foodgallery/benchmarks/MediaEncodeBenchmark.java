@@ -0,0 +1,97 @@
+package com.foodgallery.benchmarks;
+
+import com.foodgallery.model.StoredMedia;
+import com.foodgallery.service.InMemoryMediaStore;
+import com.foodgallery.service.LocalFileSystemMediaStore;
+import com.foodgallery.service.MediaStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upload handling per file: the original controller path (whole file into a
+ * byte array, Base64, then {@code String.format} into a data URI) against
+ * storing it through {@link MediaStore#store}, the chunked copy with on-the-fly
+ * SHA-256 the media stores use now. Each stored file is released again, so
+ * content addressing never skips the copy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class MediaEncodeBenchmark {
+
+    private static final long SEED = 20240601L;
+
+    @Param({"65536", "1048576", "5242880"})
+    private int fileSize;
+
+    @Param({"65536"})
+    private int chunkSize;
+
+    private byte[] file;
+    private Path root;
+    private MediaStore memoryStore;
+    private MediaStore localStore;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = new byte[fileSize];
+        new Random(SEED).nextBytes(file);
+        memoryStore = new InMemoryMediaStore(DataSize.ofBytes(chunkSize), Duration.ZERO, Duration.ZERO, 0);
+        root = Files.createTempDirectory("media-benchmark");
+        localStore = new LocalFileSystemMediaStore(root.toString(), DataSize.ofBytes(chunkSize));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(root);
+    }
+
+    @Benchmark
+    public String legacyDataUri() {
+        // MultipartFile.getBytes() copies the whole upload into the heap
+        byte[] bytes = file.clone();
+        String base64String = Base64.getEncoder().encodeToString(bytes);
+        return String.format("data:%s;base64,%s", "image/jpeg", base64String);
+    }
+
+    @Benchmark
+    public String memoryStore() throws IOException {
+        return storeAndRelease(memoryStore);
+    }
+
+    @Benchmark
+    public String localFileSystemStore() throws IOException {
+        return storeAndRelease(localStore);
+    }
+
+    private String storeAndRelease(MediaStore store) throws IOException {
+        StoredMedia media = store.store(new ByteArrayInputStream(file), "image/jpeg");
+        store.release(media.getId());
+        return media.getSha256();
+    }
+}
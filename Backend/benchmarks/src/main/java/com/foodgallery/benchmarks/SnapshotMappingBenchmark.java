@@ -0,0 +1,93 @@
+package com.foodgallery.benchmarks;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foodgallery.model.DecorationTip;
+import com.foodgallery.model.FoodPost;
+import com.google.firebase.database.utilities.encoding.CustomClassMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of the generic value trees that snapshots hold into model objects:
+ * Firebase's reflective class mapper (what {@code DataSnapshot.getValue(Class)}
+ * uses) against Jackson's {@code convertValue}. Inputs are synthetic.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class SnapshotMappingBenchmark {
+
+    @Param({"20", "2000"})
+    private int count;
+
+    private ObjectMapper objectMapper;
+    private List<Map<String, Object>> postTrees;
+    private List<Map<String, Object>> tipTrees;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        postTrees = new ArrayList<>(count);
+        for (FoodPost post : SyntheticData.posts(count, 0, SyntheticData.SEED)) {
+            postTrees.add(SyntheticData.postTree(post));
+        }
+        tipTrees = new ArrayList<>(count);
+        for (DecorationTip tip : SyntheticData.tips(count, 0, SyntheticData.SEED)) {
+            tipTrees.add(SyntheticData.tipTree(tip));
+        }
+    }
+
+    @Benchmark
+    public List<FoodPost> firebaseMapperPosts() {
+        List<FoodPost> posts = new ArrayList<>(postTrees.size());
+        for (Map<String, Object> tree : postTrees) {
+            posts.add(CustomClassMapper.convertToCustomClass(tree, FoodPost.class));
+        }
+        return posts;
+    }
+
+    @Benchmark
+    public List<FoodPost> jacksonConvertPosts() {
+        List<FoodPost> posts = new ArrayList<>(postTrees.size());
+        for (Map<String, Object> tree : postTrees) {
+            posts.add(objectMapper.convertValue(tree, FoodPost.class));
+        }
+        return posts;
+    }
+
+    @Benchmark
+    public List<DecorationTip> firebaseMapperTips() {
+        List<DecorationTip> tips = new ArrayList<>(tipTrees.size());
+        for (Map<String, Object> tree : tipTrees) {
+            tips.add(CustomClassMapper.convertToCustomClass(tree, DecorationTip.class));
+        }
+        return tips;
+    }
+
+    @Benchmark
+    public List<DecorationTip> jacksonConvertTips() {
+        List<DecorationTip> tips = new ArrayList<>(tipTrees.size());
+        for (Map<String, Object> tree : tipTrees) {
+            tips.add(objectMapper.convertValue(tree, DecorationTip.class));
+        }
+        return tips;
+    }
+}
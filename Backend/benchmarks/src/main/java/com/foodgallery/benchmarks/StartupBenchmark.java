@@ -0,0 +1,184 @@
+package com.foodgallery.benchmarks;
+
+import com.foodgallery.FoodGalleryApplication;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cold-start benchmark. Starts the application in a fresh JVM per run and
+ * measures, from process launch:
+ * <ul>
+ *     <li>{@code started}: what Spring Boot reports as "process running for"
+ *     when the context is up</li>
+ *     <li>{@code ready}: until {@code /actuator/health} first answers 200</li>
+ *     <li>{@code first}: latency of the first request to {@code path}, which
+ *     pays for anything initialized lazily, and {@code second} for comparison</li>
+ * </ul>
+ * Options are {@code name=value} arguments:
+ * <ul>
+ *     <li>{@code runs}: number of cold starts (default 5)</li>
+ *     <li>{@code profiles}: Spring profiles to run with (default {@code fake})</li>
+ *     <li>{@code path}: the first request (default {@code /api/posts/category/Dessert})</li>
+ *     <li>{@code aot}: run with the AOT-generated context ({@code -Dspring.aot.enabled=true});
+ *     the application must have been built with {@code -Pfast-startup}</li>
+ *     <li>{@code cds}: do a training run that dumps a class-data sharing archive
+ *     for this classpath, then start every run from it</li>
+ *     <li>{@code jvm-args}: comma-separated extra JVM options</li>
+ * </ul>
+ */
+public final class StartupBenchmark {
+
+    private static final Pattern STARTED = Pattern.compile("process running for ([0-9.]+)");
+    private static final Duration START_TIMEOUT = Duration.ofSeconds(120);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        String profiles = options.getOrDefault("profiles", "fake");
+        String path = options.getOrDefault("path", "/api/posts/category/Dessert");
+
+        List<String> jvmArgs = new ArrayList<>();
+        if (options.containsKey("jvm-args")) {
+            jvmArgs.addAll(Arrays.asList(options.get("jvm-args").split(",")));
+        }
+        if (Boolean.parseBoolean(options.getOrDefault("aot", "false"))) {
+            jvmArgs.add("-Dspring.aot.enabled=true");
+        }
+        if (Boolean.parseBoolean(options.getOrDefault("cds", "false"))) {
+            Path archive = Paths.get("target", "startup-cds.jsa").toAbsolutePath();
+            Files.createDirectories(archive.getParent());
+            Files.deleteIfExists(archive);
+            List<String> training = new ArrayList<>(jvmArgs);
+            training.add("-XX:ArchiveClassesAtExit=" + archive);
+            // Loads and initializes the context's classes, then exits
+            training.add("-Dspring.context.exit=onRefresh");
+            Process process = launch(training, profiles, freePort(), Files.createTempFile("startup-cds", ".log"));
+            if (!process.waitFor(START_TIMEOUT.toSeconds(), TimeUnit.SECONDS) || !Files.exists(archive)) {
+                process.destroyForcibly();
+                throw new IllegalStateException("CDS training run did not write " + archive);
+            }
+            jvmArgs.add("-XX:SharedArchiveFile=" + archive);
+        }
+
+        System.out.printf("%d cold starts, profiles=%s, JVM options %s%n%n", runs, profiles, jvmArgs);
+        System.out.printf("%-5s %11s %9s %10s %11s%n", "run", "started ms", "ready ms", "first ms", "second ms");
+        StartupBenchmark benchmark = new StartupBenchmark();
+        double[][] results = new double[runs][];
+        for (int run = 0; run < runs; run++) {
+            results[run] = benchmark.coldStart(jvmArgs, profiles, path);
+            System.out.printf("%-5d %11.0f %9.0f %10.1f %11.1f%n", run + 1,
+                    results[run][0], results[run][1], results[run][2], results[run][3]);
+        }
+        System.out.printf("%-5s %11.0f %9.0f %10.1f %11.1f%n", "p50",
+                median(results, 0), median(results, 1), median(results, 2), median(results, 3));
+    }
+
+    /**
+     * Returns started, ready, first and second request times in milliseconds.
+     */
+    private double[] coldStart(List<String> jvmArgs, String profiles, String path) throws Exception {
+        int port = freePort();
+        Path log = Files.createTempFile("startup", ".log");
+        long launched = System.nanoTime();
+        Process process = launch(jvmArgs, profiles, port, log);
+        try {
+            String base = "http://localhost:" + port;
+            long deadline = launched + START_TIMEOUT.toNanos();
+            while (status(base + "/actuator/health") != 200) {
+                if (!process.isAlive() || System.nanoTime() > deadline) {
+                    throw new IllegalStateException("Application did not start; see " + log);
+                }
+                Thread.sleep(5);
+            }
+            long ready = System.nanoTime();
+            long first = time(base + path);
+            long second = time(base + path);
+            Matcher started = STARTED.matcher(Files.readString(log));
+            double startedMillis = started.find() ? Double.parseDouble(started.group(1)) * 1000 : Double.NaN;
+            Files.deleteIfExists(log);
+            return new double[]{startedMillis, (ready - launched) / 1e6, first / 1e6, second / 1e6};
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static Process launch(List<String> jvmArgs, String profiles, int port, Path log) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(FoodGalleryApplication.class.getName());
+        command.add("--server.port=" + port);
+        command.add("--spring.profiles.active=" + profiles);
+        return new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+    }
+
+    private int status(String url) throws InterruptedException {
+        try {
+            return client.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+                    HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            // Not listening yet
+            return -1;
+        }
+    }
+
+    private long time(String url) throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+                HttpResponse.BodyHandlers.discarding());
+        long elapsed = System.nanoTime() - started;
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException("GET " + url + " returned " + response.statusCode());
+        }
+        return elapsed;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static double median(double[][] results, int column) {
+        return Arrays.stream(results).mapToDouble(row -> row[column]).sorted().toArray()[results.length / 2];
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals < 1) {
+                throw new IllegalArgumentException("Expected name=value, got: " + arg);
+            }
+            options.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,156 @@
+package com.foodgallery.benchmarks;
+
+import com.foodgallery.model.DecorationTip;
+import com.foodgallery.model.FoodPost;
+import com.foodgallery.model.MediaVariants;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic test data: every generator takes an explicit seed, so runs on
+ * different commits measure exactly the same inputs.
+ */
+final class SyntheticData {
+
+    static final long SEED = 20240601L;
+
+    private static final String[] WORDS = {
+            "chocolate", "vanilla", "buttercream", "ganache", "sponge", "berry", "lemon", "caramel",
+            "fondant", "piping", "layer", "crumb", "glaze", "almond", "pistachio", "meringue"};
+    private static final String[] CATEGORIES = {"POST", "RECIPE", "CAKE", "PASTRY"};
+    private static final String[] DIFFICULTIES = {"Easy", "Medium", "Hard"};
+
+    private SyntheticData() {
+    }
+
+    static byte[] bytes(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * Posts with stored media references (the current format) or, with
+     * {@code inlineMediaBytes > 0}, legacy inline data URIs of that many bytes.
+     */
+    static List<FoodPost> posts(int count, int inlineMediaBytes, long seed) {
+        Random random = new Random(seed);
+        String inline = inlineMediaBytes > 0 ? dataUri(inlineMediaBytes, seed) : null;
+        List<FoodPost> posts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            FoodPost post = new FoodPost();
+            post.setId("-N" + Long.toString(random.nextLong() & Long.MAX_VALUE, 36));
+            post.setTitle(sentence(random, 4));
+            post.setDescription(sentence(random, 60));
+            post.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            List<String> media = new ArrayList<>();
+            List<MediaVariants> variants = new ArrayList<>();
+            for (int m = 0; m < 3; m++) {
+                String original = inline != null ? inline : reference(random, "jpg");
+                media.add(original);
+                MediaVariants variant = MediaVariants.of(original);
+                variant.setThumbnail(reference(random, "jpg"));
+                variant.setCard(reference(random, "jpg"));
+                variants.add(variant);
+            }
+            post.setMediaUrls(media);
+            post.setMediaVariants(variants);
+            posts.add(post);
+        }
+        return posts;
+    }
+
+    static List<DecorationTip> tips(int count, int inlineMediaBytes, long seed) {
+        Random random = new Random(seed);
+        String inline = inlineMediaBytes > 0 ? dataUri(inlineMediaBytes, seed) : null;
+        List<DecorationTip> tips = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            DecorationTip tip = new DecorationTip();
+            tip.setId(Long.toString(random.nextLong() & Long.MAX_VALUE, 36));
+            tip.setTitle(sentence(random, 5));
+            tip.setDescription(sentence(random, 40));
+            tip.setTip(sentence(random, 80));
+            tip.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            tip.setDifficulty(DIFFICULTIES[random.nextInt(DIFFICULTIES.length)]);
+            tip.setAuthor(sentence(random, 2));
+            tip.setMediaType("image");
+            tip.setCreatedAt("2024-06-01T12:00:00Z");
+            List<String> media = new ArrayList<>();
+            for (int m = 0; m < 2; m++) {
+                media.add(inline != null ? inline : reference(random, "jpg"));
+            }
+            tip.setMedia(media);
+            tip.setThumbnail(reference(random, "jpg"));
+            tips.add(tip);
+        }
+        return tips;
+    }
+
+    /**
+     * The generic value tree a {@code DataSnapshot} hands to the class mapper.
+     */
+    static Map<String, Object> postTree(FoodPost post) {
+        Map<String, Object> tree = new HashMap<>();
+        tree.put("id", post.getId());
+        tree.put("title", post.getTitle());
+        tree.put("description", post.getDescription());
+        tree.put("category", post.getCategory());
+        tree.put("mediaUrls", new ArrayList<>(post.getMediaUrls()));
+        List<Object> variants = new ArrayList<>();
+        for (MediaVariants variant : post.getMediaVariants()) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("sourceHash", variant.getSourceHash());
+            entry.put("thumbnail", variant.getThumbnail());
+            entry.put("card", variant.getCard());
+            variants.add(entry);
+        }
+        tree.put("mediaVariants", variants);
+        return tree;
+    }
+
+    static Map<String, Object> tipTree(DecorationTip tip) {
+        Map<String, Object> tree = new HashMap<>();
+        tree.put("id", tip.getId());
+        tree.put("title", tip.getTitle());
+        tree.put("description", tip.getDescription());
+        tree.put("tip", tip.getTip());
+        tree.put("category", tip.getCategory());
+        tree.put("difficulty", tip.getDifficulty());
+        tree.put("author", tip.getAuthor());
+        tree.put("mediaType", tip.getMediaType());
+        tree.put("createdAt", tip.getCreatedAt());
+        tree.put("thumbnail", tip.getThumbnail());
+        tree.put("media", new ArrayList<>(tip.getMedia()));
+        return tree;
+    }
+
+    private static String dataUri(int size, long seed) {
+        return "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(bytes(size, seed));
+    }
+
+    private static String reference(Random random, String extension) {
+        byte[] hash = new byte[32];
+        random.nextBytes(hash);
+        StringBuilder id = new StringBuilder("/api/media/");
+        for (byte b : hash) {
+            id.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return id.append('.').append(extension).toString();
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sentence.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package com.foodgallery.benchmarks;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Platform threads against virtual threads under slow reads. Runs
+ * {@link LoadTest} twice in this JVM, once with the {@code fake} profile
+ * (Tomcat's pool of 200 platform threads) and once with
+ * {@code fake,virtual-threads}, with every fake store call taking
+ * {@code latency}. At the default 5000 req/s and 200 ms that is about 1000
+ * requests in flight:
+ * <ul>
+ *     <li>{@code media} blocks its request thread on the store for the whole
+ *     call, so with platform threads it is capped at 200 / latency requests
+ *     per second and queues beyond that</li>
+ *     <li>{@code posts.byId} waits on a future and releases its thread, so it
+ *     should scale in both modes; it is the control</li>
+ * </ul>
+ * Options are those of {@link LoadTest} plus {@code latency} (default 200ms).
+ * The virtual-thread run needs Java 21 and is skipped on older runtimes.
+ */
+public final class ThreadModelComparison {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("rps", "5000");
+        options.put("duration", "30s");
+        options.put("warmup", "10s");
+        options.put("max-in-flight", "5000");
+        options.put("scenarios", "media,posts.byId");
+        options.putAll(LoadTest.parse(args));
+        String latency = options.getOrDefault("latency", "200ms");
+        options.remove("latency");
+        String[] properties = {"--fake.latency=" + latency, "--fake.latency-jitter=0ms"};
+
+        System.out.printf("== Platform threads, %s per store call ==%n", latency);
+        options.put("profiles", "fake");
+        LoadTest.run(options, properties);
+
+        if (Runtime.version().feature() < 21) {
+            System.out.printf("%nSkipping virtual threads: Java %d, need 21 or later%n", Runtime.version().feature());
+            return;
+        }
+        System.out.printf("%n== Virtual threads, %s per store call ==%n", latency);
+        options.put("profiles", "fake,virtual-threads");
+        LoadTest.run(options, properties);
+    }
+}
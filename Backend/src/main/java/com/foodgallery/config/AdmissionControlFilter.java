@@ -0,0 +1,117 @@
+package com.foodgallery.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Admission control for writes. Multipart uploads and other writes each go
+ * through their own {@link AdmissionLimiter}, before the body is parsed, so a
+ * burst of uploads cannot fill the heap or the servlet threads that readers
+ * need. Rejected requests get {@code 429} with {@code Retry-After}. Permits of
+ * async requests are held until the async response completes.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlFilter.class);
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final AdmissionLimiter uploads;
+    private final AdmissionLimiter writes;
+    private final long unknownSize;
+    private final String retryAfter;
+
+    /**
+     * @param unknownSize bytes charged to requests without a Content-Length
+     */
+    public AdmissionControlFilter(AdmissionLimiter uploads, AdmissionLimiter writes, long unknownSize,
+                                  Duration retryAfter) {
+        this.uploads = uploads;
+        this.writes = writes;
+        this.unknownSize = unknownSize;
+        this.retryAfter = Long.toString(Math.max(1, retryAfter.toSeconds()));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return READ_METHODS.contains(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean upload = isMultipart(request);
+        long size = request.getContentLengthLong();
+        AdmissionLimiter.Permit permit;
+        try {
+            permit = (upload ? uploads : writes).acquire(size >= 0 ? size : unknownSize);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            permit = null;
+        }
+        if (permit == null) {
+            logger.warn("Rejected {} {} ({} bytes): {} limit reached", request.getMethod(), request.getRequestURI(),
+                    size, upload ? "upload" : "write");
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value());
+            return;
+        }
+
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnCompletion(permit));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                permit.release();
+            }
+        }
+    }
+
+    private static boolean isMultipart(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && contentType.regionMatches(true, 0, MediaType.MULTIPART_FORM_DATA_VALUE, 0,
+                MediaType.MULTIPART_FORM_DATA_VALUE.length());
+    }
+
+    private record ReleaseOnCompletion(AdmissionLimiter.Permit permit) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            permit.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            permit.release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            permit.release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Re-dispatches keep the same permit
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.foodgallery.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Caps the number of requests of one kind in progress, and the request bytes
+ * they hold between them. A request that does not fit waits in a bounded queue
+ * for up to {@code maxWait}; when the queue is full or the wait runs out it is
+ * rejected. A request larger than the whole byte budget is admitted only when
+ * nothing else is in progress. Published with a {@code limiter} tag as:
+ * <ul>
+ *     <li>{@code admission.active}, {@code admission.inflight.bytes}: admitted requests in progress</li>
+ *     <li>{@code admission.queue.depth}: requests waiting for admission</li>
+ *     <li>{@code admission.wait}: time spent waiting by admitted requests</li>
+ *     <li>{@code admission.rejections}: rejected requests by {@code reason}
+ *     ({@code queue-full}, {@code timeout})</li>
+ * </ul>
+ */
+public final class AdmissionLimiter {
+
+    private final int maxConcurrent;
+    private final long maxBytes;
+    private final int maxQueue;
+    private final Duration maxWait;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private int active;
+    private long bytes;
+    private int waiting;
+
+    private final Timer waitTimer;
+    private final Counter queueFull;
+    private final Counter timedOut;
+
+    public AdmissionLimiter(String name, int maxConcurrent, long maxBytes, int maxQueue, Duration maxWait,
+                            MeterRegistry meterRegistry) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxBytes = maxBytes;
+        this.maxQueue = maxQueue;
+        this.maxWait = maxWait;
+        Gauge.builder("admission.active", this, limiter -> limiter.read(() -> limiter.active))
+                .description("Admitted requests in progress")
+                .tag("limiter", name)
+                .register(meterRegistry);
+        Gauge.builder("admission.inflight.bytes", this, limiter -> limiter.read(() -> limiter.bytes))
+                .description("Declared request bytes held by admitted requests")
+                .baseUnit("bytes")
+                .tag("limiter", name)
+                .register(meterRegistry);
+        Gauge.builder("admission.queue.depth", this, limiter -> limiter.read(() -> limiter.waiting))
+                .description("Requests waiting for admission")
+                .tag("limiter", name)
+                .register(meterRegistry);
+        waitTimer = Timer.builder("admission.wait")
+                .description("Time admitted requests waited for a slot")
+                .tag("limiter", name)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        queueFull = rejections(meterRegistry, name, "queue-full");
+        timedOut = rejections(meterRegistry, name, "timeout");
+    }
+
+    /**
+     * Admits a request declaring {@code size} bytes, waiting if necessary.
+     * Returns null if it was rejected; otherwise the returned permit must be
+     * released exactly once when the request completes.
+     */
+    public Permit acquire(long size) throws InterruptedException {
+        long cost = Math.min(Math.max(size, 0), maxBytes);
+        lock.lock();
+        try {
+            if (fits(cost)) {
+                return admit(cost, 0);
+            }
+            if (waiting >= maxQueue) {
+                queueFull.increment();
+                return null;
+            }
+            long started = System.nanoTime();
+            long remaining = maxWait.toNanos();
+            waiting++;
+            try {
+                while (!fits(cost)) {
+                    if (remaining <= 0) {
+                        timedOut.increment();
+                        return null;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+            } finally {
+                waiting--;
+            }
+            return admit(cost, System.nanoTime() - started);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean fits(long cost) {
+        return active == 0 || active < maxConcurrent && bytes + cost <= maxBytes;
+    }
+
+    private Permit admit(long cost, long waitedNanos) {
+        active++;
+        bytes += cost;
+        waitTimer.record(waitedNanos, TimeUnit.NANOSECONDS);
+        return new Permit(cost);
+    }
+
+    private long read(LongSupplier value) {
+        lock.lock();
+        try {
+            return value.getAsLong();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String name, String reason) {
+        return Counter.builder("admission.rejections")
+                .description("Requests rejected by admission control")
+                .tags("limiter", name, "reason", reason)
+                .register(meterRegistry);
+    }
+
+    public final class Permit {
+
+        private final long cost;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long cost) {
+            this.cost = cost;
+        }
+
+        /** Safe to call more than once; only the first call counts. */
+        public void release() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            lock.lock();
+            try {
+                active--;
+                bytes -= cost;
+                AdmissionLimiter.this.released.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.foodgallery.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * Bounded pool for blocking work (blob store I/O) chained off database
+     * futures, so it never runs on the Firebase event thread or a servlet thread.
+     */
+    @Bean(name = "mediaTaskExecutor")
+    @ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "false", matchIfMissing = true)
+    public AsyncTaskExecutor mediaTaskExecutor(@Value("${media.executor.pool-size:8}") int poolSize,
+                                               @Value("${media.executor.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("media-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Virtual-thread variant used with the {@code virtual-threads} profile: one
+     * virtual thread per task, and tasks over the concurrency limit are rejected
+     * as they would be by a full pool.
+     */
+    @Bean(name = "mediaTaskExecutor")
+    @ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+    public AsyncTaskExecutor virtualMediaTaskExecutor(@Value("${media.executor.concurrency-limit:256}") int concurrencyLimit) {
+        return new BoundedVirtualThreadExecutor("media-", concurrencyLimit);
+    }
+
+    /**
+     * Runs the individual file uploads of multi-file posts in parallel. Kept
+     * separate from mediaTaskExecutor, whose tasks may wait on these uploads.
+     */
+    @Bean(name = "uploadTaskExecutor")
+    @ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "false", matchIfMissing = true)
+    public AsyncTaskExecutor uploadTaskExecutor(@Value("${media.upload.pool-size:16}") int poolSize,
+                                                @Value("${media.upload.queue-capacity:500}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("upload-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "uploadTaskExecutor")
+    @ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+    public AsyncTaskExecutor virtualUploadTaskExecutor(@Value("${media.upload.concurrency-limit:256}") int concurrencyLimit) {
+        return new BoundedVirtualThreadExecutor("upload-", concurrencyLimit);
+    }
+
+    /**
+     * CPU-bound image resizing stays on a small platform-thread pool in every
+     * profile; excess work is rejected rather than queued without bound.
+     */
+    @Bean(name = "derivativeTaskExecutor")
+    public AsyncTaskExecutor derivativeTaskExecutor(@Value("${media.derivatives.pool-size:2}") int poolSize,
+                                                    @Value("${media.derivatives.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("derivatives-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,64 @@
+package com.foodgallery.config;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * One virtual thread per task, at most {@code limit} at a time. Unlike
+ * {@link SimpleAsyncTaskExecutor#setConcurrencyLimit}, which blocks the
+ * submitting thread until a task finishes, a task over the limit is rejected
+ * straight away, as a full {@code ThreadPoolTaskExecutor} queue would be: tasks
+ * are submitted from Firebase event threads, which must never wait.
+ */
+class BoundedVirtualThreadExecutor implements AsyncTaskExecutor {
+
+    private final SimpleAsyncTaskExecutor threads;
+    private final Semaphore permits;
+    private final int limit;
+
+    BoundedVirtualThreadExecutor(String threadNamePrefix, int limit) {
+        threads = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        threads.setVirtualThreads(true);
+        permits = new Semaphore(limit);
+        this.limit = limit;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!permits.tryAcquire()) {
+            throw new RejectedExecutionException("More than " + limit + " " + threads.getThreadNamePrefix() + "tasks running");
+        }
+        try {
+            threads.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        FutureTask<Object> future = new FutureTask<>(task, null);
+        execute(future);
+        return future;
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>(task);
+        execute(future);
+        return future;
+    }
+}
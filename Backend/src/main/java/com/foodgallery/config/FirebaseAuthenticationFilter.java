@@ -0,0 +1,87 @@
+package com.foodgallery.config;
+
+import com.foodgallery.model.User;
+import com.foodgallery.service.IdTokenVerifier;
+import com.foodgallery.service.InvalidTokenException;
+import com.foodgallery.service.UserService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Requires a Firebase ID token ({@code Authorization: Bearer <token>}) on
+ * writes, and on everything under {@code /api/auth}. Reads stay public. The
+ * token is verified locally and the caller's {@link User} is stored as the
+ * {@link #USER_ATTRIBUTE} request attribute; no session is created.
+ */
+public class FirebaseAuthenticationFilter extends OncePerRequestFilter {
+
+    public static final String USER_ATTRIBUTE = "com.foodgallery.user";
+
+    private static final Logger logger = LoggerFactory.getLogger(FirebaseAuthenticationFilter.class);
+
+    private static final Set<String> PUBLIC_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    private static final String BEARER = "Bearer ";
+
+    private final IdTokenVerifier verifier;
+    private final UserService userService;
+    private final Duration userTimeout;
+
+    public FirebaseAuthenticationFilter(IdTokenVerifier verifier, UserService userService, Duration userTimeout) {
+        this.verifier = verifier;
+        this.userService = userService;
+        this.userTimeout = userTimeout;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/api/auth/")) {
+            return "OPTIONS".equals(method);
+        }
+        return PUBLIC_METHODS.contains(method);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Missing bearer token");
+            return;
+        }
+        try {
+            User user = userService.resolve(verifier.verify(header.substring(BEARER.length()).trim()))
+                    .get(userTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            request.setAttribute(USER_ATTRIBUTE, user);
+        } catch (InvalidTokenException e) {
+            logger.debug("Rejected ID token: {}", e.getMessage());
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, e.getMessage());
+            return;
+        } catch (ExecutionException | TimeoutException e) {
+            logger.error("Failed to resolve user: {}", e.getMessage());
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,141 @@
+package com.foodgallery.config;
+
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.storage.Bucket;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import com.google.firebase.cloud.FirestoreClient;
+import com.google.firebase.cloud.StorageClient;
+import com.google.firebase.database.FirebaseDatabase;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.function.SingletonSupplier;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The Firebase app and its Realtime Database, Firestore and Cloud Storage
+ * clients, each created on first use. {@code firebase.startup} decides when
+ * that first use happens:
+ * <ul>
+ *     <li>{@code eager}: all of them while the context starts, as before</li>
+ *     <li>{@code background}: in parallel once the application is ready, so
+ *     startup does not wait for credentials or channels; a request arriving
+ *     earlier waits only for the client it needs</li>
+ *     <li>{@code lazy}: on the first request that needs each client; the
+ *     search index is then loaded on the first search, not at startup</li>
+ * </ul>
+ * Only the clients of the configured stores ({@code datastore.type},
+ * {@code media.storage.type}) are warmed up.
+ */
+@Component
+public class FirebaseClients {
+
+    private static final Logger logger = LoggerFactory.getLogger(FirebaseClients.class);
+
+    private final SingletonSupplier<FirebaseApp> app = SingletonSupplier.of(FirebaseClients::initializeApp);
+    private final SingletonSupplier<FirebaseDatabase> database = SingletonSupplier.of(() -> FirebaseDatabase.getInstance(app.obtain()));
+    private final SingletonSupplier<Firestore> firestore = SingletonSupplier.of(() -> FirestoreClient.getFirestore(app.obtain()));
+    private final SingletonSupplier<Bucket> bucket = SingletonSupplier.of(() -> StorageClient.getInstance(app.obtain()).bucket());
+
+    @Value("${firebase.startup:eager}")
+    private String startup;
+
+    @Value("${datastore.type:firebase}")
+    private String datastoreType;
+
+    @Value("${media.storage.type:firebase}")
+    private String mediaStorageType;
+
+    public FirebaseDatabase database() {
+        return database.obtain();
+    }
+
+    public Firestore firestore() {
+        return firestore.obtain();
+    }
+
+    public Bucket bucket() {
+        return bucket.obtain();
+    }
+
+    @PostConstruct
+    public void initialize() {
+        if ("eager".equals(startup)) {
+            warmUp().join();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if ("background".equals(startup)) {
+            long started = System.nanoTime();
+            warmUp().whenComplete((v, e) -> {
+                if (e != null) {
+                    logger.error("Firebase warm-up failed; clients will be created on first use: {}", e.getMessage());
+                } else {
+                    logger.info("Firebase clients ready in {} ms", (System.nanoTime() - started) / 1_000_000);
+                }
+            });
+        }
+    }
+
+    /**
+     * Creates the app, then the clients of the configured stores in parallel.
+     */
+    private CompletableFuture<Void> warmUp() {
+        List<Runnable> clients = new ArrayList<>();
+        if ("firebase".equals(datastoreType)) {
+            clients.add(database::obtain);
+            clients.add(firestore::obtain);
+        }
+        if ("firebase".equals(mediaStorageType)) {
+            clients.add(bucket::obtain);
+        }
+        if (clients.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(clients.size(), runnable -> {
+            Thread thread = new Thread(runnable, "firebase-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletableFuture<Void> warmUp = CompletableFuture.runAsync(app::obtain, executor)
+                .thenCompose(v -> CompletableFuture.allOf(clients.stream()
+                        .map(client -> CompletableFuture.runAsync(client, executor))
+                        .toArray(CompletableFuture[]::new)));
+        warmUp.whenComplete((v, e) -> executor.shutdown());
+        return warmUp;
+    }
+
+    private static FirebaseApp initializeApp() {
+        if (!FirebaseApp.getApps().isEmpty()) {
+            return FirebaseApp.getInstance();
+        }
+        try {
+            InputStream serviceAccount = FirebaseClients.class.getClassLoader().getResourceAsStream("firebase-service-account.json");
+            if (serviceAccount == null) {
+                throw new RuntimeException("Firebase service account file 'firebase-service-account.json' not found in src/main/resources");
+            }
+            FirebaseOptions options = FirebaseOptions.builder()
+                    .setCredentials(GoogleCredentials.fromStream(serviceAccount))
+                    .setDatabaseUrl("https://foodgallery-ae35a-default-rtdb.asia-southeast1.firebasedatabase.app/")
+                    .setStorageBucket("foodgallery-ae35a.appspot.com")
+                    .build();
+            return FirebaseApp.initializeApp(options);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to initialize Firebase", e);
+        }
+    }
+}
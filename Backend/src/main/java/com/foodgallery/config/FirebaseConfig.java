@@ -1,32 +0,0 @@
-package com.foodgallery.config;
-
-import com.google.auth.oauth2.GoogleCredentials;
-import com.google.firebase.FirebaseApp;
-import com.google.firebase.FirebaseOptions;
-import org.springframework.context.annotation.Configuration;
-
-import javax.annotation.PostConstruct;
-import java.io.InputStream;
-
-@Configuration
-public class FirebaseConfig {
-
-    @PostConstruct
-    public void initialize() {
-        try {
-            InputStream serviceAccount = getClass().getClassLoader().getResourceAsStream("firebase-service-account.json");
-            if (serviceAccount == null) {
-                throw new RuntimeException("Firebase service account file 'firebase-service-account.json' not found in src/main/resources");
-            }
-            FirebaseOptions options = FirebaseOptions.builder()
-                    .setCredentials(GoogleCredentials.fromStream(serviceAccount))
-                    .setDatabaseUrl("https://foodgallery-ae35a-default-rtdb.asia-southeast1.firebasedatabase.app/")
-                    .build();
-            if (FirebaseApp.getApps().isEmpty()) {
-                FirebaseApp.initializeApp(options);
-            }
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to initialize Firebase", e);
-        }
-    }
-}
\ No newline at end of file
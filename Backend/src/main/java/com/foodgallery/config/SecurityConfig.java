@@ -0,0 +1,32 @@
+package com.foodgallery.config;
+
+import com.foodgallery.service.IdTokenVerifier;
+import com.foodgallery.service.UserService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "auth.enabled", havingValue = "true")
+public class SecurityConfig {
+
+    /**
+     * Puts the ID token check in front of the posts, decoration-tips and auth
+     * endpoints only; search, media and actuator stay open.
+     */
+    @Bean
+    public FilterRegistrationBean<FirebaseAuthenticationFilter> firebaseAuthenticationFilter(
+            IdTokenVerifier verifier, UserService userService,
+            @Value("${auth.user-timeout:5s}") Duration userTimeout) {
+        FilterRegistrationBean<FirebaseAuthenticationFilter> registration =
+                new FilterRegistrationBean<>(new FirebaseAuthenticationFilter(verifier, userService, userTimeout));
+        registration.addUrlPatterns("/api/posts/*", "/api/decoration-tips/*", "/api/auth/*");
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        return registration;
+    }
+}
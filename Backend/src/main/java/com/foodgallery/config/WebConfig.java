@@ -0,0 +1,59 @@
+package com.foodgallery.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Configuration
+public class WebConfig {
+
+    /**
+     * Admission control on writes to posts and decoration tips. Runs after
+     * authentication, so unauthenticated requests never hold a slot. Queued
+     * requests block their servlet thread, and admitted ones may too, so the
+     * limits must leave {@code admission.reserved-threads} of the Tomcat pool
+     * to reads; startup fails when they do not.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "admission.enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(
+            MeterRegistry meterRegistry,
+            @Value("${admission.uploads.max-concurrent:8}") int uploadsConcurrent,
+            @Value("${admission.uploads.max-inflight-bytes:64MB}") DataSize uploadsBytes,
+            @Value("${admission.uploads.max-queue:16}") int uploadsQueue,
+            @Value("${admission.uploads.max-wait:2s}") Duration uploadsWait,
+            @Value("${admission.writes.max-concurrent:64}") int writesConcurrent,
+            @Value("${admission.writes.max-inflight-bytes:32MB}") DataSize writesBytes,
+            @Value("${admission.writes.max-queue:48}") int writesQueue,
+            @Value("${admission.writes.max-wait:1s}") Duration writesWait,
+            @Value("${spring.servlet.multipart.max-request-size:10MB}") DataSize maxRequestSize,
+            @Value("${admission.retry-after:2s}") Duration retryAfter,
+            @Value("${admission.reserved-threads:50}") int reservedThreads,
+            @Value("${server.tomcat.threads.max:200}") int maxThreads,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        int admissionThreads = uploadsConcurrent + uploadsQueue + writesConcurrent + writesQueue;
+        // Virtual request threads are not pooled, so there is nothing to exhaust
+        if (!virtualThreads && admissionThreads + reservedThreads > maxThreads) {
+            throw new IllegalStateException(String.format(
+                    "Admission limits let writes hold %d servlet threads, leaving fewer than "
+                            + "admission.reserved-threads=%d of server.tomcat.threads.max=%d for reads",
+                    admissionThreads, reservedThreads, maxThreads));
+        }
+        AdmissionLimiter uploads = new AdmissionLimiter("uploads", uploadsConcurrent, uploadsBytes.toBytes(),
+                uploadsQueue, uploadsWait, meterRegistry);
+        AdmissionLimiter writes = new AdmissionLimiter("writes", writesConcurrent, writesBytes.toBytes(),
+                writesQueue, writesWait, meterRegistry);
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(
+                new AdmissionControlFilter(uploads, writes, maxRequestSize.toBytes(), retryAfter));
+        registration.addUrlPatterns("/api/posts/*", "/api/decoration-tips/*");
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+        return registration;
+    }
+}
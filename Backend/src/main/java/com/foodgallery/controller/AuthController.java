@@ -0,0 +1,22 @@
+package com.foodgallery.controller;
+
+import com.foodgallery.config.FirebaseAuthenticationFilter;
+import com.foodgallery.model.User;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/auth")
+@CrossOrigin(origins = "http://localhost:3000")
+public class AuthController {
+
+    /**
+     * The signed-in user, as resolved from the ID token by the authentication filter.
+     */
+    @GetMapping("/me")
+    public ResponseEntity<User> me(@RequestAttribute(value = FirebaseAuthenticationFilter.USER_ATTRIBUTE,
+            required = false) User user) {
+        return user != null ? ResponseEntity.ok(user) : ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.foodgallery.controller;
+
+import com.foodgallery.service.ContentVersions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Conditional GET support for the read endpoints. The ETag is derived from the
+ * body by {@link ContentVersions}, so a matching {@code If-None-Match} is
+ * answered with 304 without sending the body again.
+ */
+@Component
+public class ConditionalResponses {
+
+    // Clients may store responses but must revalidate each time; a 304 is cheap
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache();
+
+    @Autowired
+    private ContentVersions contentVersions;
+
+    public <T> CompletableFuture<ResponseEntity<T>> ok(WebRequest request, String collection,
+                                                      Supplier<CompletableFuture<T>> body) {
+        return respond(request, collection, body, loaded -> ResponseEntity.ok(loaded));
+    }
+
+    /**
+     * Like {@link #ok} but lets the caller map a loaded body to a response,
+     * e.g. to answer 404; the ETag and Cache-Control headers are added to it.
+     */
+    public <T, R> CompletableFuture<ResponseEntity<R>> respond(WebRequest request, String collection,
+                                                              Supplier<CompletableFuture<T>> body,
+                                                              Function<T, ResponseEntity<R>> toResponse) {
+        return body.get().thenApply(loaded -> {
+            ResponseEntity<R> response = toResponse.apply(loaded);
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                return response;
+            }
+            String etag = contentVersions.etag(collection, response.getBody());
+            if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CACHE_CONTROL).build();
+            }
+            return ResponseEntity.status(response.getStatusCode())
+                    .headers(response.getHeaders())
+                    .eTag(etag)
+                    .cacheControl(CACHE_CONTROL)
+                    .body(response.getBody());
+        });
+    }
+
+    /**
+     * Weak comparison as required for If-None-Match, which also accepts the
+     * W/-prefixed form that response compression may turn our ETag into.
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,58 +1,204 @@
 package com.foodgallery.controller;
 
+import com.foodgallery.model.BatchItemResult;
 import com.foodgallery.model.DecorationTip;
+import com.foodgallery.model.MediaVariants;
+import com.foodgallery.model.TipPage;
+import com.foodgallery.model.TipPatch;
+import com.foodgallery.repository.VersionConflictException;
+import com.foodgallery.service.ContentVersions;
 import com.foodgallery.service.DecorationTipService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/decoration-tips")
 @CrossOrigin(origins = "http://localhost:3000")
 public class DecorationTipController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_BATCH_SIZE = 10_000;
+
     @Autowired
     private DecorationTipService service;
 
+    @Autowired
+    private ConditionalResponses conditionalResponses;
+
+    @Autowired
+    private NdjsonResponses ndjsonResponses;
+
     @PostMapping
-    public ResponseEntity<DecorationTip> createTip(@RequestBody DecorationTip tip) throws ExecutionException, InterruptedException {
-        DecorationTip savedTip = service.createTip(tip);
-        return ResponseEntity.ok(savedTip);
+    public CompletableFuture<ResponseEntity<DecorationTip>> createTip(@RequestBody DecorationTip tip) {
+        return service.createTip(tip).thenApply(ResponseEntity::ok);
+    }
+
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<List<BatchItemResult<DecorationTip>>>> createTips(@RequestBody List<DecorationTip> tips) {
+        if (tips.size() > MAX_BATCH_SIZE) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(null));
+        }
+        return service.createTips(tips).thenApply(ResponseEntity::ok);
+    }
+
+    @GetMapping("/batch")
+    public CompletableFuture<ResponseEntity<List<BatchItemResult<DecorationTip>>>> getTips(@RequestParam("ids") List<String> ids,
+                                                                                   WebRequest request) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(null));
+        }
+        return conditionalResponses.ok(request, ContentVersions.TIPS, () -> service.getTips(ids));
+    }
+
+    @DeleteMapping("/batch")
+    public CompletableFuture<ResponseEntity<List<BatchItemResult<DecorationTip>>>> deleteTips(@RequestBody List<String> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(null));
+        }
+        return service.deleteTips(ids).thenApply(ResponseEntity::ok);
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<DecorationTip> updateTip(@PathVariable String id, @RequestBody DecorationTip tip) throws ExecutionException, InterruptedException {
-        DecorationTip updatedTip = service.updateTip(id, tip);
-        return ResponseEntity.ok(updatedTip);
+    public CompletableFuture<ResponseEntity<DecorationTip>> updateTip(@PathVariable String id, @RequestBody DecorationTip tip) {
+        return service.updateTip(id, tip)
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> {
+                    if (VersionConflictException.isCause(e)) {
+                        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+                    }
+                    throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+                });
+    }
+
+    /**
+     * Updates only the fields sent; {@code addMedia} and {@code removeMedia}
+     * edit the media list. With {@code version}, the update fails with 409 if
+     * the tip has changed since.
+     */
+    @PatchMapping("/{id}")
+    public CompletableFuture<ResponseEntity<DecorationTip>> patchTip(@PathVariable String id, @RequestBody TipPatch patch) {
+        return service.patchTip(id, patch)
+                .<ResponseEntity<DecorationTip>>thenApply(tip -> tip != null ? ResponseEntity.ok(tip) : ResponseEntity.notFound().build())
+                .exceptionally(e -> {
+                    if (VersionConflictException.isCause(e)) {
+                        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+                    }
+                    throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+                });
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<DecorationTip> getTipById(@PathVariable String id) throws ExecutionException, InterruptedException {
-        DecorationTip tip = service.getTipById(id);
-        if (tip == null) {
-            return ResponseEntity.notFound().build();
-        }
-        return ResponseEntity.ok(tip);
+    public CompletableFuture<ResponseEntity<DecorationTip>> getTipById(
+            @PathVariable String id,
+            @RequestParam(value = "variant", required = false) String variant,
+            WebRequest request) {
+        return conditionalResponses.respond(request, ContentVersions.TIPS, () -> service.getTipById(id), tip -> {
+            if (tip == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(withVariant(tip, variant));
+        });
     }
 
     @GetMapping
-    public ResponseEntity<List<DecorationTip>> getAllTips() throws ExecutionException, InterruptedException {
-        List<DecorationTip> tips = service.getAllTips();
-        return ResponseEntity.ok(tips);
+    public CompletableFuture<ResponseEntity<List<DecorationTip>>> getAllTips(
+            @RequestParam(value = "variant", required = false) String variant,
+            WebRequest request) {
+        return conditionalResponses.ok(request, ContentVersions.TIPS, () -> service.getAllTips()
+                .thenApply(tips -> withVariant(tips, variant)));
+    }
+
+    @GetMapping(params = "size")
+    public CompletableFuture<ResponseEntity<TipPage>> getTipsPage(
+            @RequestParam("size") int size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            WebRequest request) {
+        return tipsPage(null, cursor, size, request);
+    }
+
+    @GetMapping(value = "/category/{category}", params = "size")
+    public CompletableFuture<ResponseEntity<TipPage>> getTipsPageByCategory(
+            @PathVariable String category,
+            @RequestParam("size") int size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            WebRequest request) {
+        return tipsPage(category, cursor, size, request);
     }
 
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<DecorationTip>> getTipsByCategory(@PathVariable String category) throws ExecutionException, InterruptedException {
-        List<DecorationTip> tips = service.getTipsByCategory(category);
-        return ResponseEntity.ok(tips);
+    public CompletableFuture<ResponseEntity<List<DecorationTip>>> getTipsByCategory(
+            @PathVariable String category,
+            @RequestParam(value = "variant", required = false) String variant,
+            WebRequest request) {
+        return conditionalResponses.ok(request, ContentVersions.TIPS, () -> service.getTipsByCategory(category)
+                .thenApply(tips -> withVariant(tips, variant)));
+    }
+
+    /**
+     * The full tip list streamed as NDJSON, for clients sending
+     * {@code Accept: application/x-ndjson}.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllTips(
+            @RequestParam(value = "variant", required = false) String variant) {
+        return streamTips(null, variant);
+    }
+
+    @GetMapping(value = "/category/{category}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTipsByCategory(
+            @PathVariable String category,
+            @RequestParam(value = "variant", required = false) String variant) {
+        return streamTips(category, variant);
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamTips(String category, String variant) {
+        return ndjsonResponses.stream((afterId, size) -> service.getTipsChunk(category, afterId, size)
+                        .thenApply(tips -> new NdjsonResponses.Chunk<>(tips,
+                                tips.size() < size ? null : tips.get(tips.size() - 1).getId())),
+                tip -> withVariant(tip, variant));
+    }
+
+    private CompletableFuture<ResponseEntity<TipPage>> tipsPage(String category, String cursor, int size,
+                                                               WebRequest request) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(null));
+        }
+        return conditionalResponses.ok(request, ContentVersions.TIPS, () -> service.getTipsPage(category, cursor, size));
+    }
+
+    /**
+     * Applies {@code ?variant=thumbnail|card|full}: media entries point at the
+     * requested derivative and the variant table is left out of the response.
+     */
+    private static DecorationTip withVariant(DecorationTip tip, String variant) {
+        if (variant == null) {
+            return tip;
+        }
+        DecorationTip selected = tip.copy();
+        selected.setMedia(MediaVariants.selectAll(tip.getMedia(), tip.getMediaVariants(), variant));
+        selected.setMediaVariants(null);
+        return selected;
+    }
+
+    private static List<DecorationTip> withVariant(List<DecorationTip> tips, String variant) {
+        if (variant == null) {
+            return tips;
+        }
+        return tips.stream().map(tip -> withVariant(tip, variant)).collect(Collectors.toList());
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteTip(@PathVariable String id) throws ExecutionException, InterruptedException {
-        service.deleteTip(id);
-        return ResponseEntity.noContent().build();
+    public CompletableFuture<ResponseEntity<Void>> deleteTip(@PathVariable String id) {
+        return service.deleteTip(id).thenApply(v -> ResponseEntity.noContent().build());
     }
-}
\ No newline at end of file
+}
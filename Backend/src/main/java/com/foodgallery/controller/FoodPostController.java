@@ -1,18 +1,33 @@
 package com.foodgallery.controller;
 
+import com.foodgallery.model.BatchItemResult;
 import com.foodgallery.model.FoodPost;
+import com.foodgallery.model.MediaVariants;
+import com.foodgallery.model.PostPage;
+import com.foodgallery.model.PostPatch;
+import com.foodgallery.repository.VersionConflictException;
+import com.foodgallery.service.ContentVersions;
+import com.foodgallery.service.FileStorageService;
 import com.foodgallery.service.FoodPostService;
+import com.foodgallery.service.PostNotFoundException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.ArrayList;
-import java.util.Base64;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/posts")
@@ -20,12 +35,26 @@ import java.util.List;
 public class FoodPostController {
 
     private static final Logger logger = LoggerFactory.getLogger(FoodPostController.class);
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_BATCH_SIZE = 10_000;
 
     @Autowired
     private FoodPostService foodPostService;
 
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private ConditionalResponses conditionalResponses;
+
+    @Autowired
+    private NdjsonResponses ndjsonResponses;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @PostMapping(consumes = {"multipart/form-data"})
-    public ResponseEntity<FoodPost> createPost(
+    public CompletableFuture<ResponseEntity<FoodPost>> createPost(
             @RequestParam("title") String title,
             @RequestParam("description") String description,
             @RequestParam(value = "media", required = false) MultipartFile[] media) {
@@ -34,114 +63,258 @@ public class FoodPostController {
 
         if (title == null || title.trim().isEmpty()) {
             logger.error("Title is required");
-            return ResponseEntity.badRequest().body(null);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(null));
         }
         if (description == null || description.trim().isEmpty()) {
             logger.error("Description is required");
-            return ResponseEntity.badRequest().body(null);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(null));
         }
 
         FoodPost foodPost = new FoodPost();
         foodPost.setTitle(title);
         foodPost.setDescription(description);
 
-        List<String> mediaBase64Strings = Collections.emptyList();
-        if (media != null && media.length > 0) {
-            mediaBase64Strings = new ArrayList<>();
-            for (MultipartFile file : media) {
-                try {
-                    String contentType = file.getContentType();
-                    String base64String = Base64.getEncoder().encodeToString(file.getBytes());
-                    String base64DataUri = String.format("data:%s;base64,%s", contentType, base64String);
-                    mediaBase64Strings.add(base64DataUri);
-                } catch (Exception e) {
-                    logger.error("Failed to process media file: {}", file.getOriginalFilename(), e);
-                    return ResponseEntity.badRequest().body(null);
-                }
-            }
-        } else {
+        if (media == null || media.length == 0) {
             logger.warn("No media files provided; proceeding without media");
         }
-        foodPost.setMediaUrls(mediaBase64Strings);
 
-        FoodPost savedPost = foodPostService.createPost(foodPost);
-        logger.info("Post created successfully: id={}", savedPost.getId());
-        return ResponseEntity.ok(savedPost);
+        return storeMedia(media, Collections.emptyList())
+                .thenCompose(mediaUrls -> {
+                    foodPost.setMediaUrls(mediaUrls);
+                    return foodPostService.createPost(foodPost)
+                            .whenComplete((saved, e) -> {
+                                if (e != null) {
+                                    releaseAsync(mediaUrls);
+                                }
+                            });
+                })
+                .thenApply(savedPost -> {
+                    logger.info("Post created successfully: id={}", savedPost.getId());
+                    return ResponseEntity.ok(savedPost);
+                })
+                .exceptionally(e -> {
+                    logger.error("Failed to create post due to: {}", e.getMessage(), e);
+                    return ResponseEntity.badRequest().body(null);
+                });
     }
 
     @PutMapping(value = "/{id}", consumes = {"multipart/form-data"})
-    public ResponseEntity<FoodPost> updatePost(
+    public CompletableFuture<ResponseEntity<FoodPost>> updatePost(
             @PathVariable String id,
             @RequestParam("title") String title,
             @RequestParam("description") String description,
+            @RequestParam(value = "version", required = false) Long version,
             @RequestParam(value = "media", required = false) MultipartFile[] media) {
-        logger.info("Received PUT request for post id={}: title={}, description={}, media count={}",
-                id, title, description, media != null ? media.length : 0);
+        logger.info("Received PUT request for post id={}: title={}, description={}, version={}, media count={}",
+                id, title, description, version, media != null ? media.length : 0);
 
         if (title == null || title.trim().isEmpty()) {
             logger.error("Title is required");
-            return ResponseEntity.badRequest().body(null);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(null));
         }
         if (description == null || description.trim().isEmpty()) {
             logger.error("Description is required");
-            return ResponseEntity.badRequest().body(null);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(null));
         }
 
-        FoodPost existingPost = foodPostService.getPostById(id);
-        if (existingPost == null) {
-            logger.error("Post with id={} not found", id);
-            return ResponseEntity.notFound().build();
+        // Without new files the post keeps its media
+        return storeMedia(media, null).thenCompose(mediaUrls ->
+                foodPostService.replacePost(id, title, description, mediaUrls, version)
+                        .whenComplete((updated, e) -> {
+                            if (e != null) {
+                                releaseAsync(mediaUrls);
+                            }
+                        })
+        ).thenApply(updatedPost -> {
+            logger.info("Post updated successfully: id={}", updatedPost.getId());
+            return ResponseEntity.ok(updatedPost);
+        }).exceptionally(e -> {
+            if (PostNotFoundException.isCause(e)) {
+                return ResponseEntity.notFound().build();
+            }
+            if (VersionConflictException.isCause(e)) {
+                logger.info("Rejected stale PUT for post id={}: {}", id, e.getMessage());
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+            logger.error("Failed to update post id={} due to: {}", id, e.getMessage(), e);
+            return ResponseEntity.badRequest().body(null);
+        });
+    }
+
+    /**
+     * Updates only the fields sent. {@code media} files are appended to the
+     * post and {@code removeMedia} references are dropped from it; with
+     * {@code version}, the update fails with 409 if the post has changed since.
+     */
+    @PatchMapping(value = "/{id}", consumes = {"multipart/form-data"})
+    public CompletableFuture<ResponseEntity<FoodPost>> patchPost(
+            @PathVariable String id,
+            @RequestParam(value = "title", required = false) String title,
+            @RequestParam(value = "description", required = false) String description,
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "removeMedia", required = false) List<String> removeMedia,
+            @RequestParam(value = "version", required = false) Long version,
+            @RequestParam(value = "media", required = false) MultipartFile[] media) {
+        logger.info("Received PATCH request for post id={}: version={}, media added={}, media removed={}",
+                id, version, media != null ? media.length : 0, removeMedia != null ? removeMedia.size() : 0);
+
+        if (title != null && title.trim().isEmpty() || description != null && description.trim().isEmpty()) {
+            logger.error("Title and description cannot be blank");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(null));
         }
 
-        existingPost.setTitle(title);
-        existingPost.setDescription(description);
-
-        List<String> mediaBase64Strings = existingPost.getMediaUrls();
-        if (media != null && media.length > 0) {
-            mediaBase64Strings = new ArrayList<>();
-            for (MultipartFile file : media) {
-                try {
-                    String contentType = file.getContentType();
-                    String base64String = Base64.getEncoder().encodeToString(file.getBytes());
-                    String base64DataUri = String.format("data:%s;base64,%s", contentType, base64String);
-                    mediaBase64Strings.add(base64DataUri);
-                } catch (Exception e) {
-                    logger.error("Failed to process media file: {}", file.getOriginalFilename(), e);
-                    return ResponseEntity.badRequest().body(null);
-                }
+        return storeMedia(media, Collections.emptyList()).thenCompose(added ->
+                foodPostService.patchPost(id, new PostPatch(title, description, category, added, removeMedia, version))
+                        .whenComplete((patched, e) -> {
+                            if (e != null) {
+                                releaseAsync(added);
+                            }
+                        })
+        ).thenApply(patched -> {
+            logger.info("Post patched successfully: id={}, version={}", id, patched.getVersion());
+            return ResponseEntity.ok(patched);
+        }).exceptionally(e -> {
+            if (PostNotFoundException.isCause(e)) {
+                return ResponseEntity.notFound().build();
             }
+            if (VersionConflictException.isCause(e)) {
+                logger.info("Rejected stale PATCH for post id={}: {}", id, e.getMessage());
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+            logger.error("Failed to patch post id={} due to: {}", id, e.getMessage(), e);
+            return ResponseEntity.badRequest().body(null);
+        });
+    }
+
+    @PostMapping(value = "/batch", consumes = {"application/json"})
+    public CompletableFuture<ResponseEntity<List<BatchItemResult<FoodPost>>>> createPosts(@RequestBody List<FoodPost> posts) {
+        logger.info("Received batch POST request: {} posts", posts.size());
+        if (posts.size() > MAX_BATCH_SIZE) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(null));
         }
-        existingPost.setMediaUrls(mediaBase64Strings);
-        existingPost.setId(id); // Ensure the ID is set for the update
+        return foodPostService.createPosts(posts).thenApply(ResponseEntity::ok);
+    }
 
-        try {
-            FoodPost updatedPost = foodPostService.createPost(existingPost);
-            logger.info("Post updated successfully: id={}", updatedPost.getId());
-            return ResponseEntity.ok(updatedPost);
-        } catch (Exception e) {
-            logger.error("Failed to update post id={} due to: {}", id, e.getMessage(), e);
-            return ResponseEntity.badRequest().body(null);
+    @GetMapping("/batch")
+    public CompletableFuture<ResponseEntity<List<BatchItemResult<FoodPost>>>> getPosts(@RequestParam("ids") List<String> ids,
+                                                                              WebRequest request) {
+        logger.info("Fetching {} posts by id", ids.size());
+        if (ids.size() > MAX_BATCH_SIZE) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(null));
         }
+        return conditionalResponses.ok(request, ContentVersions.POSTS, () -> foodPostService.getPosts(ids));
+    }
+
+    @DeleteMapping("/batch")
+    public CompletableFuture<ResponseEntity<List<BatchItemResult<FoodPost>>>> deletePosts(@RequestBody List<String> ids) {
+        logger.info("Deleting {} posts", ids.size());
+        if (ids.size() > MAX_BATCH_SIZE) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(null));
+        }
+        return foodPostService.deletePosts(ids).thenApply(ResponseEntity::ok);
     }
 
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<FoodPost>> getPostsByCategory(@PathVariable String category) {
+    public CompletableFuture<ResponseEntity<List<FoodPost>>> getPostsByCategory(
+            @PathVariable String category,
+            @RequestParam(value = "variant", required = false) String variant,
+            WebRequest request) {
         logger.info("Fetching posts for category: {}", category);
-        List<FoodPost> posts = foodPostService.getPostsByCategory(category);
-        return ResponseEntity.ok(posts);
+        return conditionalResponses.ok(request, ContentVersions.POSTS, () -> foodPostService.getPostsByCategory(category)
+                .thenApply(posts -> withVariant(posts, variant)));
+    }
+
+    /**
+     * The same listing streamed as NDJSON, for clients sending
+     * {@code Accept: application/x-ndjson}; read page by page from the store.
+     */
+    @GetMapping(value = "/category/{category}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPostsByCategory(
+            @PathVariable String category,
+            @RequestParam(value = "variant", required = false) String variant) {
+        logger.info("Streaming posts for category: {}", category);
+        return ndjsonResponses.stream((cursor, size) -> foodPostService.getPostsPage(category, cursor, size)
+                        .thenApply(page -> new NdjsonResponses.Chunk<>(page.getItems(), page.getNextCursor())),
+                post -> withVariant(post, variant));
+    }
+
+    @GetMapping(value = "/category/{category}", params = "size")
+    public CompletableFuture<ResponseEntity<PostPage>> getPostsPage(
+            @PathVariable String category,
+            @RequestParam("size") int size,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "variant", required = false) String variant,
+            WebRequest request) {
+        logger.info("Fetching posts page for category: {}, size={}, cursor={}", category, size, cursor);
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(null));
+        }
+        try {
+            return conditionalResponses.ok(request, ContentVersions.POSTS, () -> foodPostService.getPostsPage(category, cursor, size)
+                    .thenApply(page -> new PostPage(withVariant(page.getItems(), variant), page.getNextCursor())));
+        } catch (IllegalArgumentException e) {
+            logger.error("Rejected posts page request: {}", e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(null));
+        }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<FoodPost> getPostById(@PathVariable String id) {
+    public CompletableFuture<ResponseEntity<FoodPost>> getPostById(
+            @PathVariable String id,
+            @RequestParam(value = "variant", required = false) String variant,
+            WebRequest request) {
         logger.info("Fetching post with id: {}", id);
-        FoodPost post = foodPostService.getPostById(id);
-        return ResponseEntity.ok(post);
+        return conditionalResponses.ok(request, ContentVersions.POSTS, () -> foodPostService.getPostById(id)
+                .thenApply(post -> withVariant(post, variant)));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deletePost(@PathVariable String id) {
+    public CompletableFuture<ResponseEntity<Void>> deletePost(@PathVariable String id) {
         logger.info("Deleting post with id: {}", id);
-        foodPostService.deletePost(id);
-        return ResponseEntity.noContent().build();
+        return foodPostService.deletePost(id).thenApply(v -> ResponseEntity.noContent().build());
+    }
+
+    /**
+     * Stores uploaded files in parallel off the request thread; resolves to
+     * {@code fallback} when no files were sent.
+     */
+    private CompletableFuture<List<String>> storeMedia(MultipartFile[] media, List<String> fallback) {
+        if (media == null || media.length == 0) {
+            return CompletableFuture.completedFuture(fallback);
+        }
+        DistributionSummary uploadSize = DistributionSummary.builder("media.upload.size")
+                .description("Size of files uploaded with posts")
+                .baseUnit("bytes")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        for (MultipartFile file : media) {
+            uploadSize.record(file.getSize());
+        }
+        return fileStorageService.storeFilesAsync(Arrays.asList(media));
+    }
+
+    /**
+     * Applies {@code ?variant=thumbnail|card|full}: mediaUrls point at the
+     * requested derivative and the variant table is left out of the response.
+     */
+    private static FoodPost withVariant(FoodPost post, String variant) {
+        if (variant == null) {
+            return post;
+        }
+        FoodPost selected = post.copy();
+        selected.setMediaUrls(MediaVariants.selectAll(post.getMediaUrls(), post.getMediaVariants(), variant));
+        selected.setMediaVariants(null);
+        return selected;
+    }
+
+    private static List<FoodPost> withVariant(List<FoodPost> posts, String variant) {
+        if (variant == null) {
+            return posts;
+        }
+        return posts.stream().map(post -> withVariant(post, variant)).collect(Collectors.toList());
+    }
+
+    private void releaseAsync(List<String> mediaUrls) {
+        fileStorageService.deleteFilesAsync(mediaUrls);
     }
-}
\ No newline at end of file
+}
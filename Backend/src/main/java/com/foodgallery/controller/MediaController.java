@@ -0,0 +1,171 @@
+package com.foodgallery.controller;
+
+import com.foodgallery.model.StoredMedia;
+import com.foodgallery.service.MediaStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/media")
+@CrossOrigin(origins = "http://localhost:3000")
+public class MediaController {
+
+    // Media ids are never reused for different bytes, so responses can be cached for good
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+
+    // Request attributes of Tomcat's sendfile support (see its DefaultServlet)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private MediaStore mediaStore;
+
+    /**
+     * Serves stored media with single-range support for video seeking. Files in
+     * a local store are handed to the connector's sendfile, or copied with
+     * {@link FileChannel#transferTo}, so the bytes never pass through the heap.
+     */
+    @GetMapping("/{id}")
+    public void getMedia(@PathVariable String id, ServletWebRequest webRequest) throws IOException {
+        HttpServletRequest request = webRequest.getRequest();
+        HttpServletResponse response = webRequest.getResponse();
+
+        Optional<StoredMedia> found = mediaStore.describe(id);
+        if (found.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        StoredMedia media = found.get();
+        String etag = etag(media);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE.getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Sets ETag and Last-Modified, and answers 304 when the client copy is current
+        if (webRequest.checkNotModified(etag, media.getLastModified())) {
+            return;
+        }
+
+        long length = media.getSize();
+        long start = 0;
+        long end = length - 1;
+        boolean partial = false;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && ifRangeMatches(request, etag, media.getLastModified())) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                // A malformed Range header is ignored and the full content is sent
+                ranges = List.of();
+            }
+            // Multiple ranges are rare for media; those clients get the full content
+            if (ranges.size() == 1) {
+                try {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                } catch (IllegalArgumentException e) {
+                    start = length;
+                }
+                // HttpRange clamps the end to the content but not the start
+                if (start >= length || start > end) {
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    return;
+                }
+                partial = true;
+            }
+        }
+
+        long count = Math.max(0, end - start + 1);
+        String contentType = media.getContentType();
+        response.setContentType(contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setContentLengthLong(count);
+        if (partial) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        Optional<Path> file = mediaStore.localFile(id);
+        if (file.isPresent()) {
+            sendFile(request, response, file.get(), start, count);
+            return;
+        }
+        try (InputStream in = mediaStore.open(id, start)) {
+            StreamUtils.copyRange(in, response.getOutputStream(), 0, count - 1);
+        }
+    }
+
+    private static void sendFile(HttpServletRequest request, HttpServletResponse response,
+                                 Path file, long start, long count) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0) {
+                    throw new IOException("Media file ended early: " + file.getFileName());
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * Content hash when the store recorded one, so identical bytes share an ETag.
+     */
+    private static String etag(StoredMedia media) {
+        String version = media.getSha256() != null ? media.getSha256() : media.getId();
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * A range only applies when If-Range is absent or still names this
+     * representation; otherwise the full content is sent.
+     */
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return lastModified > 0 && lastModified / 1000 == date / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
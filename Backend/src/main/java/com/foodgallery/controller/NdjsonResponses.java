@@ -0,0 +1,89 @@
+package com.foodgallery.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.UnaryOperator;
+
+/**
+ * Streams list endpoints as newline-delimited JSON (one item per line) for
+ * clients that ask for {@code application/x-ndjson}. Items are read from the
+ * store a chunk at a time and written as each chunk arrives, with the next
+ * chunk already being fetched, so at most two chunks are held in memory and
+ * the first line goes out after the first chunk rather than the whole query.
+ * <p>
+ * An error after the first chunk cannot change the status any more; the
+ * response is then cut off, which clients see as a truncated stream.
+ */
+@Component
+public class NdjsonResponses {
+
+    /** One chunk of a listing and the position of the next one, null after the last. */
+    public record Chunk<T>(List<T> items, String next) {
+    }
+
+    @FunctionalInterface
+    public interface ChunkSource<T> {
+
+        /** Loads up to {@code size} items from {@code position}; null means the start. */
+        CompletableFuture<Chunk<T>> load(String position, int size);
+    }
+
+    private final ObjectWriter writer;
+    private final int chunkSize;
+    private final Duration chunkTimeout;
+
+    public NdjsonResponses(ObjectMapper objectMapper,
+                           @Value("${streaming.chunk-size:200}") int chunkSize,
+                           @Value("${streaming.chunk-timeout:10s}") Duration chunkTimeout) {
+        // Flushed once per chunk rather than after every item
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.chunkSize = chunkSize;
+        this.chunkTimeout = chunkTimeout;
+    }
+
+    public <T> ResponseEntity<StreamingResponseBody> stream(ChunkSource<T> source, UnaryOperator<T> mapper) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = writer.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                CompletableFuture<Chunk<T>> pending = source.load(null, chunkSize);
+                while (pending != null) {
+                    Chunk<T> chunk = await(pending);
+                    pending = chunk.next() != null ? source.load(chunk.next(), chunkSize) : null;
+                    for (T item : chunk.items()) {
+                        writer.writeValue(generator, mapper.apply(item));
+                        generator.writeRaw('\n');
+                    }
+                    generator.flush();
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    private <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get(chunkTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while streaming");
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IOException("Failed to load the next chunk: " + e.getMessage(), e);
+        }
+    }
+}
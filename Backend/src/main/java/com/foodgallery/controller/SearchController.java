@@ -0,0 +1,46 @@
+package com.foodgallery.controller;
+
+import com.foodgallery.model.SearchResult;
+import com.foodgallery.service.SearchIndex;
+import com.foodgallery.service.SearchIndexLoader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+@CrossOrigin(origins = "http://localhost:3000")
+public class SearchController {
+
+    private static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private SearchIndex searchIndex;
+
+    // Absent with search.index.load=false
+    @Autowired(required = false)
+    private SearchIndexLoader searchIndexLoader;
+
+    /**
+     * Keyword search over posts and decoration tips, answered from memory.
+     * {@code type} is {@code post} or {@code tip}; all filters are optional.
+     */
+    @GetMapping
+    public ResponseEntity<List<SearchResult>> search(
+            @RequestParam("q") String query,
+            @RequestParam(value = "type", required = false) String type,
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "difficulty", required = false) String difficulty,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        if (query.isBlank() || limit < 1 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest().body(null);
+        }
+        if (searchIndexLoader != null) {
+            // Deferred to the first search with firebase.startup=lazy
+            searchIndexLoader.load();
+        }
+        return ResponseEntity.ok(searchIndex.search(query, type, category, difficulty, limit));
+    }
+}
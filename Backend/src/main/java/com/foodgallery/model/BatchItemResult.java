@@ -0,0 +1,37 @@
+package com.foodgallery.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one item in a batch request, reported in request order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResult<T> {
+
+    public enum Status { OK, NOT_FOUND, INVALID, FAILED }
+
+    private String id;
+    private Status status;
+    private T item;
+    private String error;
+    // Kept for callers that tell failures worth retrying apart; not part of the response
+    @JsonIgnore
+    private Throwable cause;
+
+    public static <T> BatchItemResult<T> ok(String id, T item) {
+        return new BatchItemResult<>(id, Status.OK, item, null, null);
+    }
+
+    public static <T> BatchItemResult<T> failed(String id, Status status, String error) {
+        return new BatchItemResult<>(id, status, null, error, null);
+    }
+
+    public static <T> BatchItemResult<T> failed(String id, Status status, Throwable cause) {
+        return new BatchItemResult<>(id, status, null, cause.getMessage(), cause);
+    }
+}
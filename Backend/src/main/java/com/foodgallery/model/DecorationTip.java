@@ -13,6 +13,13 @@ public class DecorationTip {
     private String tip;
     private String mediaType;
     private String createdAt;
+    // Smallest derivative of the first media entry, denormalised so list queries can select it
+    // without the media list; null until derivatives exist
+    private String thumbnail;
+    // Resized derivatives of media, filled in asynchronously after save
+    private List<MediaVariants> mediaVariants;
+    // Bumped on every update; PATCH requests can require the version they were based on
+    private long version;
 
     // Default constructor
     public DecorationTip() {}
@@ -112,4 +119,36 @@ public class DecorationTip {
     public void setCreatedAt(String createdAt) {
         this.createdAt = createdAt;
     }
+
+    public String getThumbnail() {
+        return thumbnail;
+    }
+
+    public void setThumbnail(String thumbnail) {
+        this.thumbnail = thumbnail;
+    }
+
+    public List<MediaVariants> getMediaVariants() {
+        return mediaVariants;
+    }
+
+    public void setMediaVariants(List<MediaVariants> mediaVariants) {
+        this.mediaVariants = mediaVariants;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public DecorationTip copy() {
+        DecorationTip copy = new DecorationTip(id, title, description, category, difficulty, media, author, tip, mediaType, createdAt);
+        copy.setThumbnail(thumbnail);
+        copy.setMediaVariants(mediaVariants);
+        copy.setVersion(version);
+        return copy;
+    }
 }
\ No newline at end of file
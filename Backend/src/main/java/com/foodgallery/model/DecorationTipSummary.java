@@ -0,0 +1,20 @@
+package com.foodgallery.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * List projection of a {@link DecorationTip}: no tip text, description or
+ * media list, just enough to render a grid card.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DecorationTipSummary {
+    private String id;
+    private String title;
+    private String category;
+    private String difficulty;
+    private String thumbnail;
+}
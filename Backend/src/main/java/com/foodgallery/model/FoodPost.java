@@ -11,4 +11,20 @@ public class FoodPost {
     private String description;
     private List<String> mediaUrls;
     private String category = "POST";
+    // Resized derivatives of mediaUrls, filled in asynchronously after upload
+    private List<MediaVariants> mediaVariants;
+    // Bumped on every update; PATCH requests can require the version they were based on
+    private long version;
+
+    public FoodPost copy() {
+        FoodPost copy = new FoodPost();
+        copy.setId(id);
+        copy.setTitle(title);
+        copy.setDescription(description);
+        copy.setMediaUrls(mediaUrls);
+        copy.setCategory(category);
+        copy.setMediaVariants(mediaVariants);
+        copy.setVersion(version);
+        return copy;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,243 @@
+package com.foodgallery.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Resized derivatives of one media entry. {@code sourceHash} identifies the
+ * entry the derivatives were generated from by its SHA-256, so an inline data
+ * URI is not stored a second time; a size is null when no derivative exists
+ * (videos, or images already smaller than that size).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaVariants {
+
+    public static final String THUMBNAIL = "thumbnail";
+    public static final String CARD = "card";
+    public static final String FULL = "full";
+
+    private String sourceHash;
+    private String thumbnail;
+    private String card;
+    private String full;
+
+    /**
+     * Variants stored before they were keyed by hash named the entry itself;
+     * reading one keeps it matched to its entry, so its derivatives are reused
+     * and released as before.
+     */
+    public void setOriginal(String original) {
+        this.sourceHash = original != null ? hash(original) : null;
+    }
+
+    public static MediaVariants of(String entry) {
+        return new MediaVariants(hash(entry), null, null, null);
+    }
+
+    public boolean isFor(String entry) {
+        return sourceHash != null && sourceHash.equals(hash(entry));
+    }
+
+    /** Returns the requested size, falling back to the next larger one and finally {@code original}. */
+    public String select(String variant, String original) {
+        if (THUMBNAIL.equals(variant) && thumbnail != null) {
+            return thumbnail;
+        }
+        if ((THUMBNAIL.equals(variant) || CARD.equals(variant)) && card != null) {
+            return card;
+        }
+        if ((THUMBNAIL.equals(variant) || CARD.equals(variant) || FULL.equals(variant)) && full != null) {
+            return full;
+        }
+        return original;
+    }
+
+    public List<String> derivatives() {
+        List<String> references = new ArrayList<>(3);
+        for (String reference : new String[]{thumbnail, card, full}) {
+            if (reference != null) {
+                references.add(reference);
+            }
+        }
+        return references;
+    }
+
+    /**
+     * True when {@code variants} was generated for exactly {@code media}.
+     */
+    public static boolean isCurrent(List<String> media, List<MediaVariants> variants) {
+        if (media == null || media.isEmpty()) {
+            return true;
+        }
+        if (variants == null || variants.size() != media.size()) {
+            return false;
+        }
+        for (int i = 0; i < media.size(); i++) {
+            if (!variants.get(i).isFor(media.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Maps {@code media} to the requested variant, or returns it unchanged when
+     * no variant is requested or the derivatives are missing or out of date.
+     */
+    public static List<String> selectAll(List<String> media, List<MediaVariants> variants, String variant) {
+        if (variant == null || media == null || variants == null || !isCurrent(media, variants)) {
+            return media;
+        }
+        List<String> selected = new ArrayList<>(media.size());
+        for (int i = 0; i < media.size(); i++) {
+            selected.add(variants.get(i).select(variant, media.get(i)));
+        }
+        return selected;
+    }
+
+    /**
+     * What list summaries show for {@code media}: the smallest derivative of
+     * the first entry, or the entry itself when it is stored media too small to
+     * have derivatives. Null until derivatives exist, and never an inline data
+     * URI, which would put the full image into every summary.
+     */
+    public static String thumbnailOf(List<String> media, List<MediaVariants> variants) {
+        MediaVariants[] matched = match(media, variants, new boolean[size(variants)]);
+        if (matched.length == 0 || matched[0] == null) {
+            return null;
+        }
+        String thumbnail = matched[0].select(THUMBNAIL, media.get(0));
+        return isInline(thumbnail) ? null : thumbnail;
+    }
+
+    public static boolean isInline(String entry) {
+        return entry != null && entry.startsWith("data:");
+    }
+
+    public static List<String> derivativesOf(List<MediaVariants> variants) {
+        List<String> references = new ArrayList<>();
+        if (variants != null) {
+            for (MediaVariants entry : variants) {
+                references.addAll(entry.derivatives());
+            }
+        }
+        return references;
+    }
+
+    /**
+     * {@code media} with each entry of {@code remove} dropped once and
+     * {@code add} appended; either may be null.
+     */
+    public static List<String> edit(List<String> media, List<String> add, List<String> remove) {
+        List<String> edited = media != null ? new ArrayList<>(media) : new ArrayList<>();
+        if (remove != null) {
+            remove.forEach(edited::remove);
+        }
+        if (add != null) {
+            edited.addAll(add);
+        }
+        return edited;
+    }
+
+    /**
+     * The entries of {@code variants} that still belong to an entry of
+     * {@code media}, in media order.
+     */
+    public static List<MediaVariants> retained(List<MediaVariants> variants, List<String> media) {
+        List<MediaVariants> retained = new ArrayList<>();
+        for (MediaVariants entry : match(media, variants, new boolean[size(variants)])) {
+            if (entry != null) {
+                retained.add(entry);
+            }
+        }
+        return retained;
+    }
+
+    /**
+     * The entries of {@code variants} that no longer belong to any entry of
+     * {@code media}, whose derivatives can be released.
+     */
+    public static List<MediaVariants> dropped(List<MediaVariants> variants, List<String> media) {
+        boolean[] used = new boolean[size(variants)];
+        match(media, variants, used);
+        List<MediaVariants> dropped = new ArrayList<>();
+        for (int i = 0; i < used.length; i++) {
+            if (!used[i]) {
+                dropped.add(variants.get(i));
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * The entries of {@code media} that have no derivatives in {@code variants}.
+     */
+    public static List<String> missing(List<String> media, List<MediaVariants> variants) {
+        MediaVariants[] matched = match(media, variants, new boolean[size(variants)]);
+        List<String> missing = new ArrayList<>();
+        for (int i = 0; i < matched.length; i++) {
+            if (matched[i] == null) {
+                missing.add(media.get(i));
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Variants for every entry of {@code media}, taken from {@code variants}
+     * where they exist and otherwise from {@code generated}, which holds the
+     * derivatives of {@link #missing} in order.
+     */
+    public static List<MediaVariants> merge(List<String> media, List<MediaVariants> variants, List<MediaVariants> generated) {
+        Iterator<MediaVariants> next = generated.iterator();
+        List<MediaVariants> merged = new ArrayList<>();
+        for (MediaVariants entry : match(media, variants, new boolean[size(variants)])) {
+            merged.add(entry != null ? entry : next.next());
+        }
+        return merged;
+    }
+
+    /**
+     * Pairs each entry of {@code media} with an unused entry of {@code variants}
+     * generated from it, or null. Each variant is used at most once, so media
+     * listed twice keeps two sets of derivatives, as it was given on upload.
+     */
+    private static MediaVariants[] match(List<String> media, List<MediaVariants> variants, boolean[] used) {
+        MediaVariants[] matched = new MediaVariants[media != null ? media.size() : 0];
+        for (int i = 0; i < matched.length; i++) {
+            String hash = hash(media.get(i));
+            for (int j = 0; j < used.length; j++) {
+                if (!used[j] && hash.equals(variants.get(j).getSourceHash())) {
+                    used[j] = true;
+                    matched[i] = variants.get(j);
+                    break;
+                }
+            }
+        }
+        return matched;
+    }
+
+    private static int size(List<MediaVariants> variants) {
+        return variants != null ? variants.size() : 0;
+    }
+
+    private static String hash(String entry) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(entry.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
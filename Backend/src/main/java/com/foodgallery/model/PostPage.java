@@ -0,0 +1,16 @@
+package com.foodgallery.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostPage {
+    private List<FoodPost> items;
+    // Opaque continuation token; null on the last page
+    private String nextCursor;
+}
@@ -0,0 +1,72 @@
+package com.foodgallery.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Field-level update of a {@link FoodPost}: null fields are left unchanged,
+ * and media is edited entry by entry instead of being replaced.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostPatch {
+    private String title;
+    private String description;
+    private String category;
+    // Media references appended to the post
+    private List<String> addMedia;
+    // Media references removed from the post, once each
+    private List<String> removeMedia;
+    // Version the patch was based on; null applies it to whatever is current
+    private Long version;
+
+    /**
+     * A copy of {@code current} with this patch applied; derivatives are kept
+     * for the media that remains.
+     */
+    public FoodPost applyTo(FoodPost current) {
+        FoodPost updated = current.copy();
+        if (title != null) {
+            updated.setTitle(title);
+        }
+        if (description != null) {
+            updated.setDescription(description);
+        }
+        if (category != null) {
+            updated.setCategory(category);
+        }
+        if (addMedia != null && !addMedia.isEmpty() || removeMedia != null && !removeMedia.isEmpty()) {
+            List<String> media = MediaVariants.edit(current.getMediaUrls(), addMedia, removeMedia);
+            updated.setMediaUrls(media);
+            updated.setMediaVariants(MediaVariants.retained(current.getMediaVariants(), media));
+        }
+        return updated;
+    }
+
+    /**
+     * The fields that differ between {@code before} and {@code after}, by name,
+     * with their new values; this is all that needs to be written.
+     */
+    public static Map<String, Object> changes(FoodPost before, FoodPost after) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        putIfChanged(changes, "title", before.getTitle(), after.getTitle());
+        putIfChanged(changes, "description", before.getDescription(), after.getDescription());
+        putIfChanged(changes, "category", before.getCategory(), after.getCategory());
+        putIfChanged(changes, "mediaUrls", before.getMediaUrls(), after.getMediaUrls());
+        putIfChanged(changes, "mediaVariants", before.getMediaVariants(), after.getMediaVariants());
+        return changes;
+    }
+
+    private static void putIfChanged(Map<String, Object> changes, String field, Object before, Object after) {
+        if (!Objects.equals(before, after)) {
+            changes.put(field, after);
+        }
+    }
+}
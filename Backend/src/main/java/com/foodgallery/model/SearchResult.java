@@ -0,0 +1,25 @@
+package com.foodgallery.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A search hit: enough to render a result row and link to the full post or tip.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResult {
+    public static final String POST = "post";
+    public static final String TIP = "tip";
+
+    // POST or TIP
+    private String type;
+    private String id;
+    private String title;
+    private String category;
+    // Only set for tips
+    private String difficulty;
+    private double score;
+}
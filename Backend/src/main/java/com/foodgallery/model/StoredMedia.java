@@ -0,0 +1,19 @@
+package com.foodgallery.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredMedia {
+    private String id;
+    private String contentType;
+    private long size;
+    private String sha256;
+    // Epoch millis
+    private long lastModified;
+    // Posts, tips and derivatives currently sharing these bytes
+    private long references;
+}
@@ -0,0 +1,95 @@
+package com.foodgallery.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Field-level update of a {@link DecorationTip}: null fields are left
+ * unchanged, and media is edited entry by entry instead of being replaced.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TipPatch {
+    private String title;
+    private String description;
+    private String category;
+    private String difficulty;
+    private String author;
+    private String tip;
+    private String mediaType;
+    // Media entries appended to the tip
+    private List<String> addMedia;
+    // Media entries removed from the tip, once each
+    private List<String> removeMedia;
+    // Version the patch was based on; null applies it to whatever is current
+    private Long version;
+
+    /**
+     * A copy of {@code current} with this patch applied; derivatives are kept
+     * for the media that remains, and the thumbnail follows the first entry.
+     */
+    public DecorationTip applyTo(DecorationTip current) {
+        DecorationTip updated = current.copy();
+        if (title != null) {
+            updated.setTitle(title);
+        }
+        if (description != null) {
+            updated.setDescription(description);
+        }
+        if (category != null) {
+            updated.setCategory(category);
+        }
+        if (difficulty != null) {
+            updated.setDifficulty(difficulty);
+        }
+        if (author != null) {
+            updated.setAuthor(author);
+        }
+        if (tip != null) {
+            updated.setTip(tip);
+        }
+        if (mediaType != null) {
+            updated.setMediaType(mediaType);
+        }
+        if (addMedia != null && !addMedia.isEmpty() || removeMedia != null && !removeMedia.isEmpty()) {
+            List<String> media = MediaVariants.edit(current.getMedia(), addMedia, removeMedia);
+            List<MediaVariants> variants = MediaVariants.retained(current.getMediaVariants(), media);
+            updated.setMedia(media);
+            updated.setMediaVariants(variants);
+            updated.setThumbnail(MediaVariants.thumbnailOf(media, variants));
+        }
+        return updated;
+    }
+
+    /**
+     * The fields that differ between {@code before} and {@code after}, by name,
+     * with their new values; this is all that needs to be written.
+     */
+    public static Map<String, Object> changes(DecorationTip before, DecorationTip after) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        putIfChanged(changes, "title", before.getTitle(), after.getTitle());
+        putIfChanged(changes, "description", before.getDescription(), after.getDescription());
+        putIfChanged(changes, "category", before.getCategory(), after.getCategory());
+        putIfChanged(changes, "difficulty", before.getDifficulty(), after.getDifficulty());
+        putIfChanged(changes, "author", before.getAuthor(), after.getAuthor());
+        putIfChanged(changes, "tip", before.getTip(), after.getTip());
+        putIfChanged(changes, "mediaType", before.getMediaType(), after.getMediaType());
+        putIfChanged(changes, "media", before.getMedia(), after.getMedia());
+        putIfChanged(changes, "mediaVariants", before.getMediaVariants(), after.getMediaVariants());
+        putIfChanged(changes, "thumbnail", before.getThumbnail(), after.getThumbnail());
+        return changes;
+    }
+
+    private static void putIfChanged(Map<String, Object> changes, String field, Object before, Object after) {
+        if (!Objects.equals(before, after)) {
+            changes.put(field, after);
+        }
+    }
+}
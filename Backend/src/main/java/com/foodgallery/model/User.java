@@ -0,0 +1,21 @@
+package com.foodgallery.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A signed-in user, keyed by their Firebase Authentication uid. Created from
+ * the ID token claims the first time the user calls a protected endpoint.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class User {
+    private String uid;
+    private String email;
+    private String displayName;
+    private String photoUrl;
+    // Epoch millis
+    private long createdAt;
+}
@@ -0,0 +1,127 @@
+package com.foodgallery.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+/**
+ * Metrics for calls to the Realtime Database and Firestore, tagged with the
+ * store and an operation name:
+ * <ul>
+ *     <li>{@code datastore.calls}: latency by outcome ({@code success}, {@code error},
+ *     {@code timeout}), with p50/p90/p99 and a percentile histogram</li>
+ *     <li>{@code datastore.errors}: failed calls by kind ({@code error}, {@code timeout})</li>
+ *     <li>{@code datastore.payload}: approximate size of what was written or read</li>
+ *     <li>{@code datastore.inflight}: calls issued and not yet completed</li>
+ * </ul>
+ */
+@Component
+public class DataStoreMetrics {
+
+    public static final String REALTIME_DB = "realtime-db";
+    public static final String FIRESTORE = "firestore";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    public DataStoreMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Starts timing a call; call this before issuing the request so the
+     * in-flight gauge and the timer cover all of it.
+     */
+    public Call start(String store, String operation) {
+        AtomicInteger counter = inFlight.computeIfAbsent(store + ":" + operation, key -> {
+            AtomicInteger value = new AtomicInteger();
+            Gauge.builder("datastore.inflight", value, AtomicInteger::get)
+                    .description("Data store calls issued and not yet completed")
+                    .tags("store", store, "operation", operation)
+                    .register(meterRegistry);
+            return value;
+        });
+        counter.incrementAndGet();
+        return new Call(store, operation, counter, Timer.start(meterRegistry));
+    }
+
+    public final class Call {
+
+        private final String store;
+        private final String operation;
+        private final AtomicInteger inFlight;
+        private final Timer.Sample sample;
+
+        private Call(String store, String operation, AtomicInteger inFlight, Timer.Sample sample) {
+            this.store = store;
+            this.operation = operation;
+            this.inFlight = inFlight;
+            this.sample = sample;
+        }
+
+        /**
+         * Records the size of the data sent or received by this call.
+         */
+        public void payload(long size) {
+            DistributionSummary.builder("datastore.payload")
+                    .description("Approximate payload size of data store calls")
+                    .baseUnit("bytes")
+                    .tags("store", store, "operation", operation)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry)
+                    .record(size);
+        }
+
+        public <T> CompletableFuture<T> track(CompletableFuture<T> future) {
+            return track(future, null);
+        }
+
+        /**
+         * Stops the timer when {@code future} completes; {@code resultSize}, if
+         * given, measures a successful result as the payload.
+         */
+        public <T> CompletableFuture<T> track(CompletableFuture<T> future, ToLongFunction<T> resultSize) {
+            return future.whenComplete((result, error) -> {
+                inFlight.decrementAndGet();
+                String outcome = error == null ? "success" : isTimeout(error) ? "timeout" : "error";
+                sample.stop(Timer.builder("datastore.calls")
+                        .description("Latency of data store calls")
+                        .tags("store", store, "operation", operation, "outcome", outcome)
+                        .publishPercentiles(0.5, 0.9, 0.99)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(1))
+                        .maximumExpectedValue(Duration.ofSeconds(30))
+                        .register(meterRegistry));
+                if (error != null) {
+                    Counter.builder("datastore.errors")
+                            .description("Failed data store calls")
+                            .tags("store", store, "operation", operation, "kind", outcome)
+                            .register(meterRegistry)
+                            .increment();
+                } else if (resultSize != null && result != null) {
+                    payload(resultSize.applyAsLong(result));
+                }
+            });
+        }
+    }
+
+    private static boolean isTimeout(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,59 +1,320 @@
 package com.foodgallery.repository;
 
+import com.foodgallery.config.FirebaseClients;
+import com.foodgallery.model.BatchItemResult;
 import com.foodgallery.model.DecorationTip;
+import com.foodgallery.model.DecorationTipSummary;
+import com.foodgallery.model.MediaVariants;
+import com.foodgallery.model.TipPage;
+import com.google.cloud.firestore.BulkWriter;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
 import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
 import com.google.cloud.firestore.QueryDocumentSnapshot;
-import com.google.firebase.cloud.FirestoreClient;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 
 @Repository
-public class DecorationTipRepository {
+@Qualifier(WriteJournal.BACKING_STORE)
+@ConditionalOnProperty(name = "datastore.type", havingValue = "firebase", matchIfMissing = true)
+public class DecorationTipRepository implements TipStore {
 
-    private final Firestore firestore = FirestoreClient.getFirestore();
+    @Autowired
+    private FirebaseClients firebaseClients;
     private static final String COLLECTION_NAME = "decoration-tips";
 
-    public DecorationTip save(DecorationTip tip) throws ExecutionException, InterruptedException {
-        if (tip.getId() == null || tip.getId().isEmpty()) {
-            String id = firestore.collection(COLLECTION_NAME).document().getId();
-            tip.setId(id);
+    @Value("${firestore.timeout:10s}")
+    private Duration timeout;
+
+    @Autowired
+    private DataStoreMetrics metrics;
+
+    @Override
+    public CompletableFuture<DecorationTip> save(DecorationTip tip) {
+        prepareForWrite(tip);
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.FIRESTORE, "tips.save");
+        call.payload(PayloadSizes.of(tip));
+        return call.track(FirestoreFutures.toCompletable(firestore().collection(COLLECTION_NAME).document(tip.getId()).set(tip), timeout))
+                .thenApply(result -> tip);
+    }
+
+    @Override
+    public CompletableFuture<DecorationTip> findById(String id) {
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.FIRESTORE, "tips.byId");
+        return call.track(FirestoreFutures.toCompletable(firestore().collection(COLLECTION_NAME).document(id).get(), timeout)
+                        .thenApply(document -> document.toObject(DecorationTip.class)), PayloadSizes::of);
+    }
+
+    @Override
+    public CompletableFuture<List<DecorationTip>> findAll() {
+        // Full collection scan
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.FIRESTORE, "tips.all");
+        return call.track(FirestoreFutures.toCompletable(firestore().collection(COLLECTION_NAME).get(), timeout)
+                .thenApply(DecorationTipRepository::toTips), PayloadSizes::ofTips);
+    }
+
+    @Override
+    public CompletableFuture<List<DecorationTip>> findByCategory(String category) {
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.FIRESTORE, "tips.byCategory");
+        return call.track(FirestoreFutures.toCompletable(firestore().collection(COLLECTION_NAME)
+                        .whereEqualTo("category", category)
+                        .get(), timeout)
+                .thenApply(DecorationTipRepository::toTips), PayloadSizes::ofTips);
+    }
+
+    /**
+     * Writes all tips through a {@link BulkWriter}, which batches and parallelises
+     * the writes and reports an outcome per document.
+     */
+    @Override
+    public CompletableFuture<List<BatchItemResult<DecorationTip>>> saveAll(List<DecorationTip> tips) {
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.FIRESTORE, "tips.saveBatch");
+        BulkWriter writer = firestore().bulkWriter();
+        List<CompletableFuture<BatchItemResult<DecorationTip>>> writes = new ArrayList<>(tips.size());
+        for (DecorationTip tip : tips) {
+            if (tip == null) {
+                writes.add(CompletableFuture.completedFuture(
+                        BatchItemResult.failed(null, BatchItemResult.Status.INVALID, "Empty tip")));
+                continue;
+            }
+            prepareForWrite(tip);
+            CompletableFuture<?> write;
+            try {
+                write = FirestoreFutures.toCompletable(writer.set(firestore().collection(COLLECTION_NAME).document(tip.getId()), tip), timeout);
+            } catch (RuntimeException e) {
+                // Fields the client cannot encode are rejected before anything is sent
+                write = CompletableFuture.failedFuture(new PermanentWriteException(e.getMessage(), e));
+            }
+            writes.add(write.handle((result, e) -> e == null
+                    ? BatchItemResult.ok(tip.getId(), tip)
+                    : BatchItemResult.failed(tip.getId(), BatchItemResult.Status.FAILED, FirestoreFutures.classify(e))));
         }
-        firestore.collection(COLLECTION_NAME).document(tip.getId()).set(tip).get();
-        return tip;
+        call.payload(PayloadSizes.ofTips(tips.stream().filter(Objects::nonNull).collect(Collectors.toList())));
+        return call.track(flushAndCollect(writer, writes));
     }
 
-    public DecorationTip findById(String id) throws ExecutionException, InterruptedException {
-        return firestore.collection(COLLECTION_NAME)
-                .document(id)
-                .get()
-                .get()
-                .toObject(DecorationTip.class);
+    /**
+     * Reads all ids in a single {@code getAll} round trip.
+     */
+    @Override
+    public CompletableFuture<List<BatchItemResult<DecorationTip>>> findAllById(List<String> ids) {
+        DocumentReference[] references = ids.stream()
+                .map(id -> firestore().collection(COLLECTION_NAME).document(id))
+                .toArray(DocumentReference[]::new);
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.FIRESTORE, "tips.getBatch");
+        return call.track(FirestoreFutures.toCompletable(firestore().getAll(references), timeout))
+                .thenApply(documents -> {
+                    Map<String, DecorationTip> byId = new HashMap<>();
+                    for (DocumentSnapshot document : documents) {
+                        if (document.exists()) {
+                            byId.put(document.getId(), document.toObject(DecorationTip.class));
+                        }
+                    }
+                    List<BatchItemResult<DecorationTip>> results = new ArrayList<>(ids.size());
+                    for (String id : ids) {
+                        DecorationTip tip = byId.get(id);
+                        results.add(tip != null
+                                ? BatchItemResult.ok(id, tip)
+                                : BatchItemResult.failed(id, BatchItemResult.Status.NOT_FOUND, "Tip not found with id: " + id));
+                    }
+                    return results;
+                });
     }
 
-    public List<DecorationTip> findAll() throws ExecutionException, InterruptedException {
-        List<DecorationTip> tips = new ArrayList<>();
-        for (QueryDocumentSnapshot document : firestore.collection(COLLECTION_NAME).get().get().getDocuments()) {
-            tips.add(document.toObject(DecorationTip.class));
+    @Override
+    public CompletableFuture<List<BatchItemResult<DecorationTip>>> deleteAll(List<String> ids) {
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.FIRESTORE, "tips.deleteBatch");
+        BulkWriter writer = firestore().bulkWriter();
+        List<CompletableFuture<BatchItemResult<DecorationTip>>> deletes = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            deletes.add(FirestoreFutures.toCompletable(writer.delete(firestore().collection(COLLECTION_NAME).document(id)), timeout)
+                    .handle((result, e) -> e == null
+                            ? BatchItemResult.<DecorationTip>ok(id, null)
+                            : BatchItemResult.<DecorationTip>failed(id, BatchItemResult.Status.FAILED, FirestoreFutures.classify(e))));
         }
-        return tips;
+        return call.track(flushAndCollect(writer, deletes));
+    }
+
+    /**
+     * Cursor-paginated summaries, ordered by document id. Only the summary fields
+     * are read from Firestore; the cursor is the id of the last document returned,
+     * which {@code startAfter} accepts directly when ordering by document id, so
+     * no extra read is needed to rebuild a snapshot. {@code category} may be null.
+     */
+    @Override
+    public CompletableFuture<TipPage> findPage(String category, String cursor, int size) {
+        Query query = firestore().collection(COLLECTION_NAME);
+        if (category != null) {
+            query = query.whereEqualTo("category", category);
+        }
+        query = query.orderBy(FieldPath.documentId())
+                .select("title", "category", "difficulty", "thumbnail")
+                .limit(size + 1);
+        if (cursor != null && !cursor.isEmpty()) {
+            query = query.startAfter(cursor);
+        }
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.FIRESTORE, "tips.page");
+        return call.track(FirestoreFutures.toCompletable(query.get(), timeout))
+                .thenApply(snapshot -> {
+                    List<DecorationTipSummary> items = new ArrayList<>();
+                    for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+                        if (items.size() == size) {
+                            break;
+                        }
+                        // Tips saved before thumbnails were derivatives may still hold an inline image
+                        String thumbnail = document.getString("thumbnail");
+                        items.add(new DecorationTipSummary(document.getId(), document.getString("title"),
+                                document.getString("category"), document.getString("difficulty"),
+                                MediaVariants.isInline(thumbnail) ? null : thumbnail));
+                    }
+                    String nextCursor = snapshot.size() > size ? items.get(size - 1).getId() : null;
+                    return new TipPage(items, nextCursor);
+                });
+    }
+
+    @Override
+    public CompletableFuture<List<DecorationTip>> findChunk(String category, String afterId, int size) {
+        Query query = firestore().collection(COLLECTION_NAME);
+        if (category != null) {
+            query = query.whereEqualTo("category", category);
+        }
+        return chunk(query.orderBy(FieldPath.documentId()), afterId, size, "tips.chunk");
+    }
+
+    /**
+     * Projects the indexed fields, so media and its variants are not transferred.
+     */
+    @Override
+    public CompletableFuture<List<DecorationTip>> findSearchChunk(String afterId, int size) {
+        Query query = firestore().collection(COLLECTION_NAME)
+                .orderBy(FieldPath.documentId())
+                .select("title", "description", "tip", "category", "difficulty");
+        return chunk(query, afterId, size, "tips.searchChunk");
+    }
+
+    private CompletableFuture<List<DecorationTip>> chunk(Query query, String afterId, int size, String operation) {
+        query = query.limit(size);
+        if (afterId != null) {
+            query = query.startAfter(afterId);
+        }
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.FIRESTORE, operation);
+        return call.track(FirestoreFutures.toCompletable(query.get(), timeout)
+                .thenApply(snapshot -> {
+                    List<DecorationTip> tips = toTips(snapshot);
+                    // The next chunk starts after the last document id, whatever the stored id field says
+                    for (int i = 0; i < tips.size(); i++) {
+                        tips.get(i).setId(snapshot.getDocuments().get(i).getId());
+                    }
+                    return tips;
+                }), PayloadSizes::ofTips);
+    }
+
+    /**
+     * Checks the version with a transactional query that selects only the
+     * {@code version} field, then updates just the changed fields, so the rest
+     * of the document is neither read nor rewritten.
+     */
+    @Override
+    public CompletableFuture<Boolean> patch(String id, long expectedVersion, Map<String, Object> changes) {
+        DocumentReference reference = firestore().collection(COLLECTION_NAME).document(id);
+        Query versionOnly = firestore().collection(COLLECTION_NAME)
+                .whereEqualTo(FieldPath.documentId(), id)
+                .select("version");
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.FIRESTORE, "tips.patch");
+        return call.track(FirestoreFutures.toCompletable(firestore().runTransaction(transaction -> {
+            QuerySnapshot snapshot = transaction.get(versionOnly).get();
+            if (snapshot.isEmpty()) {
+                return Boolean.FALSE;
+            }
+            Long current = snapshot.getDocuments().get(0).getLong("version");
+            if ((current != null ? current : 0) != expectedVersion) {
+                throw new VersionConflictException(id, expectedVersion);
+            }
+            Map<String, Object> updates = new HashMap<>(changes);
+            updates.put("version", expectedVersion + 1);
+            transaction.update(reference, updates);
+            return Boolean.TRUE;
+        }), timeout));
+    }
+
+    /**
+     * Records derivatives (and the thumbnail derived from them) on a tip, but only
+     * if its media is still {@code media}; resolves to false otherwise.
+     */
+    @Override
+    public CompletableFuture<Boolean> setMediaVariants(String id, List<String> media, List<MediaVariants> variants) {
+        DocumentReference reference = firestore().collection(COLLECTION_NAME).document(id);
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.FIRESTORE, "tips.setMediaVariants");
+        return call.track(FirestoreFutures.toCompletable(firestore().runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(reference).get();
+            DecorationTip current = snapshot.exists() ? snapshot.toObject(DecorationTip.class) : null;
+            if (current == null || !Objects.equals(current.getMedia(), media)) {
+                return Boolean.FALSE;
+            }
+            Map<String, Object> updates = new HashMap<>();
+            updates.put("mediaVariants", variants);
+            updates.put("thumbnail", MediaVariants.thumbnailOf(media, variants));
+            transaction.update(reference, updates);
+            return Boolean.TRUE;
+        }), timeout));
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String id) {
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.FIRESTORE, "tips.delete");
+        return call.track(FirestoreFutures.toCompletable(firestore().collection(COLLECTION_NAME).document(id).delete(), timeout))
+                .thenApply(result -> null);
+    }
+
+    private void prepareForWrite(DecorationTip tip) {
+        if (tip.getId() == null || tip.getId().isEmpty()) {
+            String id = firestore().collection(COLLECTION_NAME).document().getId();
+            tip.setId(id);
+        }
+        tip.setThumbnail(MediaVariants.thumbnailOf(tip.getMedia(), tip.getMediaVariants()));
+    }
+
+    private static <T> CompletableFuture<List<T>> flushAndCollect(BulkWriter writer, List<CompletableFuture<T>> operations) {
+        // close() only blocks on pending writes, and there are none left once flush() has completed
+        writer.flush().addListener(() -> {
+            try {
+                writer.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // Each write reports its own failure through its future
+            }
+        }, MoreExecutors.directExecutor());
+        return CompletableFuture.allOf(operations.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> operations.stream().map(CompletableFuture::join).collect(Collectors.toList()));
     }
 
-    public List<DecorationTip> findByCategory(String category) throws ExecutionException, InterruptedException {
+    private static List<DecorationTip> toTips(QuerySnapshot snapshot) {
         List<DecorationTip> tips = new ArrayList<>();
-        for (QueryDocumentSnapshot document : firestore.collection(COLLECTION_NAME)
-                .whereEqualTo("category", category)
-                .get()
-                .get()
-                .getDocuments()) {
+        for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
             tips.add(document.toObject(DecorationTip.class));
         }
         return tips;
     }
 
-    public void delete(String id) throws ExecutionException, InterruptedException {
-        firestore.collection(COLLECTION_NAME).document(id).delete().get();
+    private Firestore firestore() {
+        return firebaseClients.firestore();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,65 @@
+package com.foodgallery.repository;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.ApiException;
+import com.google.cloud.firestore.FirestoreException;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.Status;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+final class FirestoreFutures {
+
+    // The request itself is at fault; permission and availability errors are fixed by waiting or by configuration
+    private static final Set<Status.Code> PERMANENT = EnumSet.of(
+            Status.Code.INVALID_ARGUMENT, Status.Code.OUT_OF_RANGE, Status.Code.ALREADY_EXISTS);
+
+    private FirestoreFutures() {
+    }
+
+    /**
+     * Wraps a write failure that no retry can fix, such as an oversized
+     * document, in a {@link PermanentWriteException}; anything else is returned as is.
+     */
+    static Throwable classify(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            Status.Code code = null;
+            if (t instanceof FirestoreException && ((FirestoreException) t).getStatus() != null) {
+                code = ((FirestoreException) t).getStatus().getCode();
+            } else if (t instanceof ApiException) {
+                // gax mirrors the gRPC status codes by name
+                code = Status.Code.valueOf(((ApiException) t).getStatusCode().getCode().name());
+            }
+            if (code != null && PERMANENT.contains(code)) {
+                return new PermanentWriteException(e.getMessage(), e);
+            }
+        }
+        return e;
+    }
+
+    /**
+     * Adapts a Firestore {@link ApiFuture} without blocking. The returned future
+     * completes on the gRPC callback thread, so dependent stages must stay cheap.
+     */
+    static <T> CompletableFuture<T> toCompletable(ApiFuture<T> apiFuture, Duration timeout) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        ApiFutures.addCallback(apiFuture, new ApiFutureCallback<T>() {
+            @Override
+            public void onFailure(Throwable t) {
+                future.completeExceptionally(t);
+            }
+
+            @Override
+            public void onSuccess(T result) {
+                future.complete(result);
+            }
+        }, MoreExecutors.directExecutor());
+        return future.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,46 @@
+package com.foodgallery.repository;
+
+import com.foodgallery.config.FirebaseClients;
+import com.foodgallery.model.User;
+import com.google.cloud.firestore.Firestore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+@Repository
+@ConditionalOnProperty(name = "datastore.type", havingValue = "firebase", matchIfMissing = true)
+public class FirestoreUserRepository implements UserRepository {
+
+    private static final String COLLECTION_NAME = "users";
+
+    @Autowired
+    private FirebaseClients firebaseClients;
+
+    @Value("${firestore.timeout:10s}")
+    private Duration timeout;
+
+    @Autowired
+    private DataStoreMetrics metrics;
+
+    @Override
+    public CompletableFuture<User> findById(String uid) {
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.FIRESTORE, "users.byId");
+        return call.track(FirestoreFutures.toCompletable(firestore().collection(COLLECTION_NAME).document(uid).get(), timeout)
+                .thenApply(document -> document.toObject(User.class)));
+    }
+
+    @Override
+    public CompletableFuture<User> save(User user) {
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.FIRESTORE, "users.save");
+        return call.track(FirestoreFutures.toCompletable(firestore().collection(COLLECTION_NAME).document(user.getUid()).set(user), timeout))
+                .thenApply(result -> user);
+    }
+
+    private Firestore firestore() {
+        return firebaseClients.firestore();
+    }
+}
@@ -0,0 +1,245 @@
+package com.foodgallery.repository;
+
+import com.foodgallery.model.BatchItemResult;
+import com.foodgallery.model.DecorationTip;
+import com.foodgallery.model.DecorationTipSummary;
+import com.foodgallery.model.MediaVariants;
+import com.foodgallery.model.TipPage;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Decoration tips kept in memory instead of Firestore, for running the backend
+ * offline and under load tests ({@code datastore.type=memory}). Ordering, page
+ * cursors and batch results match {@link DecorationTipRepository}, and every
+ * call goes through {@link SimulatedLatency}; a failed batch call reports every
+ * item as failed, as the bulk writer would.
+ */
+@Repository
+@Qualifier(WriteJournal.BACKING_STORE)
+@ConditionalOnProperty(name = "datastore.type", havingValue = "memory")
+public class InMemoryTipStore implements TipStore {
+
+    // Ordered by id, like Firestore's default ordering
+    private final NavigableMap<String, DecorationTip> tips = new ConcurrentSkipListMap<>();
+    private final SimulatedLatency latency;
+
+    public InMemoryTipStore(@Value("${fake.tips.latency:${fake.latency:0ms}}") Duration latency,
+                            @Value("${fake.tips.latency-jitter:${fake.latency-jitter:0ms}}") Duration jitter,
+                            @Value("${fake.tips.failure-rate:${fake.failure-rate:0}}") double failureRate) {
+        this.latency = new SimulatedLatency("tips", latency, jitter, failureRate);
+    }
+
+    @Override
+    public CompletableFuture<DecorationTip> save(DecorationTip tip) {
+        TipWrites.prepare(tip);
+        return latency.call("tips.save", () -> {
+            tips.put(tip.getId(), detach(tip));
+            return tip;
+        });
+    }
+
+    @Override
+    public CompletableFuture<DecorationTip> findById(String id) {
+        return latency.call("tips.byId", () -> {
+            DecorationTip tip = tips.get(id);
+            return tip != null ? detach(tip) : null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<DecorationTip>> findAll() {
+        return latency.call("tips.all", () -> detachAll(tips.values()));
+    }
+
+    @Override
+    public CompletableFuture<List<DecorationTip>> findByCategory(String category) {
+        return latency.call("tips.byCategory", () -> detachAll(tips.values().stream()
+                .filter(tip -> Objects.equals(tip.getCategory(), category))
+                .collect(Collectors.toList())));
+    }
+
+    @Override
+    public CompletableFuture<List<BatchItemResult<DecorationTip>>> saveAll(List<DecorationTip> batch) {
+        for (DecorationTip tip : batch) {
+            if (tip != null) {
+                TipWrites.prepare(tip);
+            }
+        }
+        return batchCall("tips.saveBatch", batch.stream().map(tip -> tip != null ? tip.getId() : null).collect(Collectors.toList()), () -> {
+            List<BatchItemResult<DecorationTip>> results = new ArrayList<>(batch.size());
+            for (DecorationTip tip : batch) {
+                if (tip == null) {
+                    results.add(BatchItemResult.failed(null, BatchItemResult.Status.INVALID, "Empty tip"));
+                    continue;
+                }
+                tips.put(tip.getId(), detach(tip));
+                results.add(BatchItemResult.ok(tip.getId(), tip));
+            }
+            return results;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<BatchItemResult<DecorationTip>>> findAllById(List<String> ids) {
+        return latency.call("tips.getBatch", () -> {
+            List<BatchItemResult<DecorationTip>> results = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                DecorationTip tip = tips.get(id);
+                results.add(tip != null
+                        ? BatchItemResult.ok(id, detach(tip))
+                        : BatchItemResult.failed(id, BatchItemResult.Status.NOT_FOUND, "Tip not found with id: " + id));
+            }
+            return results;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<BatchItemResult<DecorationTip>>> deleteAll(List<String> ids) {
+        return batchCall("tips.deleteBatch", ids, () -> {
+            List<BatchItemResult<DecorationTip>> results = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                tips.remove(id);
+                results.add(BatchItemResult.ok(id, null));
+            }
+            return results;
+        });
+    }
+
+    @Override
+    public CompletableFuture<TipPage> findPage(String category, String cursor, int size) {
+        return latency.call("tips.page", () -> {
+            Collection<DecorationTip> from = cursor == null || cursor.isEmpty() ? tips.values() : tips.tailMap(cursor, false).values();
+            List<DecorationTipSummary> items = new ArrayList<>();
+            boolean more = false;
+            for (DecorationTip tip : from) {
+                if (category != null && !category.equals(tip.getCategory())) {
+                    continue;
+                }
+                if (items.size() == size) {
+                    more = true;
+                    break;
+                }
+                items.add(new DecorationTipSummary(tip.getId(), tip.getTitle(), tip.getCategory(),
+                        tip.getDifficulty(), tip.getThumbnail()));
+            }
+            return new TipPage(items, more ? items.get(size - 1).getId() : null);
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<DecorationTip>> findChunk(String category, String afterId, int size) {
+        return latency.call("tips.chunk", () -> {
+            Collection<DecorationTip> from = afterId == null ? tips.values() : tips.tailMap(afterId, false).values();
+            return detachAll(from.stream()
+                    .filter(tip -> category == null || category.equals(tip.getCategory()))
+                    .limit(size)
+                    .collect(Collectors.toList()));
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<DecorationTip>> findSearchChunk(String afterId, int size) {
+        return findChunk(null, afterId, size);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> patch(String id, long expectedVersion, Map<String, Object> changes) {
+        return latency.call("tips.patch", () -> {
+            boolean[] found = new boolean[1];
+            tips.computeIfPresent(id, (key, current) -> {
+                found[0] = true;
+                if (current.getVersion() != expectedVersion) {
+                    throw new VersionConflictException(id, expectedVersion);
+                }
+                DecorationTip updated = detach(current);
+                changes.forEach((field, value) -> apply(updated, field, value));
+                updated.setVersion(expectedVersion + 1);
+                return updated;
+            });
+            return found[0];
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setMediaVariants(String id, List<String> media, List<MediaVariants> variants) {
+        return latency.call("tips.setMediaVariants", () -> {
+            DecorationTip[] applied = new DecorationTip[1];
+            tips.computeIfPresent(id, (key, current) -> {
+                if (!Objects.equals(current.getMedia(), media)) {
+                    return current;
+                }
+                DecorationTip updated = detach(current);
+                updated.setMediaVariants(variants != null ? new ArrayList<>(variants) : null);
+                updated.setThumbnail(MediaVariants.thumbnailOf(media, variants));
+                applied[0] = updated;
+                return updated;
+            });
+            return applied[0] != null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String id) {
+        return latency.call("tips.delete", () -> {
+            tips.remove(id);
+            return null;
+        });
+    }
+
+    private CompletableFuture<List<BatchItemResult<DecorationTip>>> batchCall(
+            String operation, List<String> ids, Supplier<List<BatchItemResult<DecorationTip>>> action) {
+        return latency.call(operation, action).exceptionally(e -> ids.stream()
+                .map(id -> BatchItemResult.<DecorationTip>failed(id, BatchItemResult.Status.FAILED, e))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Sets one field by name, as a Firestore update of that field would.
+     */
+    @SuppressWarnings("unchecked")
+    private static void apply(DecorationTip tip, String field, Object value) {
+        switch (field) {
+            case "title" -> tip.setTitle((String) value);
+            case "description" -> tip.setDescription((String) value);
+            case "category" -> tip.setCategory((String) value);
+            case "difficulty" -> tip.setDifficulty((String) value);
+            case "author" -> tip.setAuthor((String) value);
+            case "tip" -> tip.setTip((String) value);
+            case "mediaType" -> tip.setMediaType((String) value);
+            case "media" -> tip.setMedia(value != null ? new ArrayList<>((List<String>) value) : null);
+            case "mediaVariants" -> tip.setMediaVariants(value != null ? new ArrayList<>((List<MediaVariants>) value) : null);
+            case "thumbnail" -> tip.setThumbnail((String) value);
+            default -> throw new IllegalArgumentException("Unknown tip field: " + field);
+        }
+    }
+
+    private static List<DecorationTip> detachAll(Collection<DecorationTip> source) {
+        List<DecorationTip> result = new ArrayList<>(source.size());
+        for (DecorationTip tip : source) {
+            result.add(detach(tip));
+        }
+        return result;
+    }
+
+    private static DecorationTip detach(DecorationTip tip) {
+        DecorationTip copy = tip.copy();
+        copy.setMedia(tip.getMedia() != null ? new ArrayList<>(tip.getMedia()) : null);
+        copy.setMediaVariants(tip.getMediaVariants() != null ? new ArrayList<>(tip.getMediaVariants()) : null);
+        return copy;
+    }
+}
@@ -0,0 +1,48 @@
+package com.foodgallery.repository;
+
+import com.foodgallery.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Users kept in memory instead of Firestore ({@code datastore.type=memory}).
+ */
+@Repository
+@ConditionalOnProperty(name = "datastore.type", havingValue = "memory")
+public class InMemoryUserRepository implements UserRepository {
+
+    private final Map<String, User> users = new ConcurrentHashMap<>();
+    private final SimulatedLatency latency;
+
+    public InMemoryUserRepository(@Value("${fake.users.latency:${fake.latency:0ms}}") Duration latency,
+                                  @Value("${fake.users.latency-jitter:${fake.latency-jitter:0ms}}") Duration jitter,
+                                  @Value("${fake.users.failure-rate:${fake.failure-rate:0}}") double failureRate) {
+        this.latency = new SimulatedLatency("users", latency, jitter, failureRate);
+    }
+
+    @Override
+    public CompletableFuture<User> findById(String uid) {
+        return latency.call("users.byId", () -> {
+            User user = users.get(uid);
+            return user != null ? copy(user) : null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<User> save(User user) {
+        return latency.call("users.save", () -> {
+            users.put(user.getUid(), copy(user));
+            return user;
+        });
+    }
+
+    private static User copy(User user) {
+        return new User(user.getUid(), user.getEmail(), user.getDisplayName(), user.getPhotoUrl(), user.getCreatedAt());
+    }
+}
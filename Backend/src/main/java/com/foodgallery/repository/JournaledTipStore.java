@@ -0,0 +1,317 @@
+package com.foodgallery.repository;
+
+import com.foodgallery.model.BatchItemResult;
+import com.foodgallery.model.DecorationTip;
+import com.foodgallery.model.DecorationTipSummary;
+import com.foodgallery.model.MediaVariants;
+import com.foodgallery.model.TipPage;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind decoration tips ({@code journal.enabled=true}), the tip
+ * counterpart of {@link com.foodgallery.service.JournaledPostStore}: writes
+ * return once they are in the {@link WriteJournal}, and reads see them until
+ * the backing store has them too.
+ */
+@Repository
+@Primary
+@ConditionalOnProperty(name = "journal.enabled", havingValue = "true")
+public class JournaledTipStore implements TipStore {
+
+    private static final String STORE = "tips";
+
+    /** A journaled write not yet applied; {@code tip} is null for a delete. */
+    private record Pending(long sequence, DecorationTip tip) {
+    }
+
+    private final TipStore delegate;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    private WriteJournal journal;
+
+    public JournaledTipStore(@Qualifier(WriteJournal.BACKING_STORE) TipStore delegate) {
+        this.delegate = delegate;
+    }
+
+    @PostConstruct
+    public void register() {
+        journal.register(STORE, this::apply, this::track, entry -> untrack(List.of(entry)));
+    }
+
+    @Override
+    public CompletableFuture<DecorationTip> save(DecorationTip tip) {
+        TipWrites.prepare(tip);
+        return journal.append(STORE, WriteJournal.PUT, tip.getId(), tip).thenApply(entry -> tip);
+    }
+
+    @Override
+    public CompletableFuture<DecorationTip> findById(String id) {
+        Pending write = pending.get(id);
+        if (write == null) {
+            return delegate.findById(id);
+        }
+        return CompletableFuture.completedFuture(write.tip() != null ? write.tip().copy() : null);
+    }
+
+    @Override
+    public CompletableFuture<List<DecorationTip>> findAll() {
+        return delegate.findAll().thenApply(tips -> overlay(tips, tip -> true, null, null));
+    }
+
+    @Override
+    public CompletableFuture<List<DecorationTip>> findByCategory(String category) {
+        return delegate.findByCategory(category).thenApply(tips -> overlay(tips, inCategory(category), null, null));
+    }
+
+    @Override
+    public CompletableFuture<List<BatchItemResult<DecorationTip>>> saveAll(List<DecorationTip> tips) {
+        List<CompletableFuture<BatchItemResult<DecorationTip>>> results = new ArrayList<>(tips.size());
+        for (DecorationTip tip : tips) {
+            if (tip == null) {
+                results.add(CompletableFuture.completedFuture(
+                        BatchItemResult.failed(null, BatchItemResult.Status.INVALID, "Empty tip")));
+                continue;
+            }
+            TipWrites.prepare(tip);
+            results.add(outcome(tip.getId(), journal.append(STORE, WriteJournal.PUT, tip.getId(), tip).thenApply(entry -> tip)));
+        }
+        return all(results);
+    }
+
+    @Override
+    public CompletableFuture<List<BatchItemResult<DecorationTip>>> findAllById(List<String> ids) {
+        return delegate.findAllById(ids).thenApply(results -> {
+            if (pending.isEmpty()) {
+                return results;
+            }
+            List<BatchItemResult<DecorationTip>> merged = new ArrayList<>(results.size());
+            for (BatchItemResult<DecorationTip> result : results) {
+                Pending write = result.getId() != null ? pending.get(result.getId()) : null;
+                if (write == null) {
+                    merged.add(result);
+                } else if (write.tip() != null) {
+                    merged.add(BatchItemResult.ok(result.getId(), write.tip().copy()));
+                } else {
+                    merged.add(BatchItemResult.failed(result.getId(), BatchItemResult.Status.NOT_FOUND,
+                            "Tip not found with id: " + result.getId()));
+                }
+            }
+            return merged;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<BatchItemResult<DecorationTip>>> deleteAll(List<String> ids) {
+        return all(ids.stream()
+                .map(id -> outcome(id, delete(id).thenApply(v -> (DecorationTip) null)))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Journaled writes within the page's id range are applied to the page read
+     * from the backing store, so a page may come back shorter than {@code size}
+     * while deletes are pending.
+     */
+    @Override
+    public CompletableFuture<TipPage> findPage(String category, String cursor, int size) {
+        String afterId = cursor == null || cursor.isEmpty() ? null : cursor;
+        return delegate.findPage(category, cursor, size).thenApply(page -> {
+            if (pending.isEmpty()) {
+                return page;
+            }
+            List<DecorationTipSummary> items = page.getItems();
+            // The last page also takes new tips ordered after it
+            String upToId = page.getNextCursor() != null ? items.get(items.size() - 1).getId() : null;
+            NavigableMap<String, DecorationTipSummary> merged = new TreeMap<>();
+            items.forEach(item -> merged.put(item.getId(), item));
+            pending.forEach((id, write) -> {
+                if (!inRange(id, afterId, upToId)) {
+                    return;
+                }
+                if (write.tip() != null && (category == null || category.equals(write.tip().getCategory()))) {
+                    DecorationTip tip = write.tip();
+                    merged.put(id, new DecorationTipSummary(tip.getId(), tip.getTitle(), tip.getCategory(),
+                            tip.getDifficulty(), tip.getThumbnail()));
+                } else {
+                    merged.remove(id);
+                }
+            });
+            if (merged.size() <= size) {
+                return new TipPage(new ArrayList<>(merged.values()), page.getNextCursor());
+            }
+            List<DecorationTipSummary> trimmed = new ArrayList<>(new ArrayList<>(merged.values()).subList(0, size));
+            return new TipPage(trimmed, trimmed.get(size - 1).getId());
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<DecorationTip>> findChunk(String category, String afterId, int size) {
+        return fillChunk(category, afterId, size, new ArrayList<>(),
+                (after, wanted) -> delegate.findChunk(category, after, wanted));
+    }
+
+    @Override
+    public CompletableFuture<List<DecorationTip>> findSearchChunk(String afterId, int size) {
+        return fillChunk(null, afterId, size, new ArrayList<>(), delegate::findSearchChunk);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> patch(String id, long expectedVersion, Map<String, Object> changes) {
+        return applied(id).thenCompose(v -> delegate.patch(id, expectedVersion, changes));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setMediaVariants(String id, List<String> media, List<MediaVariants> variants) {
+        return applied(id).thenCompose(v -> delegate.setMediaVariants(id, media, variants));
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String id) {
+        return journal.append(STORE, WriteJournal.DELETE, id, null).thenApply(entry -> null);
+    }
+
+    /**
+     * Pending deletes can shorten a full chunk, which would read as the last
+     * one, so it is topped up from the chunks after it.
+     */
+    private CompletableFuture<List<DecorationTip>> fillChunk(String category, String afterId, int size,
+                                                             List<DecorationTip> collected, ChunkReader reader) {
+        int wanted = size - collected.size();
+        return reader.read(afterId, wanted).thenCompose(chunk -> {
+            boolean last = chunk.size() < wanted;
+            String upToId = last ? null : chunk.get(chunk.size() - 1).getId();
+            collected.addAll(overlay(chunk, inCategory(category), afterId, upToId));
+            if (last || collected.size() >= size) {
+                return CompletableFuture.completedFuture(
+                        collected.size() > size ? new ArrayList<>(collected.subList(0, size)) : collected);
+            }
+            return fillChunk(category, upToId, size, collected, reader);
+        });
+    }
+
+    private interface ChunkReader {
+        CompletableFuture<List<DecorationTip>> read(String afterId, int size);
+    }
+
+    private CompletableFuture<Void> applied(String id) {
+        Pending write = pending.get(id);
+        return write != null ? journal.awaitDrained(write.sequence()) : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Applies the journaled writes with ids in ({@code afterId}, {@code upToId}]
+     * to {@code tips}; either bound may be null for none.
+     */
+    private List<DecorationTip> overlay(List<DecorationTip> tips, Predicate<DecorationTip> filter,
+                                        String afterId, String upToId) {
+        if (pending.isEmpty()) {
+            return tips;
+        }
+        NavigableMap<String, DecorationTip> merged = new TreeMap<>();
+        tips.forEach(tip -> merged.put(tip.getId(), tip));
+        pending.forEach((id, write) -> {
+            if (!inRange(id, afterId, upToId)) {
+                return;
+            }
+            if (write.tip() != null && filter.test(write.tip())) {
+                merged.put(id, write.tip().copy());
+            } else {
+                merged.remove(id);
+            }
+        });
+        return new ArrayList<>(merged.values());
+    }
+
+    private static boolean inRange(String id, String afterId, String upToId) {
+        return (afterId == null || id.compareTo(afterId) > 0) && (upToId == null || id.compareTo(upToId) <= 0);
+    }
+
+    private static Predicate<DecorationTip> inCategory(String category) {
+        return tip -> category == null || Objects.equals(tip.getCategory(), category);
+    }
+
+    private static CompletableFuture<BatchItemResult<DecorationTip>> outcome(String id, CompletableFuture<DecorationTip> write) {
+        return write.handle((tip, e) -> e == null
+                ? BatchItemResult.ok(id, tip)
+                : BatchItemResult.failed(id, BatchItemResult.Status.FAILED, e));
+    }
+
+    private static CompletableFuture<List<BatchItemResult<DecorationTip>>> all(
+            List<CompletableFuture<BatchItemResult<DecorationTip>>> results) {
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> results.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+    }
+
+    private void track(WriteJournal.Entry entry) {
+        DecorationTip tip = WriteJournal.PUT.equals(entry.operation()) ? journal.read(entry, DecorationTip.class) : null;
+        pending.merge(entry.id(), new Pending(entry.sequence(), tip),
+                (current, next) -> next.sequence() > current.sequence() ? next : current);
+    }
+
+    private CompletableFuture<Void> apply(List<WriteJournal.Entry> entries) {
+        List<DecorationTip> puts = new ArrayList<>();
+        List<String> deletes = new ArrayList<>();
+        for (WriteJournal.Entry entry : entries) {
+            if (WriteJournal.PUT.equals(entry.operation())) {
+                puts.add(journal.read(entry, DecorationTip.class));
+            } else {
+                deletes.add(entry.id());
+            }
+        }
+        CompletableFuture<List<BatchItemResult<DecorationTip>>> none = CompletableFuture.completedFuture(List.of());
+        return (puts.isEmpty() ? none : delegate.saveAll(puts))
+                .thenCombine(deletes.isEmpty() ? none : delegate.deleteAll(deletes), (saved, deleted) -> {
+                    // The batch calls report failures per item; retry the whole batch, the writes are idempotent
+                    for (BatchItemResult<DecorationTip> result : saved) {
+                        failUnlessApplied(result, "write");
+                    }
+                    for (BatchItemResult<DecorationTip> result : deleted) {
+                        // Already gone is as good as deleted
+                        if (result.getStatus() != BatchItemResult.Status.NOT_FOUND) {
+                            failUnlessApplied(result, "delete");
+                        }
+                    }
+                    untrack(entries);
+                    return null;
+                });
+    }
+
+    /**
+     * Anything but OK fails the batch, with the store's failure as the cause so
+     * the journal can tell what will never be accepted; an INVALID tip never will.
+     */
+    private static void failUnlessApplied(BatchItemResult<DecorationTip> result, String operation) {
+        if (result.getStatus() == BatchItemResult.Status.OK) {
+            return;
+        }
+        String message = "Failed to " + operation + " tip " + result.getId() + ": " + result.getError();
+        if (result.getStatus() == BatchItemResult.Status.INVALID) {
+            throw new PermanentWriteException(message, result.getCause());
+        }
+        throw new RuntimeException(message, result.getCause());
+    }
+
+    private void untrack(List<WriteJournal.Entry> entries) {
+        // A newer write to the same tip stays until it is applied too
+        for (WriteJournal.Entry entry : entries) {
+            pending.computeIfPresent(entry.id(), (id, write) -> write.sequence() <= entry.sequence() ? null : write);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.foodgallery.repository;
+
+import com.foodgallery.model.DecorationTip;
+import com.foodgallery.model.FoodPost;
+
+import java.util.List;
+
+/**
+ * Approximate serialized size of posts and tips, in characters of their
+ * string fields. Cheap enough to compute on every call; used for payload
+ * metrics and cache weights.
+ */
+public final class PayloadSizes {
+
+    private PayloadSizes() {
+    }
+
+    public static long of(FoodPost post) {
+        if (post == null) {
+            return 0;
+        }
+        return length(post.getId()) + length(post.getTitle()) + length(post.getDescription())
+                + length(post.getCategory()) + ofStrings(post.getMediaUrls());
+    }
+
+    public static long of(DecorationTip tip) {
+        if (tip == null) {
+            return 0;
+        }
+        return length(tip.getId()) + length(tip.getTitle()) + length(tip.getDescription())
+                + length(tip.getCategory()) + length(tip.getDifficulty()) + length(tip.getAuthor())
+                + length(tip.getTip()) + length(tip.getMediaType()) + length(tip.getCreatedAt())
+                + length(tip.getThumbnail()) + ofStrings(tip.getMedia());
+    }
+
+    public static long ofPosts(List<FoodPost> posts) {
+        long size = 0;
+        for (FoodPost post : posts) {
+            size += of(post);
+        }
+        return size;
+    }
+
+    public static long ofTips(List<DecorationTip> tips) {
+        long size = 0;
+        for (DecorationTip tip : tips) {
+            size += of(tip);
+        }
+        return size;
+    }
+
+    private static long ofStrings(List<String> values) {
+        long size = 0;
+        if (values != null) {
+            for (String value : values) {
+                size += length(value);
+            }
+        }
+        return size;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+}
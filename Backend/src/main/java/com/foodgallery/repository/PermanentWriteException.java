@@ -0,0 +1,31 @@
+package com.foodgallery.repository;
+
+/**
+ * A write the backing store will never accept, however often it is retried,
+ * such as an unreadable journal entry or a document the store rejects as invalid.
+ */
+public class PermanentWriteException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PermanentWriteException(String message) {
+        super(message);
+    }
+
+    public PermanentWriteException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * True if {@code e} or any of its causes marks the write as permanently
+     * failed; anything else (timeouts, I/O and remote errors) may succeed on a retry.
+     */
+    public static boolean isCause(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof PermanentWriteException || t instanceof IllegalArgumentException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
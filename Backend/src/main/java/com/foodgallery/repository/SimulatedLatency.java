@@ -0,0 +1,75 @@
+package com.foodgallery.repository;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Latency and failure injection for the in-memory stand-ins of the data and
+ * blob stores: every call takes {@code latency} plus a uniformly distributed
+ * extra of up to {@code jitter}, then fails with probability {@code failureRate}
+ * without having any effect.
+ */
+public final class SimulatedLatency {
+
+    private final String store;
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final double failureRate;
+
+    public SimulatedLatency(String store, Duration latency, Duration jitter, double failureRate) {
+        if (latency.isNegative() || jitter.isNegative()) {
+            throw new IllegalArgumentException("Simulated latency for " + store + " must not be negative");
+        }
+        if (failureRate < 0 || failureRate > 1) {
+            throw new IllegalArgumentException("Simulated failure rate for " + store + " must be between 0 and 1: " + failureRate);
+        }
+        this.store = store;
+        this.latencyNanos = latency.toNanos();
+        this.jitterNanos = jitter.toNanos();
+        this.failureRate = failureRate;
+    }
+
+    /**
+     * Runs {@code action} once the simulated latency has passed and completes
+     * with its result. Like the Firebase clients, it never completes on the
+     * calling thread.
+     */
+    public <T> CompletableFuture<T> call(String operation, Supplier<T> action) {
+        boolean fail = shouldFail();
+        return CompletableFuture.supplyAsync(() -> {
+            if (fail) {
+                throw new RuntimeException("Simulated " + store + " failure: " + operation);
+            }
+            return action.get();
+        }, CompletableFuture.delayedExecutor(nextDelay(), TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Blocking variant for synchronous stores: sleeps for the simulated latency
+     * and throws instead of returning when the call is chosen to fail.
+     */
+    public void pause(String operation) throws IOException {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nextDelay());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during " + operation);
+        }
+        if (shouldFail()) {
+            throw new IOException("Simulated " + store + " failure: " + operation);
+        }
+    }
+
+    private long nextDelay() {
+        return jitterNanos > 0 ? latencyNanos + ThreadLocalRandom.current().nextLong(jitterNanos + 1) : latencyNanos;
+    }
+
+    private boolean shouldFail() {
+        return failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate;
+    }
+}
@@ -0,0 +1,79 @@
+package com.foodgallery.repository;
+
+import com.foodgallery.model.BatchItemResult;
+import com.foodgallery.model.DecorationTip;
+import com.foodgallery.model.MediaVariants;
+import com.foodgallery.model.TipPage;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Storage for decoration tips. {@link DecorationTipRepository} keeps them in
+ * Firestore; {@link InMemoryTipStore} stands in for it when
+ * {@code datastore.type=memory}.
+ */
+public interface TipStore {
+
+    /**
+     * Saves the tip, assigning an id when it has none and refreshing its thumbnail.
+     */
+    CompletableFuture<DecorationTip> save(DecorationTip tip);
+
+    /**
+     * Resolves to null when there is no such tip.
+     */
+    CompletableFuture<DecorationTip> findById(String id);
+
+    CompletableFuture<List<DecorationTip>> findAll();
+
+    CompletableFuture<List<DecorationTip>> findByCategory(String category);
+
+    /**
+     * Saves every tip, reporting an outcome per item; null entries are reported
+     * as invalid.
+     */
+    CompletableFuture<List<BatchItemResult<DecorationTip>>> saveAll(List<DecorationTip> tips);
+
+    CompletableFuture<List<BatchItemResult<DecorationTip>>> findAllById(List<String> ids);
+
+    CompletableFuture<List<BatchItemResult<DecorationTip>>> deleteAll(List<String> ids);
+
+    /**
+     * Cursor-paginated summaries ordered by id; the cursor is the id of the last
+     * item returned. {@code category} may be null.
+     */
+    CompletableFuture<TipPage> findPage(String category, String cursor, int size);
+
+    /**
+     * Up to {@code size} full tips ordered by id, starting after {@code afterId}
+     * (from the start when null). Used to stream large listings in bounded
+     * chunks; a chunk shorter than {@code size} is the last. {@code category}
+     * may be null.
+     */
+    CompletableFuture<List<DecorationTip>> findChunk(String category, String afterId, int size);
+
+    /**
+     * Like {@link #findChunk} over all categories, but each tip need only carry
+     * the fields the search index reads: id, title, description, tip, category
+     * and difficulty.
+     */
+    CompletableFuture<List<DecorationTip>> findSearchChunk(String afterId, int size);
+
+    /**
+     * Writes only {@code changes} (field name to new value) and bumps the version,
+     * provided the tip is still at {@code expectedVersion}; fails with
+     * {@link VersionConflictException} otherwise. Resolves to false when there
+     * is no such tip.
+     */
+    CompletableFuture<Boolean> patch(String id, long expectedVersion, Map<String, Object> changes);
+
+    /**
+     * Records derivatives (and the thumbnail derived from them) on a tip, but only
+     * if its media is still {@code media}; resolves to false otherwise.
+     */
+    CompletableFuture<Boolean> setMediaVariants(String id, List<String> media, List<MediaVariants> variants);
+
+    CompletableFuture<Void> delete(String id);
+}
@@ -0,0 +1,38 @@
+package com.foodgallery.repository;
+
+import com.foodgallery.model.DecorationTip;
+import com.foodgallery.model.MediaVariants;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * What every tip write does before it is stored, for the stores that assign
+ * ids themselves instead of asking Firestore.
+ */
+final class TipWrites {
+
+    private static final String ID_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+    private static final int ID_LENGTH = 20;
+
+    private TipWrites() {
+    }
+
+    static void prepare(DecorationTip tip) {
+        if (tip.getId() == null || tip.getId().isEmpty()) {
+            tip.setId(newId());
+        }
+        tip.setThumbnail(MediaVariants.thumbnailOf(tip.getMedia(), tip.getMediaVariants()));
+    }
+
+    /**
+     * Random 20-character ids, like Firestore's auto-generated document ids.
+     */
+    private static String newId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] id = new char[ID_LENGTH];
+        for (int i = 0; i < ID_LENGTH; i++) {
+            id[i] = ID_ALPHABET.charAt(random.nextInt(ID_ALPHABET.length()));
+        }
+        return new String(id);
+    }
+}
@@ -0,0 +1,19 @@
+package com.foodgallery.repository;
+
+import com.foodgallery.model.User;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Storage for users. {@link FirestoreUserRepository} keeps them in Firestore;
+ * {@link InMemoryUserRepository} stands in for it when {@code datastore.type=memory}.
+ */
+public interface UserRepository {
+
+    /**
+     * Resolves to null when there is no such user.
+     */
+    CompletableFuture<User> findById(String uid);
+
+    CompletableFuture<User> save(User user);
+}
@@ -0,0 +1,26 @@
+package com.foodgallery.repository;
+
+/**
+ * An update was based on a version of a post or tip that is no longer current.
+ */
+public class VersionConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public VersionConflictException(String id, long expectedVersion) {
+        super("Version " + expectedVersion + " of " + id + " is no longer current");
+    }
+
+    /**
+     * True if {@code e} or any of its causes is a {@link VersionConflictException};
+     * future stages wrap the original exception.
+     */
+    public static boolean isCause(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof VersionConflictException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,694 @@
+package com.foodgallery.repository;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Write-behind journal for post and tip mutations ({@code journal.enabled=true}).
+ * A write is appended to a memory-mapped segment file under {@code journal.dir}
+ * and acknowledged once the append has been forced to disk; a background
+ * drainer then applies it to the backing store, in batches and with retries
+ * until it succeeds, so a slow or unreachable database no longer stalls writers.
+ * <p>
+ * Only failures that may pass are retried. When a batch fails with a
+ * {@link PermanentWriteException} (or an {@link IllegalArgumentException}) its
+ * entries are applied one at a time, and those that still fail permanently are
+ * dead-lettered: logged, appended to the {@code dead-letters} file, reported to
+ * their store and failed to anyone awaiting them, so the entries behind them
+ * keep draining. Appends are refused with a {@link RejectedExecutionException}
+ * once {@code journal.max-pending} entries or {@code journal.max-pending-bytes}
+ * of payload are waiting to be applied, so an outage cannot fill the disk.
+ * <p>
+ * Appends are committed in groups: whatever queues up while one force is in
+ * progress is written and forced together by the next one. Each record is its
+ * length, a CRC32C of the rest, its sequence number and a JSON payload. On
+ * startup the segments are scanned up to the first torn or out-of-sequence
+ * record, and every record after the {@code checkpoint} (the last sequence
+ * applied remotely) is handed back to its store to be drained again. Replays
+ * must therefore be idempotent: entries carry the final id and the full
+ * document, or a delete.
+ * <p>
+ * Published as {@code journal.pending} and {@code journal.pending.bytes}
+ * (entries not yet applied), {@code journal.commit} and
+ * {@code journal.commit.batch} (group commits), {@code journal.drain.failures},
+ * {@code journal.dead.letters} and {@code journal.rejections}.
+ */
+@Component
+@ConditionalOnProperty(name = "journal.enabled", havingValue = "true")
+public class WriteJournal {
+
+    /** Qualifier of the stores the journaled stores write through to. */
+    public static final String BACKING_STORE = "backingStore";
+
+    public static final String PUT = "put";
+    public static final String DELETE = "delete";
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteJournal.class);
+
+    // length, CRC32C, sequence
+    private static final int HEADER_SIZE = 16;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT = "checkpoint";
+    private static final String DEAD_LETTERS = "dead-letters";
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * A durable mutation; {@code value} is null for deletes, {@code size} is
+     * the length of its record's payload.
+     */
+    public record Entry(long sequence, String store, String operation, String id, JsonNode value, int size) {
+    }
+
+    /**
+     * Applies entries of one store to the backing store. Entries are coalesced
+     * to the latest per id, so they can be applied in any order.
+     */
+    @FunctionalInterface
+    public interface Applier {
+        CompletableFuture<Void> apply(List<Entry> entries);
+    }
+
+    private record Payload(String store, String operation, String id, JsonNode value) {
+    }
+
+    private record Append(Payload payload, byte[] bytes, CompletableFuture<Entry> durable) {
+    }
+
+    private record Store(Applier applier, Consumer<Entry> onDurable, Consumer<Entry> onDiscarded) {
+    }
+
+    private record DeadLetter(long sequence, String store, String operation, String id, JsonNode value, String error) {
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        // Only segments created by this process are appended to
+        private final boolean writable;
+        private long lastSequence;
+        // Start of the bytes written since the last force
+        private int dirtyFrom;
+
+        private Segment(Path path, MappedByteBuffer buffer, boolean writable) {
+            this.path = path;
+            this.buffer = buffer;
+            this.writable = writable;
+        }
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int commitBatch;
+    private final int drainBatch;
+    private final Duration drainTimeout;
+    private final Duration retryInitial;
+    private final Duration retryMax;
+    private final long maxPending;
+    private final long maxPendingBytes;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final BlockingQueue<Append> appends = new LinkedBlockingQueue<>();
+    // Durable, not yet applied; appended by the committer, consumed from the head by the drainer
+    private final BlockingQueue<Entry> undrained = new LinkedBlockingQueue<>();
+    private final Map<String, Store> stores = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, CompletableFuture<Void>> drainWaiters = new ConcurrentSkipListMap<>();
+    // Guarded by itself: the committer appends to the last segment, the drainer removes from the front
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    // Accepted by append and not yet drained or dead-lettered, including those still being committed
+    private final AtomicLong pendingEntries = new AtomicLong();
+    private final AtomicLong pendingBytes = new AtomicLong();
+
+    private volatile long drainedSequence;
+    private long nextSequence;
+    private volatile boolean running;
+    private Thread committer;
+    private Thread drainer;
+
+    private final Timer commitTimer;
+    private final DistributionSummary commitBatchSize;
+    private final Counter drainFailures;
+    private final Counter deadLetters;
+    private final Counter rejections;
+
+    public WriteJournal(MeterRegistry meterRegistry,
+                        @Value("${journal.dir:journal}") String directory,
+                        @Value("${journal.segment-size:64MB}") DataSize segmentSize,
+                        @Value("${journal.commit.max-batch:256}") int commitBatch,
+                        @Value("${journal.drain.batch-size:100}") int drainBatch,
+                        @Value("${journal.drain.timeout:30s}") Duration drainTimeout,
+                        @Value("${journal.drain.retry-initial:1s}") Duration retryInitial,
+                        @Value("${journal.drain.retry-max:60s}") Duration retryMax,
+                        @Value("${journal.max-pending:100000}") long maxPending,
+                        @Value("${journal.max-pending-bytes:512MB}") DataSize maxPendingBytes) {
+        this.directory = Paths.get(directory);
+        this.segmentSize = (int) Math.min(segmentSize.toBytes(), Integer.MAX_VALUE);
+        this.commitBatch = commitBatch;
+        this.drainBatch = drainBatch;
+        this.drainTimeout = drainTimeout;
+        this.retryInitial = retryInitial;
+        this.retryMax = retryMax;
+        this.maxPending = maxPending;
+        this.maxPendingBytes = maxPendingBytes.toBytes();
+        Gauge.builder("journal.pending", undrained, BlockingQueue::size)
+                .description("Journaled writes not yet applied to the backing store")
+                .register(meterRegistry);
+        Gauge.builder("journal.pending.bytes", pendingBytes, AtomicLong::get)
+                .description("Payload bytes of journaled writes not yet applied")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        commitTimer = Timer.builder("journal.commit")
+                .description("Time to append and force a group of journal records")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        commitBatchSize = DistributionSummary.builder("journal.commit.batch")
+                .description("Records per group commit")
+                .register(meterRegistry);
+        drainFailures = Counter.builder("journal.drain.failures")
+                .description("Failed attempts to apply journaled writes")
+                .register(meterRegistry);
+        deadLetters = Counter.builder("journal.dead.letters")
+                .description("Journaled writes dropped after failing permanently")
+                .register(meterRegistry);
+        rejections = Counter.builder("journal.rejections")
+                .description("Writes refused because too many were waiting to be applied")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        recover();
+        running = true;
+        committer = new Thread(this::commitLoop, "journal-commit");
+        committer.start();
+    }
+
+    /**
+     * Drains only once every store has registered, so recovered entries are
+     * never applied before their store has seen them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startDraining() {
+        drainer = new Thread(this::drainLoop, "journal-drain");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        // The committer finishes the appends already queued
+        committer.join();
+        appends.forEach(append -> fail(append, new IllegalStateException("Write journal is closed")));
+        if (drainer != null) {
+            drainer.interrupt();
+            drainer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        logger.info("Write journal closed with {} entries not yet applied", undrained.size());
+    }
+
+    /**
+     * Registers a store: {@code onDurable} sees each of its entries once it is
+     * durable, before it can be applied, starting with those recovered from
+     * disk; {@code applier} applies them remotely; {@code onDiscarded} sees
+     * those dead-lettered instead.
+     */
+    public void register(String store, Applier applier, Consumer<Entry> onDurable, Consumer<Entry> onDiscarded) {
+        stores.put(store, new Store(applier, onDurable, onDiscarded));
+        int recovered = 0;
+        for (Entry entry : undrained) {
+            if (entry.store().equals(store)) {
+                onDurable.accept(entry);
+                recovered++;
+            }
+        }
+        if (recovered > 0) {
+            logger.info("Recovered {} journaled {} writes not yet applied", recovered, store);
+        }
+    }
+
+    /**
+     * Appends a mutation; completes once it is on disk, or fails with a
+     * {@link RejectedExecutionException} while the journal is full. {@code value}
+     * is serialized immediately, so the caller may change it afterwards.
+     */
+    public CompletableFuture<Entry> append(String store, String operation, String id, Object value) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Write journal is closed"));
+        }
+        Payload payload;
+        byte[] bytes;
+        try {
+            payload = new Payload(store, operation, id, value != null ? objectMapper.valueToTree(value) : null);
+            bytes = objectMapper.writeValueAsBytes(payload);
+        } catch (IOException | IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("Failed to journal write: " + e.getMessage(), e));
+        }
+        long entries = pendingEntries.incrementAndGet();
+        long total = pendingBytes.addAndGet(bytes.length);
+        if (entries > maxPending || total > maxPendingBytes) {
+            release(bytes.length);
+            rejections.increment();
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                    "Write journal is full: " + (entries - 1) + " writes not yet applied"));
+        }
+        CompletableFuture<Entry> durable = new CompletableFuture<>();
+        appends.add(new Append(payload, bytes, durable));
+        return durable;
+    }
+
+    public <T> T read(Entry entry, Class<T> type) {
+        try {
+            return objectMapper.treeToValue(entry.value(), type);
+        } catch (IOException e) {
+            throw new PermanentWriteException("Unreadable journal entry " + entry.sequence(), e);
+        }
+    }
+
+    /**
+     * Completes once every entry up to {@code sequence} has been applied to the backing store.
+     */
+    public CompletableFuture<Void> awaitDrained(long sequence) {
+        if (sequence <= drainedSequence) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> waiter = drainWaiters.computeIfAbsent(sequence, key -> new CompletableFuture<>());
+        // The drainer may have moved past it in the meantime
+        if (sequence <= drainedSequence) {
+            waiter.complete(null);
+        }
+        return waiter;
+    }
+
+    private void commitLoop() {
+        List<Append> batch = new ArrayList<>(commitBatch);
+        while (running || !appends.isEmpty()) {
+            try {
+                Append first = appends.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                appends.drainTo(batch, commitBatch - 1);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<Append> batch) {
+        long started = System.nanoTime();
+        List<Append> written = new ArrayList<>(batch.size());
+        List<Entry> entries = new ArrayList<>(batch.size());
+        try {
+            for (Append append : batch) {
+                try {
+                    entries.add(write(append.payload(), append.bytes()));
+                    written.add(append);
+                } catch (IOException | IllegalArgumentException e) {
+                    fail(append, new RuntimeException("Failed to journal write: " + e.getMessage(), e));
+                }
+            }
+            forceActive();
+        } catch (RuntimeException e) {
+            // Records already in the mapped file may still reach the disk and be replayed
+            logger.error("Failed to commit {} journal records: {}", written.size(), e.getMessage(), e);
+            written.forEach(append -> fail(append, new RuntimeException("Failed to journal write: " + e.getMessage(), e)));
+            return;
+        }
+        commitTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        commitBatchSize.record(written.size());
+        for (Entry entry : entries) {
+            Store store = stores.get(entry.store());
+            if (store != null) {
+                store.onDurable().accept(entry);
+            }
+            undrained.add(entry);
+        }
+        if (drainer != null) {
+            LockSupport.unpark(drainer);
+        }
+        // Callers' dependent stages run off the commit thread
+        CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < written.size(); i++) {
+                written.get(i).durable().complete(entries.get(i));
+            }
+        });
+    }
+
+    private Entry write(Payload payload, byte[] bytes) throws IOException {
+        int recordSize = HEADER_SIZE + bytes.length;
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("Record of " + recordSize + " bytes exceeds the journal segment size");
+        }
+        Segment segment;
+        synchronized (segments) {
+            segment = segments.peekLast();
+        }
+        if (segment == null || !segment.writable || segment.buffer.remaining() < recordSize) {
+            segment = roll(segment);
+        }
+        long sequence = nextSequence++;
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, sequence));
+        crc.update(bytes);
+        segment.buffer.putInt(bytes.length).putInt((int) crc.getValue()).putLong(sequence).put(bytes);
+        segment.lastSequence = sequence;
+        return new Entry(sequence, payload.store(), payload.operation(), payload.id(), payload.value(), bytes.length);
+    }
+
+    private void fail(Append append, Exception e) {
+        release(append.bytes().length);
+        append.durable().completeExceptionally(e);
+    }
+
+    private void release(int bytes) {
+        pendingEntries.decrementAndGet();
+        pendingBytes.addAndGet(-bytes);
+    }
+
+    private Segment roll(Segment previous) throws IOException {
+        if (previous != null && previous.writable) {
+            force(previous);
+        }
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSequence, SEGMENT_SUFFIX));
+        Segment segment;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Mapping past the end grows the file; the new bytes read as zero, marking the end of the records
+            segment = new Segment(path, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize), true);
+        }
+        segment.lastSequence = nextSequence - 1;
+        synchronized (segments) {
+            segments.addLast(segment);
+        }
+        return segment;
+    }
+
+    private void forceActive() {
+        Segment segment;
+        synchronized (segments) {
+            segment = segments.peekLast();
+        }
+        if (segment != null) {
+            force(segment);
+        }
+    }
+
+    private static void force(Segment segment) {
+        int position = segment.buffer.position();
+        if (position > segment.dirtyFrom) {
+            segment.buffer.force(segment.dirtyFrom, position - segment.dirtyFrom);
+            segment.dirtyFrom = position;
+        }
+    }
+
+    private void drainLoop() {
+        Duration backoff = retryInitial;
+        List<Entry> batch = new ArrayList<>(drainBatch);
+        while (!Thread.currentThread().isInterrupted()) {
+            Iterator<Entry> pending = undrained.iterator();
+            while (pending.hasNext() && batch.size() < drainBatch) {
+                batch.add(pending.next());
+            }
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(this, IDLE_WAIT_NANOS);
+                continue;
+            }
+            List<Entry> discarded = new ArrayList<>();
+            int done;
+            try {
+                done = drain(batch, discarded, backoff);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (done > 0) {
+                drained(batch.subList(0, done), discarded);
+            }
+            if (done < batch.size()) {
+                drainFailures.increment();
+                batch.clear();
+                LockSupport.parkNanos(this, backoff.toNanos());
+                backoff = backoff.multipliedBy(2).compareTo(retryMax) > 0 ? retryMax : backoff.multipliedBy(2);
+                continue;
+            }
+            backoff = retryInitial;
+            batch.clear();
+        }
+    }
+
+    /**
+     * Applies {@code batch} and returns how many of its leading entries are done
+     * with, either applied or dead-lettered into {@code discarded}; the rest are
+     * retried after a backoff.
+     */
+    private int drain(List<Entry> batch, List<Entry> discarded, Duration backoff) throws InterruptedException {
+        try {
+            apply(batch);
+            return batch.size();
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            if (!PermanentWriteException.isCause(e)) {
+                logger.warn("Failed to apply {} journaled writes, retrying in {}: {}", batch.size(), backoff, e.getMessage());
+                return 0;
+            }
+        }
+        // One at a time, so a write the store will never accept does not hold back the rest
+        for (int i = 0; i < batch.size(); i++) {
+            Entry entry = batch.get(i);
+            try {
+                apply(List.of(entry));
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                if (!PermanentWriteException.isCause(e)) {
+                    logger.warn("Failed to apply journaled write {}, retrying in {}: {}", entry.sequence(), backoff, e.getMessage());
+                    return i;
+                }
+                deadLetter(entry, e);
+                discarded.add(entry);
+            }
+        }
+        return batch.size();
+    }
+
+    private void drained(List<Entry> entries, List<Entry> discarded) {
+        long last = entries.get(entries.size() - 1).sequence();
+        for (int i = 0; i < entries.size(); i++) {
+            release(undrained.poll().size());
+        }
+        try {
+            writeCheckpoint(last);
+        } catch (IOException e) {
+            // Harmless: the entries are applied again after a restart
+            logger.warn("Failed to write journal checkpoint: {}", e.getMessage());
+        }
+        drainedSequence = last;
+        for (Entry entry : discarded) {
+            CompletableFuture<Void> waiter = drainWaiters.remove(entry.sequence());
+            if (waiter != null) {
+                waiter.completeExceptionally(new PermanentWriteException(
+                        "Journaled " + entry.store() + " write " + entry.id() + " was discarded"));
+            }
+        }
+        Map<Long, CompletableFuture<Void>> released = drainWaiters.headMap(last, true);
+        released.values().forEach(waiter -> waiter.complete(null));
+        released.clear();
+        deleteDrainedSegments(last);
+    }
+
+    private void deadLetter(Entry entry, Exception e) {
+        deadLetters.increment();
+        logger.error("Discarding journaled {} {} of {} (sequence {}), it can never be applied: {}",
+                entry.store(), entry.operation(), entry.id(), entry.sequence(), e.getMessage(), e);
+        try {
+            String line = objectMapper.writeValueAsString(new DeadLetter(entry.sequence(), entry.store(),
+                    entry.operation(), entry.id(), entry.value(), e.getMessage()));
+            Files.writeString(directory.resolve(DEAD_LETTERS), line + "\n",
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException ioe) {
+            logger.error("Failed to record dead-lettered journal entry {}: {}", entry.sequence(), ioe.getMessage());
+        }
+        Store store = stores.get(entry.store());
+        if (store != null) {
+            store.onDiscarded().accept(entry);
+        }
+    }
+
+    private void apply(List<Entry> batch) throws Exception {
+        // Latest entry per id within each store
+        Map<String, Map<String, Entry>> byStore = new LinkedHashMap<>();
+        for (Entry entry : batch) {
+            byStore.computeIfAbsent(entry.store(), key -> new LinkedHashMap<>()).put(entry.id(), entry);
+        }
+        List<CompletableFuture<Void>> applied = new ArrayList<>(byStore.size());
+        for (Map.Entry<String, Map<String, Entry>> store : byStore.entrySet()) {
+            Store registered = stores.get(store.getKey());
+            if (registered == null) {
+                throw new IllegalStateException("No store registered for journaled " + store.getKey() + " writes");
+            }
+            applied.add(registered.applier().apply(new ArrayList<>(store.getValue().values())));
+        }
+        CompletableFuture.allOf(applied.toArray(new CompletableFuture<?>[0]))
+                .get(drainTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void deleteDrainedSegments(long drained) {
+        while (true) {
+            Segment oldest;
+            synchronized (segments) {
+                // The last segment is still being appended to
+                if (segments.size() < 2 || segments.peekFirst().lastSequence > drained) {
+                    return;
+                }
+                oldest = segments.pollFirst();
+            }
+            try {
+                Files.deleteIfExists(oldest.path);
+            } catch (IOException e) {
+                logger.warn("Failed to delete journal segment {}: {}", oldest.path, e.getMessage());
+            }
+        }
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        drainedSequence = Files.exists(checkpoint) ? Long.parseLong(Files.readString(checkpoint).trim()) : 0;
+        long expected = drainedSequence + 1;
+        boolean first = true;
+        boolean corrupt = false;
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                    && path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+        for (Path path : files) {
+            if (corrupt) {
+                // Anything after an invalid record cannot be trusted to be in sequence
+                setAside(path);
+                continue;
+            }
+            Segment segment;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                segment = new Segment(path, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()), false);
+            }
+            segment.lastSequence = -1;
+            ByteBuffer buffer = segment.buffer;
+            while (buffer.remaining() >= HEADER_SIZE) {
+                int start = buffer.position();
+                int length = buffer.getInt(start);
+                if (length == 0) {
+                    break;
+                }
+                boolean valid = length > 0 && length <= buffer.remaining() - HEADER_SIZE;
+                long sequence = valid ? buffer.getLong(start + 8) : -1;
+                byte[] bytes = valid ? new byte[length] : null;
+                if (valid) {
+                    buffer.get(start + HEADER_SIZE, bytes);
+                    CRC32C crc = new CRC32C();
+                    crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, sequence));
+                    crc.update(bytes);
+                    // The first record seen may precede the checkpoint; after that, sequences must be contiguous
+                    valid = (int) crc.getValue() == buffer.getInt(start + 4) && (first || sequence == expected);
+                }
+                if (!valid) {
+                    logger.warn("Journal segment {} has an invalid record at offset {}; later records are ignored", path, start);
+                    // Clear the torn tail, or it would cut off the records appended after this recovery at the next one
+                    while (buffer.hasRemaining()) {
+                        buffer.put((byte) 0);
+                    }
+                    segment.buffer.force();
+                    corrupt = true;
+                    break;
+                }
+                if (sequence > drainedSequence) {
+                    Payload payload = objectMapper.readValue(bytes, Payload.class);
+                    undrained.add(new Entry(sequence, payload.store(), payload.operation(), payload.id(), payload.value(), length));
+                    pendingEntries.incrementAndGet();
+                    pendingBytes.addAndGet(length);
+                }
+                first = false;
+                expected = sequence + 1;
+                segment.lastSequence = sequence;
+                buffer.position(start + HEADER_SIZE + length);
+            }
+            if (segment.lastSequence < 0 && !corrupt) {
+                // Rolled but never written to
+                Files.delete(path);
+            } else if (segment.lastSequence < 0) {
+                setAside(path);
+            } else {
+                segments.addLast(segment);
+            }
+        }
+        nextSequence = Math.max(expected, drainedSequence + 1);
+        deleteDrainedSegments(drainedSequence);
+        logger.info("Write journal opened at sequence {}: {} entries not yet applied", nextSequence, undrained.size());
+    }
+
+    private static void setAside(Path path) throws IOException {
+        Files.move(path, path.resolveSibling(path.getFileName() + ".corrupt"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void writeCheckpoint(long sequence) throws IOException {
+        Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+        Files.writeString(temporary, Long.toString(sequence));
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
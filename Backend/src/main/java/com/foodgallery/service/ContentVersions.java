@@ -0,0 +1,61 @@
+package com.foodgallery.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * ETags for the read endpoints, derived from the response content: a hash of
+ * the serialized body, so every instance gives the same content the same tag
+ * and any change to it, wherever it was written, gives a new one. Bodies served
+ * from the read caches are the same object until they are invalidated, so each
+ * is hashed only once.
+ */
+@Component
+public class ContentVersions {
+
+    public static final String POSTS = "posts";
+    public static final String TIPS = "tips";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Weak keys compare by identity, and let go of bodies once nothing else holds them
+    private final Cache<Object, String> hashes = Caffeine.newBuilder()
+            .weakKeys()
+            .executor(Runnable::run)
+            .build();
+
+    /**
+     * Strong ETag (including quotes) for {@code body} as a representation of
+     * the collection.
+     */
+    public String etag(String collection, Object body) {
+        String hash = body != null ? hashes.get(body, this::hash) : "empty";
+        return "\"" + collection + "-" + hash + "\"";
+    }
+
+    private String hash(Object body) {
+        try {
+            DigestOutputStream digest = new DigestOutputStream(OutputStream.nullOutputStream(),
+                    MessageDigest.getInstance("SHA-256"));
+            // Streamed into the digest, so the body is never held serialized
+            objectMapper.writeValue(digest, body);
+            return ENCODER.encodeToString(digest.getMessageDigest().digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,41 +1,318 @@
 package com.foodgallery.service;
 
+import com.foodgallery.model.BatchItemResult;
 import com.foodgallery.model.DecorationTip;
-import com.foodgallery.repository.DecorationTipRepository;
+import com.foodgallery.model.MediaVariants;
+import com.foodgallery.model.TipPage;
+import com.foodgallery.model.TipPatch;
+import com.foodgallery.repository.TipStore;
+import com.foodgallery.repository.VersionConflictException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 public class DecorationTipService {
 
+    private static final Logger logger = LoggerFactory.getLogger(DecorationTipService.class);
+
+    @Autowired
+    private TipStore repository;
+
+    @Autowired
+    private ReadCaches readCaches;
+
+    @Autowired
+    private MediaDerivativeService mediaDerivativeService;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
     @Autowired
-    private DecorationTipRepository repository;
+    private SearchIndex searchIndex;
 
-    public DecorationTip createTip(DecorationTip tip) throws ExecutionException, InterruptedException {
-        return repository.save(tip);
+    public CompletableFuture<DecorationTip> createTip(DecorationTip tip) {
+        // Derivatives are generated here, never taken from the client
+        tip.setMediaVariants(null);
+        return save(tip);
     }
 
-    public DecorationTip updateTip(String id, DecorationTip tip) throws ExecutionException, InterruptedException {
+    /**
+     * Replaces the tip with a version-checked write of the fields that differ,
+     * so a concurrent update fails with {@link VersionConflictException} instead
+     * of being overwritten. Derivatives are kept for media that remains, those of
+     * removed media are released once the write has won, and new media gets
+     * them generated. A tip that does not exist is created.
+     */
+    public CompletableFuture<DecorationTip> updateTip(String id, DecorationTip tip) {
         tip.setId(id);
-        return repository.save(tip);
+        // Derivatives are derived from the stored tip, never taken from the client
+        tip.setMediaVariants(null);
+        return repository.findById(id).thenCompose(current -> {
+            if (current == null) {
+                tip.setVersion(0);
+                return save(tip);
+            }
+            tip.setCreatedAt(current.getCreatedAt());
+            tip.setMediaVariants(MediaVariants.retained(current.getMediaVariants(), tip.getMedia()));
+            tip.setThumbnail(MediaVariants.thumbnailOf(tip.getMedia(), tip.getMediaVariants()));
+            tip.setVersion(current.getVersion() + 1);
+            Map<String, Object> changes = TipPatch.changes(current, tip);
+            if (changes.isEmpty()) {
+                return CompletableFuture.completedFuture(current);
+            }
+            return repository.patch(id, current.getVersion(), changes).thenCompose(applied -> {
+                if (!applied) {
+                    // Deleted since it was read
+                    tip.setMediaVariants(null);
+                    tip.setVersion(0);
+                    return save(tip);
+                }
+                readCaches.tipsById().put(id, CompletableFuture.completedFuture(tip));
+                readCaches.tipLists().synchronous().invalidateAll();
+                searchIndex.indexTip(tip);
+                scheduleDerivatives(tip);
+                releaseDerivativesAsync(MediaVariants.dropped(current.getMediaVariants(), tip.getMedia()));
+                return CompletableFuture.completedFuture(tip);
+            });
+        }).whenComplete((saved, e) -> {
+            if (e != null) {
+                readCaches.tipsById().synchronous().invalidate(id);
+            }
+        });
+    }
+
+    /**
+     * Applies {@code patch} to the current tip and writes only the fields it
+     * changes; resolves to null when there is no such tip. Derivatives of
+     * removed media are released once the update has been written.
+     */
+    public CompletableFuture<DecorationTip> patchTip(String id, TipPatch patch) {
+        // Read from the store rather than the cache: the patch must apply to the current version
+        return repository.findById(id).thenCompose(current -> {
+            if (current == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            long expectedVersion = patch.getVersion() != null ? patch.getVersion() : current.getVersion();
+            if (expectedVersion != current.getVersion()) {
+                return CompletableFuture.failedFuture(new VersionConflictException(id, expectedVersion));
+            }
+            DecorationTip updated = patch.applyTo(current);
+            updated.setId(id);
+            Map<String, Object> changes = TipPatch.changes(current, updated);
+            if (changes.isEmpty()) {
+                return CompletableFuture.completedFuture(current);
+            }
+            updated.setVersion(expectedVersion + 1);
+            return repository.patch(id, expectedVersion, changes).thenApply(applied -> {
+                readCaches.tipsById().synchronous().invalidate(id);
+                readCaches.tipLists().synchronous().invalidateAll();
+                if (!applied) {
+                    return null;
+                }
+                readCaches.tipsById().put(id, CompletableFuture.completedFuture(updated));
+                searchIndex.indexTip(updated);
+                scheduleDerivatives(updated);
+                releaseDerivativesAsync(MediaVariants.dropped(current.getMediaVariants(), updated.getMedia()));
+                return updated;
+            });
+        });
+    }
+
+    public CompletableFuture<DecorationTip> getTipById(String id) {
+        return readCaches.tipsById().get(id, (key, executor) -> repository.findById(key));
+    }
+
+    public CompletableFuture<List<DecorationTip>> getAllTips() {
+        return readCaches.tipLists().get(ReadCaches.ALL_TIPS, (key, executor) -> repository.findAll());
+    }
+
+    public CompletableFuture<List<DecorationTip>> getTipsByCategory(String category) {
+        return readCaches.tipLists().get(category, (key, executor) -> repository.findByCategory(key));
+    }
+
+    public CompletableFuture<TipPage> getTipsPage(String category, String cursor, int size) {
+        return repository.findPage(category, cursor, size);
+    }
+
+    /**
+     * Full tips ordered by id, {@code size} at a time, read straight from the store.
+     */
+    public CompletableFuture<List<DecorationTip>> getTipsChunk(String category, String afterId, int size) {
+        return repository.findChunk(category, afterId, size);
+    }
+
+    public CompletableFuture<Void> deleteTip(String id) {
+        // Read from the store rather than the cache: what is released must be what is deleted
+        return repository.findById(id)
+                .thenCompose(previous -> repository.delete(id).whenComplete((v, e) -> {
+                    readCaches.tipsById().synchronous().invalidate(id);
+                    readCaches.tipLists().synchronous().invalidateAll();
+                    if (e == null) {
+                        searchIndex.removeTip(id);
+                    }
+                    if (e == null && previous != null) {
+                        releaseDerivativesAsync(previous.getMediaVariants());
+                    }
+                }));
+    }
+
+    /**
+     * Tips referencing stored media are rejected, as only uploads attach it,
+     * and derivatives sent by the client are discarded.
+     */
+    public CompletableFuture<List<BatchItemResult<DecorationTip>>> createTips(List<DecorationTip> tips) {
+        List<BatchItemResult<DecorationTip>> rejected = new ArrayList<>(Collections.nCopies(tips.size(), null));
+        List<DecorationTip> accepted = new ArrayList<>(tips.size());
+        for (int i = 0; i < tips.size(); i++) {
+            DecorationTip tip = tips.get(i);
+            if (tip != null && FileStorageService.referencesStoredMedia(tip.getMedia())) {
+                rejected.set(i, BatchItemResult.failed(tip.getId(),
+                        BatchItemResult.Status.INVALID, "Media must be uploaded, not referenced"));
+            } else {
+                if (tip != null) {
+                    tip.setMediaVariants(null);
+                }
+                accepted.add(tip);
+            }
+        }
+        return repository.saveAll(accepted).thenApply(saved -> {
+            // Back into request order, around the rejected tips
+            List<BatchItemResult<DecorationTip>> results = new ArrayList<>(tips.size());
+            Iterator<BatchItemResult<DecorationTip>> next = saved.iterator();
+            for (BatchItemResult<DecorationTip> result : rejected) {
+                results.add(result != null ? result : next.next());
+            }
+            for (BatchItemResult<DecorationTip> result : results) {
+                if (result.getStatus() == BatchItemResult.Status.OK) {
+                    readCaches.tipsById().put(result.getId(), CompletableFuture.completedFuture(result.getItem()));
+                    searchIndex.indexTip(result.getItem());
+                    scheduleDerivatives(result.getItem());
+                }
+            }
+            readCaches.tipLists().synchronous().invalidateAll();
+            return results;
+        });
+    }
+
+    public CompletableFuture<List<BatchItemResult<DecorationTip>>> getTips(List<String> ids) {
+        return repository.findAllById(ids);
+    }
+
+    /**
+     * Deletes the tips and then releases the derivatives of those deleted, as
+     * read from the store beforehand.
+     */
+    public CompletableFuture<List<BatchItemResult<DecorationTip>>> deleteTips(List<String> ids) {
+        return repository.findAllById(ids).thenCompose(lookups -> {
+            Map<String, DecorationTip> found = new HashMap<>();
+            for (BatchItemResult<DecorationTip> lookup : lookups) {
+                if (lookup.getStatus() == BatchItemResult.Status.OK) {
+                    found.put(lookup.getId(), lookup.getItem());
+                }
+            }
+            return repository.deleteAll(ids).whenComplete((results, e) -> {
+                readCaches.tipsById().synchronous().invalidateAll(ids);
+                readCaches.tipLists().synchronous().invalidateAll();
+                if (results == null) {
+                    return;
+                }
+                for (BatchItemResult<DecorationTip> result : results) {
+                    if (result.getStatus() != BatchItemResult.Status.OK) {
+                        continue;
+                    }
+                    searchIndex.removeTip(result.getId());
+                    DecorationTip deleted = found.get(result.getId());
+                    if (deleted != null) {
+                        releaseDerivativesAsync(deleted.getMediaVariants());
+                    }
+                }
+            });
+        });
+    }
+
+    private CompletableFuture<DecorationTip> save(DecorationTip tip) {
+        return repository.save(tip).whenComplete((saved, e) -> {
+            if (e == null) {
+                readCaches.tipsById().put(saved.getId(), CompletableFuture.completedFuture(saved));
+                searchIndex.indexTip(saved);
+                scheduleDerivatives(saved);
+            } else {
+                readCaches.tipsById().synchronous().invalidate(tip.getId());
+            }
+            readCaches.tipLists().synchronous().invalidateAll();
+        });
+    }
+
+    /**
+     * Brings a tip's derivatives and thumbnail up to date, generating what is
+     * missing; for tips saved before either existed. Fails with
+     * {@link RejectedExecutionException} when the derivative queue is full.
+     */
+    public CompletableFuture<Void> refreshDerivatives(DecorationTip tip) {
+        if (MediaVariants.isCurrent(tip.getMedia(), tip.getMediaVariants())) {
+            // Rewrites the thumbnail from the existing derivatives
+            return repository.setMediaVariants(tip.getId(), tip.getMedia(), tip.getMediaVariants())
+                    .thenAccept(applied -> {
+                        if (applied) {
+                            invalidateTip(tip.getId());
+                        }
+                    });
+        }
+        return recordDerivatives(tip);
     }
 
-    public DecorationTip getTipById(String id) throws ExecutionException, InterruptedException {
-        return repository.findById(id);
+    /**
+     * Generates derivatives in the background and records them on the tip,
+     * unless its media has been replaced by the time they are ready.
+     */
+    private void scheduleDerivatives(DecorationTip tip) {
+        if (MediaVariants.isCurrent(tip.getMedia(), tip.getMediaVariants())) {
+            return;
+        }
+        try {
+            recordDerivatives(tip);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Derivative queue full; skipping derivatives for tip id={}", tip.getId());
+        }
     }
 
-    public List<DecorationTip> getAllTips() throws ExecutionException, InterruptedException {
-        return repository.findAll();
+    private CompletableFuture<Void> recordDerivatives(DecorationTip tip) {
+        List<String> media = tip.getMedia();
+        List<MediaVariants> existing = tip.getMediaVariants();
+        // Only media without derivatives is processed, e.g. what a patch added
+        return mediaDerivativeService.generate(MediaVariants.missing(media, existing))
+                .thenCompose(generated -> repository.setMediaVariants(tip.getId(), media,
+                                MediaVariants.merge(media, existing, generated))
+                        .thenAccept(applied -> {
+                            if (applied) {
+                                invalidateTip(tip.getId());
+                            } else {
+                                releaseDerivativesAsync(generated);
+                            }
+                        }))
+                .exceptionally(e -> {
+                    logger.warn("Failed to record media derivatives for tip id={}: {}", tip.getId(), e.getMessage());
+                    return null;
+                });
     }
 
-    public List<DecorationTip> getTipsByCategory(String category) throws ExecutionException, InterruptedException {
-        return repository.findByCategory(category);
+    private void invalidateTip(String id) {
+        readCaches.tipsById().synchronous().invalidate(id);
+        readCaches.tipLists().synchronous().invalidateAll();
     }
 
-    public void deleteTip(String id) throws ExecutionException, InterruptedException {
-        repository.delete(id);
+    private void releaseDerivativesAsync(List<MediaVariants> variants) {
+        fileStorageService.deleteFilesAsync(MediaVariants.derivativesOf(variants));
     }
-}
\ No newline at end of file
+}
@@ -1,33 +1,211 @@
 package com.foodgallery.service;
 
-import com.google.cloud.storage.Blob;
-import com.google.cloud.storage.Bucket;
-import com.google.firebase.cloud.StorageClient;
+import com.foodgallery.model.StoredMedia;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 public class FileStorageService {
 
+    public static final String MEDIA_PATH_PREFIX = "/api/media/";
+
+    private static final Logger logger = LoggerFactory.getLogger(FileStorageService.class);
+
+    @Autowired
+    private MediaStore mediaStore;
+
+    @Autowired
+    @Qualifier("uploadTaskExecutor")
+    private Executor uploadTaskExecutor;
+
+    @Autowired
+    @Qualifier("mediaTaskExecutor")
+    private Executor mediaTaskExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${media.upload.max-parallel-per-request:4}")
+    private int maxParallelPerRequest;
+
+    @Value("${media.upload.chunk-size:64KB}")
+    private DataSize chunkSize;
+
+    private Counter bytesSaved;
+    private Counter bytesSkipped;
+
+    @PostConstruct
+    public void registerMetrics() {
+        bytesSaved = Counter.builder("media.dedup.bytes.saved")
+                .description("Bytes not stored because identical media was already stored")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        bytesSkipped = Counter.builder("media.dedup.bytes.skipped")
+                .description("Upload bytes never written to the media store because they were found by hash first")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
     public List<String> storeFiles(List<MultipartFile> files) {
-        List<String> fileUrls = new ArrayList<>();
-        Bucket bucket = StorageClient.getInstance().bucket();
+        try {
+            return storeFilesAsync(files).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
 
-        for (MultipartFile file : files) {
-            String fileName = UUID.randomUUID() + "_" + file.getOriginalFilename();
+    /**
+     * Uploads files concurrently, at most {@code media.upload.max-parallel-per-request}
+     * at a time, and resolves to their references in request order. The upload is
+     * all-or-nothing: if any file fails, the files already stored are deleted and
+     * the future fails with the first error.
+     */
+    public CompletableFuture<List<String>> storeFilesAsync(List<MultipartFile> files) {
+        int count = files.size();
+        String[] references = new String[count];
+        AtomicBoolean failed = new AtomicBoolean();
+        int lanes = Math.max(1, Math.min(count, maxParallelPerRequest));
+
+        // Each lane uploads every lanes-th file in turn, which caps this request's parallelism
+        CompletableFuture<?>[] work = new CompletableFuture<?>[lanes];
+        for (int lane = 0; lane < lanes; lane++) {
+            int first = lane;
             try {
-                Blob blob = bucket.create(fileName, file.getInputStream(), file.getContentType());
-                String fileUrl = blob.getMediaLink();
-                fileUrls.add(fileUrl);
-            } catch (IOException e) {
-                throw new RuntimeException("Could not store file " + fileName, e);
+                work[lane] = CompletableFuture.runAsync(() -> {
+                    for (int i = first; i < count && !failed.get(); i += lanes) {
+                        try {
+                            references[i] = storeFile(files.get(i));
+                        } catch (RuntimeException e) {
+                            failed.set(true);
+                            throw e;
+                        }
+                    }
+                }, uploadTaskExecutor);
+            } catch (RejectedExecutionException e) {
+                failed.set(true);
+                work[lane] = CompletableFuture.failedFuture(e);
+                // Lanes never started would otherwise leave their slots empty
+                for (int rest = lane + 1; rest < lanes; rest++) {
+                    work[rest] = CompletableFuture.completedFuture(null);
+                }
+                break;
+            }
+        }
+
+        return CompletableFuture.allOf(work)
+                .handle((v, e) -> {
+                    if (e != null) {
+                        deleteFiles(Arrays.asList(references));
+                        throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+                    }
+                    return new ArrayList<>(Arrays.asList(references));
+                });
+    }
+
+    /**
+     * Multipart files are spooled to local disk, so they are hashed first: content
+     * that is already stored (e.g. an update resending the same files) only takes
+     * another reference and no media bytes are written.
+     */
+    public String storeFile(MultipartFile file) {
+        try {
+            String sha256;
+            try (InputStream content = file.getInputStream()) {
+                sha256 = MediaStreams.sha256(content, (int) chunkSize.toBytes());
+            }
+            Optional<StoredMedia> existing = mediaStore.retain(sha256, file.getContentType());
+            if (existing.isPresent()) {
+                bytesSkipped.increment(existing.get().getSize());
+                bytesSaved.increment(existing.get().getSize());
+                return toReference(existing.get().getId());
             }
+            try (InputStream content = file.getInputStream()) {
+                return store(content, file.getContentType());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not store file " + file.getOriginalFilename(), e);
+        }
+    }
+
+    public String store(InputStream content, String contentType) throws IOException {
+        StoredMedia media = mediaStore.store(content, contentType);
+        if (media.getReferences() > 1) {
+            bytesSaved.increment(media.getSize());
+        }
+        return toReference(media.getId());
+    }
+
+    public void deleteFiles(List<String> fileUrls) {
+        if (fileUrls == null) {
+            return;
+        }
+        for (String fileUrl : fileUrls) {
+            String id = toMediaId(fileUrl);
+            if (id != null) {
+                mediaStore.release(id);
+            }
+        }
+    }
+
+    /**
+     * Releases the references on the media executor, for callers running on a
+     * database or request thread. When its queue is full they are logged and
+     * kept: the write that dropped them has already succeeded, and a leaked
+     * reference only costs storage.
+     */
+    public void deleteFilesAsync(List<String> fileUrls) {
+        if (fileUrls == null || fileUrls.isEmpty()) {
+            return;
+        }
+        try {
+            mediaTaskExecutor.execute(() -> deleteFiles(fileUrls));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Media queue full; not releasing {} media references: {}", fileUrls.size(), fileUrls);
+        }
+    }
+
+    /**
+     * Whether any entry is a stored reference. Each reference is counted once
+     * per owner, so a reference copied from a request body would be released
+     * while something else still points at it.
+     */
+    public static boolean referencesStoredMedia(List<String> entries) {
+        return entries != null && entries.stream().anyMatch(entry -> toMediaId(entry) != null);
+    }
+
+    public static String toReference(String mediaId) {
+        return MEDIA_PATH_PREFIX + mediaId;
+    }
+
+    /**
+     * Returns the media id behind a stored reference, or {@code null} for values
+     * that are not references (e.g. legacy inline data URIs).
+     */
+    public static String toMediaId(String reference) {
+        if (reference == null || !reference.startsWith(MEDIA_PATH_PREFIX)) {
+            return null;
         }
-        return fileUrls;
+        return reference.substring(MEDIA_PATH_PREFIX.length());
     }
-}
\ No newline at end of file
+}
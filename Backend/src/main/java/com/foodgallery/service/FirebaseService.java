@@ -1,96 +1,225 @@
 package com.foodgallery.service;
 
+import com.foodgallery.config.FirebaseClients;
 import com.foodgallery.model.FoodPost;
+import com.foodgallery.model.MediaVariants;
+import com.foodgallery.model.PostPage;
+import com.foodgallery.repository.DataStoreMetrics;
+import com.foodgallery.repository.PayloadSizes;
+import com.foodgallery.repository.PermanentWriteException;
+import com.foodgallery.repository.VersionConflictException;
+import com.foodgallery.repository.WriteJournal;
 import com.google.firebase.database.*;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import org.springframework.util.function.SingletonSupplier;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Realtime Database access for posts. Every method returns immediately with a
+ * future completed from the Firebase event thread, so callers never hold a
+ * request thread while waiting on the network. Dependent stages must stay
+ * cheap or hop to an executor, since they run on that shared event thread.
+ */
 @Service
-public class FirebaseService {
+@Qualifier(WriteJournal.BACKING_STORE)
+@ConditionalOnProperty(name = "datastore.type", havingValue = "firebase", matchIfMissing = true)
+public class FirebaseService implements PostStore {
 
-    private final DatabaseReference databaseReference;
+    private final SingletonSupplier<DatabaseReference> databaseReference;
 
-    public FirebaseService() {
-        databaseReference = FirebaseDatabase.getInstance().getReference("posts");
+    @Autowired
+    private RecentPostWrites recentWrites;
+
+    @Autowired
+    private ObjectProvider<PostReplica> replicaProvider;
+
+    @Autowired
+    private DataStoreMetrics metrics;
+
+    @Value("${firebase.timeout.write:5s}")
+    private Duration writeTimeout;
+
+    @Value("${firebase.timeout.read:10s}")
+    private Duration readTimeout;
+
+    @Value("${firebase.timeout.delete:5s}")
+    private Duration deleteTimeout;
+
+    public FirebaseService(FirebaseClients firebaseClients) {
+        databaseReference = SingletonSupplier.of(() -> firebaseClients.database().getReference("posts"));
     }
 
-    public FoodPost createPost(FoodPost foodPost) {
+    @Override
+    public CompletableFuture<FoodPost> createPost(FoodPost foodPost) {
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.REALTIME_DB, "posts.create");
+        call.payload(PayloadSizes.of(foodPost));
         CompletableFuture<FoodPost> future = new CompletableFuture<>();
 
         if (foodPost.getId() == null) {
-            String id = databaseReference.push().getKey();
+            String id = databaseReference.obtain().push().getKey();
             foodPost.setId(id);
         }
 
-        databaseReference.child(foodPost.getId()).setValue(foodPost, (error, ref) -> {
+        // Completes on the server acknowledgement; RecentPostWrites covers read-after-write.
+        databaseReference.obtain().child(foodPost.getId()).setValue(foodPost, (error, ref) -> {
             if (error != null) {
                 future.completeExceptionally(new RuntimeException("Failed to save post: " + error.getMessage()));
             } else {
-                // Add a small delay to ensure data is synced
-                try {
-                    Thread.sleep(500); // 500ms delay
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
+                recentWrites.recordWrite(foodPost);
                 future.complete(foodPost);
             }
         });
 
+        return call.track(withTimeout(future, writeTimeout, "Error saving post"));
+    }
+
+    /**
+     * Writes all posts in one multi-location {@code updateChildren} call, which
+     * the database applies atomically. Ids are assigned to posts that lack one.
+     * <p>
+     * Data the client refuses to encode (a {@link DatabaseException}) fails with
+     * a {@link PermanentWriteException}. Errors the server reports are left
+     * retryable: rules do not apply to the admin SDK, so they are outages or
+     * configuration problems.
+     */
+    @Override
+    public CompletableFuture<List<FoodPost>> createPosts(List<FoodPost> foodPosts) {
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.REALTIME_DB, "posts.createBatch");
+        call.payload(PayloadSizes.ofPosts(foodPosts));
+        CompletableFuture<List<FoodPost>> future = new CompletableFuture<>();
+        Map<String, Object> updates = new HashMap<>();
+        for (FoodPost foodPost : foodPosts) {
+            if (foodPost.getId() == null) {
+                foodPost.setId(databaseReference.obtain().push().getKey());
+            }
+            updates.put(foodPost.getId(), foodPost);
+        }
+
         try {
-            return future.get(5, TimeUnit.SECONDS); // Timeout after 5 seconds
-        } catch (Exception e) {
-            throw new RuntimeException("Error saving post: Timeout or " + e.getMessage(), e);
+            databaseReference.obtain().updateChildren(updates, (error, ref) -> {
+                if (error != null) {
+                    future.completeExceptionally(new RuntimeException("Failed to save posts: " + error.getMessage(), error.toException()));
+                } else {
+                    foodPosts.forEach(recentWrites::recordWrite);
+                    future.complete(foodPosts);
+                }
+            });
+        } catch (DatabaseException e) {
+            future.completeExceptionally(new PermanentWriteException("Failed to save posts: " + e.getMessage(), e));
         }
+
+        return call.track(withTimeout(future, writeTimeout, "Error saving posts"));
     }
 
-    public List<FoodPost> getPostsByCategory(String category) {
+    @Override
+    public CompletableFuture<List<FoodPost>> getPostsByCategory(String category) {
+        PostReplica replica = readyReplica();
+        if (replica != null) {
+            return CompletableFuture.completedFuture(replica.getPostsByCategory(category));
+        }
+
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.REALTIME_DB, "posts.byCategory");
         CompletableFuture<List<FoodPost>> future = new CompletableFuture<>();
-        List<FoodPost> posts = new ArrayList<>();
-
-        databaseReference.orderByChild("category").equalTo(category)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(DataSnapshot snapshot) {
-                        for (DataSnapshot dataSnapshot : snapshot.getChildren()) {
-                            FoodPost post = dataSnapshot.getValue(FoodPost.class);
-                            if (post != null) {
-                                post.setId(dataSnapshot.getKey());
-                                posts.add(post);
-                            }
-                        }
-                        future.complete(posts);
-                    }
 
-                    @Override
-                    public void onCancelled(DatabaseError error) {
-                        future.completeExceptionally(new RuntimeException("Failed to fetch posts: " + error.getMessage()));
+        databaseReference.obtain().orderByChild("category").equalTo(category)
+                .addListenerForSingleValueEvent(postListListener(future));
+
+        return call.track(withTimeout(future, readTimeout, "Error fetching posts by category"), PayloadSizes::ofPosts)
+                .thenApply(posts -> recentWrites.overlay(posts, category));
+    }
+
+    /**
+     * Keyset pagination over the category index. Posts are ordered by key within
+     * a category, so the cursor is simply the last key of the previous page.
+     */
+    @Override
+    public CompletableFuture<PostPage> getPostsPage(String category, String cursor, int size) {
+        String afterKey = PostCursors.decode(cursor);
+        PostReplica replica = readyReplica();
+        if (replica != null) {
+            return CompletableFuture.completedFuture(toPage(replica.getPostsAfter(category, afterKey, size + 1), size, category));
+        }
+
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.REALTIME_DB, "posts.page");
+        CompletableFuture<List<FoodPost>> future = new CompletableFuture<>();
+
+        Query query = databaseReference.obtain().orderByChild("category");
+        if (afterKey == null) {
+            query = query.equalTo(category).limitToFirst(size + 1);
+        } else {
+            // startAt is inclusive of the cursor key, so fetch one extra and drop it
+            query = query.startAt(category, afterKey).endAt(category).limitToFirst(size + 2);
+        }
+        query.addListenerForSingleValueEvent(postListListener(future));
+
+        return call.track(withTimeout(future, readTimeout, "Error fetching posts page"), PayloadSizes::ofPosts)
+                .thenApply(posts -> {
+                    List<FoodPost> page = new ArrayList<>(posts);
+                    if (afterKey != null && !page.isEmpty() && afterKey.equals(page.get(0).getId())) {
+                        page.remove(0);
                     }
+                    return toPage(page, size, category);
                 });
+    }
 
-        try {
-            return future.get();
-        } catch (Exception e) {
-            throw new RuntimeException("Error fetching posts by category", e);
+    @Override
+    public CompletableFuture<List<FoodPost>> getAllPosts() {
+        PostReplica replica = readyReplica();
+        if (replica != null) {
+            return CompletableFuture.completedFuture(replica.getAllPosts());
         }
+
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.REALTIME_DB, "posts.all");
+        CompletableFuture<List<FoodPost>> future = new CompletableFuture<>();
+
+        databaseReference.obtain().addListenerForSingleValueEvent(postListListener(future));
+
+        return call.track(withTimeout(future, readTimeout, "Error fetching posts"), PayloadSizes::ofPosts)
+                .thenApply(posts -> recentWrites.overlay(posts, null));
     }
 
-    public FoodPost getPostById(String id) {
+    @Override
+    public CompletableFuture<FoodPost> getPostById(String id) {
+        PostReplica replica = readyReplica();
+        if (replica != null) {
+            FoodPost post = replica.getPostById(id);
+            return post != null
+                    ? CompletableFuture.completedFuture(post)
+                    : CompletableFuture.failedFuture(new PostNotFoundException(id));
+        }
+
+        RecentPostWrites.Entry recent = recentWrites.lookup(id);
+        if (recent != null) {
+            return recent.post() != null
+                    ? CompletableFuture.completedFuture(recent.post())
+                    : CompletableFuture.failedFuture(new PostNotFoundException(id));
+        }
+
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.REALTIME_DB, "posts.byId");
         CompletableFuture<FoodPost> future = new CompletableFuture<>();
 
-        databaseReference.child(id).addListenerForSingleValueEvent(new ValueEventListener() {
+        databaseReference.obtain().child(id).addListenerForSingleValueEvent(new ValueEventListener() {
             @Override
             public void onDataChange(DataSnapshot snapshot) {
+                // A missing post is a successful read; it becomes an error after being measured
                 FoodPost post = snapshot.getValue(FoodPost.class);
-                if (post == null) {
-                    future.completeExceptionally(new RuntimeException("Post not found with id: " + id));
-                } else {
+                if (post != null) {
                     post.setId(snapshot.getKey());
-                    future.complete(post);
                 }
+                future.complete(post);
             }
 
             @Override
@@ -99,28 +228,200 @@ public class FirebaseService {
             }
         });
 
-        try {
-            return future.get();
-        } catch (Exception e) {
-            throw new RuntimeException("Error fetching post by id", e);
-        }
+        return call.track(withTimeout(future, readTimeout, "Error fetching post by id"), PayloadSizes::of)
+                .thenCompose(post -> post != null
+                        ? CompletableFuture.completedFuture(post)
+                        : CompletableFuture.failedFuture(new PostNotFoundException(id)));
     }
 
-    public void deletePost(String id) {
+    @Override
+    public CompletableFuture<Void> deletePost(String id) {
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.REALTIME_DB, "posts.delete");
         CompletableFuture<Void> future = new CompletableFuture<>();
 
-        databaseReference.child(id).removeValue((error, ref) -> {
+        databaseReference.obtain().child(id).removeValue((error, ref) -> {
             if (error != null) {
                 future.completeExceptionally(new RuntimeException("Failed to delete post: " + error.getMessage()));
             } else {
+                recentWrites.recordDelete(id);
                 future.complete(null);
             }
         });
 
+        return call.track(withTimeout(future, deleteTimeout, "Error deleting post"));
+    }
+
+    /**
+     * Checks the version and writes the changed fields together in one
+     * transaction on the post node, so no other write can land between the
+     * check and the update, and a post deleted meanwhile is not recreated.
+     * Posts written before versioning have no version child and count as
+     * version 0.
+     */
+    @Override
+    public CompletableFuture<Void> patchPost(FoodPost updated, long expectedVersion, Map<String, Object> changes) {
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.REALTIME_DB, "posts.patch");
+        String id = updated.getId();
+        DatabaseReference post = databaseReference.obtain().child(id);
+        CompletableFuture<Void> future = new CompletableFuture<>();
+
+        post.runTransaction(new Transaction.Handler() {
+            @Override
+            public Transaction.Result doTransaction(MutableData currentData) {
+                if (currentData.getValue() == null) {
+                    // Local cache may be empty on the first attempt; committing nothing lets the server decide
+                    return Transaction.success(currentData);
+                }
+                Long current = currentData.child("version").getValue(Long.class);
+                if ((current != null ? current : 0) != expectedVersion) {
+                    return Transaction.abort();
+                }
+                changes.forEach((field, value) -> currentData.child(field).setValue(value));
+                currentData.child("version").setValue(expectedVersion + 1);
+                return Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                if (error != null) {
+                    future.completeExceptionally(new RuntimeException("Failed to update post: " + error.getMessage()));
+                } else if (snapshot == null || !snapshot.exists()) {
+                    future.completeExceptionally(new PostNotFoundException(id));
+                } else if (!committed) {
+                    future.completeExceptionally(new VersionConflictException(id, expectedVersion));
+                } else {
+                    recentWrites.recordWrite(updated);
+                    future.complete(null);
+                }
+            }
+        });
+
+        return call.track(withTimeout(future, writeTimeout, "Error updating post"));
+    }
+
+    /**
+     * Records derivatives on a post, but only if its media is still
+     * {@code mediaUrls}; resolves to false when the post was deleted or its
+     * media replaced in the meantime.
+     */
+    @Override
+    public CompletableFuture<Boolean> setMediaVariants(String id, List<String> mediaUrls, List<MediaVariants> variants) {
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.REALTIME_DB, "posts.setMediaVariants");
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        databaseReference.obtain().child(id).runTransaction(new Transaction.Handler() {
+            @Override
+            public Transaction.Result doTransaction(MutableData currentData) {
+                FoodPost current = currentData.getValue(FoodPost.class);
+                if (current == null) {
+                    // Local cache may be empty on the first attempt; let the server decide
+                    return Transaction.success(currentData);
+                }
+                if (!Objects.equals(current.getMediaUrls(), mediaUrls)) {
+                    return Transaction.abort();
+                }
+                currentData.child("mediaVariants").setValue(variants);
+                return Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                if (error != null) {
+                    future.completeExceptionally(new RuntimeException("Failed to save media variants: " + error.getMessage()));
+                    return;
+                }
+                FoodPost post = snapshot != null ? snapshot.getValue(FoodPost.class) : null;
+                boolean applied = committed && post != null && MediaVariants.isCurrent(post.getMediaUrls(), post.getMediaVariants())
+                        && Objects.equals(post.getMediaUrls(), mediaUrls);
+                if (applied) {
+                    post.setId(snapshot.getKey());
+                    recentWrites.recordWrite(post);
+                }
+                future.complete(applied);
+            }
+        });
+
+        return call.track(withTimeout(future, writeTimeout, "Error saving media variants"));
+    }
+
+    @Override
+    public CompletableFuture<Void> deletePosts(List<String> ids) {
+        DataStoreMetrics.Call call = metrics.start(DataStoreMetrics.REALTIME_DB, "posts.deleteBatch");
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Map<String, Object> updates = new HashMap<>();
+        for (String id : ids) {
+            updates.put(id, null);
+        }
+
         try {
-            future.get();
-        } catch (Exception e) {
-            throw new RuntimeException("Error deleting post", e);
+            databaseReference.obtain().updateChildren(updates, (error, ref) -> {
+                if (error != null) {
+                    future.completeExceptionally(new RuntimeException("Failed to delete posts: " + error.getMessage(), error.toException()));
+                } else {
+                    ids.forEach(recentWrites::recordDelete);
+                    future.complete(null);
+                }
+            });
+        } catch (DatabaseException e) {
+            future.completeExceptionally(new PermanentWriteException("Failed to delete posts: " + e.getMessage(), e));
+        }
+
+        return call.track(withTimeout(future, deleteTimeout, "Error deleting posts"));
+    }
+
+    /**
+     * True when reads are answered from the live {@link PostReplica}, which makes
+     * an additional read cache in front of this service redundant.
+     */
+    @Override
+    public boolean servesFromReplica() {
+        return readyReplica() != null;
+    }
+
+    private PostReplica readyReplica() {
+        PostReplica replica = replicaProvider.getIfAvailable();
+        return replica != null && replica.isReady() ? replica : null;
+    }
+
+    /**
+     * Trims a result fetched with one look-ahead item to {@code size}, deriving
+     * the next cursor from the look-ahead.
+     */
+    private PostPage toPage(List<FoodPost> posts, int size, String category) {
+        List<FoodPost> page = posts;
+        String nextCursor = null;
+        if (page.size() > size) {
+            page = new ArrayList<>(page.subList(0, size));
+            nextCursor = PostCursors.encode(page.get(size - 1).getId());
         }
+        return new PostPage(recentWrites.refresh(page, category), nextCursor);
+    }
+
+    private ValueEventListener postListListener(CompletableFuture<List<FoodPost>> future) {
+        return new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                List<FoodPost> posts = new ArrayList<>();
+                for (DataSnapshot dataSnapshot : snapshot.getChildren()) {
+                    FoodPost post = dataSnapshot.getValue(FoodPost.class);
+                    if (post != null) {
+                        post.setId(dataSnapshot.getKey());
+                        posts.add(post);
+                    }
+                }
+                future.complete(posts);
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                future.completeExceptionally(new RuntimeException("Failed to fetch posts: " + error.getMessage()));
+            }
+        };
+    }
+
+    private static <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, Duration timeout, String message) {
+        return future.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionallyCompose(e -> CompletableFuture.failedFuture(
+                        new RuntimeException(message + ": " + e.getMessage(), e)));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,198 @@
+package com.foodgallery.service;
+
+import com.foodgallery.config.FirebaseClients;
+import com.foodgallery.model.StoredMedia;
+import com.google.cloud.ReadChannel;
+import com.google.cloud.WriteChannel;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Bucket;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+@ConditionalOnProperty(name = "media.storage.type", havingValue = "firebase", matchIfMissing = true)
+public class FirebaseStorageMediaStore implements MediaStore {
+
+    private static final String PREFIX = "media/";
+    // Uploads land here first, since the content-addressed name is only known once they are hashed
+    private static final String UPLOAD_PREFIX = "uploads/";
+    private static final String SHA256 = "sha256";
+    // Reference counts are kept in blob metadata and updated with metageneration preconditions
+    private static final String REFERENCES = "references";
+    private static final int PRECONDITION_FAILED = 412;
+    private static final int MAX_REFERENCE_ATTEMPTS = 5;
+    // Resumable uploads buffer one chunk client-side; GCS requires multiples of 256 KiB.
+    private static final int UPLOAD_CHUNK_GRANULARITY = 256 * 1024;
+
+    private final int chunkSize;
+
+    @Autowired
+    private FirebaseClients firebaseClients;
+
+    public FirebaseStorageMediaStore(@Value("${media.upload.chunk-size:64KB}") DataSize chunkSize) {
+        this.chunkSize = (int) chunkSize.toBytes();
+    }
+
+    @Override
+    public StoredMedia store(InputStream content, String contentType) throws IOException {
+        Bucket bucket = bucket();
+        Storage storage = bucket.getStorage();
+        BlobId upload = BlobId.of(bucket.getName(), UPLOAD_PREFIX + UUID.randomUUID());
+        MediaStreams.CopyResult copied;
+        try (WriteChannel writer = storage.writer(BlobInfo.newBuilder(upload).setContentType(contentType).build())) {
+            writer.setChunkSize(Math.max(UPLOAD_CHUNK_GRANULARITY,
+                    (chunkSize / UPLOAD_CHUNK_GRANULARITY) * UPLOAD_CHUNK_GRANULARITY));
+            copied = MediaStreams.copy(content, writer, chunkSize);
+        }
+        String id = MediaIds.forContent(copied.sha256(), contentType);
+        try {
+            Optional<StoredMedia> existing = addReference(id);
+            if (existing.isPresent()) {
+                return existing.get();
+            }
+            BlobInfo target = BlobInfo.newBuilder(bucket.getName(), PREFIX + id)
+                    .setContentType(contentType)
+                    .setMetadata(Map.of(SHA256, copied.sha256(), REFERENCES, "1"))
+                    .build();
+            try {
+                // Server-side copy; doesNotExist() makes concurrent uploads of the same content race safely
+                Blob blob = storage.copy(Storage.CopyRequest.newBuilder()
+                        .setSource(upload)
+                        .setTarget(target, Storage.BlobTargetOption.doesNotExist())
+                        .build()).getResult();
+                return toStoredMedia(id, blob);
+            } catch (StorageException e) {
+                if (e.getCode() != PRECONDITION_FAILED) {
+                    throw e;
+                }
+                return addReference(id).orElseThrow(() -> new IOException("Media disappeared while storing: " + id));
+            }
+        } finally {
+            storage.delete(upload);
+        }
+    }
+
+    @Override
+    public Optional<StoredMedia> retain(String sha256, String contentType) {
+        return addReference(MediaIds.forContent(sha256, contentType));
+    }
+
+    @Override
+    public Optional<StoredMedia> describe(String id) {
+        if (!MediaIds.isValid(id)) {
+            return Optional.empty();
+        }
+        Blob blob = bucket().get(PREFIX + id);
+        if (blob == null) {
+            return Optional.empty();
+        }
+        return Optional.of(toStoredMedia(id, blob));
+    }
+
+    @Override
+    public InputStream open(String id) throws IOException {
+        return open(id, 0);
+    }
+
+    /**
+     * Seeks the download channel, so a range request only fetches the bytes it needs.
+     */
+    @Override
+    public InputStream open(String id, long offset) throws IOException {
+        Blob blob = MediaIds.isValid(id) ? bucket().get(PREFIX + id) : null;
+        if (blob == null) {
+            throw new IOException("Media not found: " + id);
+        }
+        ReadChannel reader = blob.reader();
+        if (offset > 0) {
+            reader.seek(offset);
+        }
+        return Channels.newInputStream(reader);
+    }
+
+    @Override
+    public boolean release(String id) {
+        if (!MediaIds.isValid(id)) {
+            return false;
+        }
+        for (int attempt = 0; attempt < MAX_REFERENCE_ATTEMPTS; attempt++) {
+            Blob blob = bucket().get(PREFIX + id);
+            if (blob == null) {
+                return false;
+            }
+            long references = references(blob);
+            try {
+                if (references <= 1) {
+                    blob.delete(Blob.BlobSourceOption.metagenerationMatch());
+                } else {
+                    withReferences(blob, references - 1).update(Storage.BlobTargetOption.metagenerationMatch());
+                }
+                return true;
+            } catch (StorageException e) {
+                if (e.getCode() != PRECONDITION_FAILED) {
+                    throw e;
+                }
+            }
+        }
+        throw new RuntimeException("Could not release media " + id + ": too many concurrent updates");
+    }
+
+    private Optional<StoredMedia> addReference(String id) {
+        for (int attempt = 0; attempt < MAX_REFERENCE_ATTEMPTS; attempt++) {
+            Blob blob = bucket().get(PREFIX + id);
+            if (blob == null) {
+                return Optional.empty();
+            }
+            try {
+                Blob updated = withReferences(blob, references(blob) + 1)
+                        .update(Storage.BlobTargetOption.metagenerationMatch());
+                return Optional.of(toStoredMedia(id, updated));
+            } catch (StorageException e) {
+                if (e.getCode() != PRECONDITION_FAILED) {
+                    throw e;
+                }
+            }
+        }
+        throw new RuntimeException("Could not retain media " + id + ": too many concurrent updates");
+    }
+
+    private static Blob withReferences(Blob blob, long references) {
+        Map<String, String> metadata = blob.getMetadata() != null ? new HashMap<>(blob.getMetadata()) : new HashMap<>();
+        metadata.put(REFERENCES, Long.toString(references));
+        return blob.toBuilder().setMetadata(metadata).build();
+    }
+
+    // Media stored before reference counting has a single owner
+    private static long references(Blob blob) {
+        Map<String, String> metadata = blob.getMetadata();
+        String references = metadata != null ? metadata.get(REFERENCES) : null;
+        return references != null ? Long.parseLong(references) : 1;
+    }
+
+    private Bucket bucket() {
+        return firebaseClients.bucket();
+    }
+
+    private static StoredMedia toStoredMedia(String id, Blob blob) {
+        Map<String, String> metadata = blob.getMetadata();
+        OffsetDateTime created = blob.getCreateTimeOffsetDateTime();
+        return new StoredMedia(id, blob.getContentType(), blob.getSize(), metadata != null ? metadata.get(SHA256) : null,
+                created != null ? created.toInstant().toEpochMilli() : 0L, references(blob));
+    }
+}
@@ -1,30 +1,341 @@
 package com.foodgallery.service;
 
+import com.foodgallery.model.BatchItemResult;
 import com.foodgallery.model.FoodPost;
+import com.foodgallery.model.MediaVariants;
+import com.foodgallery.model.PostPage;
+import com.foodgallery.model.PostPatch;
+import com.foodgallery.repository.VersionConflictException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
 
 @Service
 public class FoodPostService {
 
+    private static final Logger logger = LoggerFactory.getLogger(FoodPostService.class);
+
+    @Autowired
+    private PostStore postStore;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private ReadCaches readCaches;
+
+    @Autowired
+    private MediaDerivativeService mediaDerivativeService;
+
     @Autowired
-    private FirebaseService firebaseService;
+    private SearchIndex searchIndex;
+
+    @Value("${batch.chunk-size:500}")
+    private int batchChunkSize;
+
+    public CompletableFuture<FoodPost> createPost(FoodPost foodPost) {
+        return postStore.createPost(foodPost).thenApply(saved -> {
+            readCaches.postsById().put(saved.getId(), CompletableFuture.completedFuture(saved));
+            // The category may have changed, so every list could be affected
+            readCaches.postsByCategory().synchronous().invalidateAll();
+            searchIndex.indexPost(saved);
+            scheduleDerivatives(saved);
+            return saved;
+        });
+    }
+
+    /**
+     * Cached lists are shared between callers and must not be modified.
+     */
+    public CompletableFuture<List<FoodPost>> getPostsByCategory(String category) {
+        if (postStore.servesFromReplica()) {
+            return postStore.getPostsByCategory(category);
+        }
+        return readCaches.postsByCategory().get(category, (key, executor) -> postStore.getPostsByCategory(key));
+    }
+
+    public CompletableFuture<PostPage> getPostsPage(String category, String cursor, int size) {
+        return postStore.getPostsPage(category, cursor, size);
+    }
+
+    /**
+     * Cached posts are shared between callers; copy before modifying.
+     */
+    public CompletableFuture<FoodPost> getPostById(String id) {
+        if (postStore.servesFromReplica()) {
+            return postStore.getPostById(id);
+        }
+        return readCaches.postsById().get(id, (key, executor) -> postStore.getPostById(key));
+    }
+
+    /**
+     * Applies {@code patch} to the current post and writes only the fields it
+     * changes. Media the patch removes is released, along with its derivatives,
+     * once the update has been written.
+     */
+    public CompletableFuture<FoodPost> patchPost(String id, PostPatch patch) {
+        // Read from the store rather than the cache: the patch must apply to the current version
+        return postStore.getPostById(id).thenCompose(current -> {
+            long expectedVersion = patch.getVersion() != null ? patch.getVersion() : current.getVersion();
+            if (expectedVersion != current.getVersion()) {
+                return CompletableFuture.failedFuture(new VersionConflictException(id, expectedVersion));
+            }
+            FoodPost updated = patch.applyTo(current);
+            Map<String, Object> changes = PostPatch.changes(current, updated);
+            if (changes.isEmpty()) {
+                return CompletableFuture.completedFuture(current);
+            }
+            updated.setVersion(expectedVersion + 1);
+            return postStore.patchPost(updated, expectedVersion, changes).thenApply(v -> {
+                readCaches.postsById().put(id, CompletableFuture.completedFuture(updated));
+                readCaches.postsByCategory().synchronous().invalidateAll();
+                searchIndex.indexPost(updated);
+                scheduleDerivatives(updated);
+                // What the post held before, less what it still holds
+                List<String> removed = MediaVariants.edit(current.getMediaUrls(), null, updated.getMediaUrls());
+                List<String> droppedDerivatives = MediaVariants.derivativesOf(
+                        MediaVariants.dropped(current.getMediaVariants(), updated.getMediaUrls()));
+                fileStorageService.deleteFilesAsync(removed);
+                fileStorageService.deleteFilesAsync(droppedDerivatives);
+                return updated;
+            });
+        });
+    }
+
+    /**
+     * Replaces the title and description, and the media with {@code mediaUrls}
+     * unless it is null, through the same version-checked write as
+     * {@link #patchPost}; {@code mediaUrls} are references the caller has just
+     * stored. Once the write has won, the references the post held before are
+     * released, with the derivatives it no longer needs. When it loses nothing
+     * is released, and the caller still owns {@code mediaUrls}.
+     */
+    public CompletableFuture<FoodPost> replacePost(String id, String title, String description,
+                                                   List<String> mediaUrls, Long version) {
+        return postStore.getPostById(id).thenCompose(current -> {
+            long expectedVersion = version != null ? version : current.getVersion();
+            if (expectedVersion != current.getVersion()) {
+                return CompletableFuture.failedFuture(new VersionConflictException(id, expectedVersion));
+            }
+            FoodPost updated = current.copy();
+            updated.setTitle(title);
+            updated.setDescription(description);
+            if (mediaUrls != null) {
+                updated.setMediaUrls(mediaUrls);
+                updated.setMediaVariants(MediaVariants.retained(current.getMediaVariants(), mediaUrls));
+            }
+            Map<String, Object> changes = PostPatch.changes(current, updated);
+            if (changes.isEmpty()) {
+                // The same files again: the post keeps the references it holds
+                fileStorageService.deleteFilesAsync(mediaUrls);
+                return CompletableFuture.completedFuture(current);
+            }
+            updated.setVersion(expectedVersion + 1);
+            return postStore.patchPost(updated, expectedVersion, changes).thenApply(v -> {
+                readCaches.postsById().put(id, CompletableFuture.completedFuture(updated));
+                readCaches.postsByCategory().synchronous().invalidateAll();
+                searchIndex.indexPost(updated);
+                scheduleDerivatives(updated);
+                if (mediaUrls != null) {
+                    fileStorageService.deleteFilesAsync(current.getMediaUrls());
+                    fileStorageService.deleteFilesAsync(MediaVariants.derivativesOf(
+                            MediaVariants.dropped(current.getMediaVariants(), mediaUrls)));
+                }
+                return updated;
+            });
+        });
+    }
+
+    public CompletableFuture<List<FoodPost>> getAllPosts() {
+        return postStore.getAllPosts();
+    }
+
+    /**
+     * Deleting a post that does not exist succeeds, as deletes are idempotent.
+     */
+    public CompletableFuture<Void> deletePost(String id) {
+        // Read from the store rather than the cache: what is released must be what is deleted
+        return postStore.getPostById(id)
+                .thenCompose(post -> postStore.deletePost(id)
+                        .whenComplete((v, e) -> {
+                            invalidate(id);
+                            if (e == null) {
+                                searchIndex.removePost(id);
+                            }
+                        })
+                        .thenRun(() -> releaseMediaAsync(post)))
+                .exceptionallyCompose(e -> PostNotFoundException.isCause(e)
+                        ? CompletableFuture.completedFuture(null)
+                        : CompletableFuture.failedFuture(e));
+    }
+
+    /**
+     * Validates and writes posts in chunks of {@code batch.chunk-size}; each chunk
+     * is one atomic multi-location update, and chunks are written concurrently.
+     * Stored media is only attached through uploads, so posts referencing it are
+     * rejected, and derivatives sent by the client are discarded.
+     */
+    public CompletableFuture<List<BatchItemResult<FoodPost>>> createPosts(List<FoodPost> foodPosts) {
+        List<BatchItemResult<FoodPost>> results = new ArrayList<>(Collections.nCopies(foodPosts.size(), null));
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < foodPosts.size(); i++) {
+            FoodPost post = foodPosts.get(i);
+            if (post == null || isBlank(post.getTitle()) || isBlank(post.getDescription())) {
+                results.set(i, BatchItemResult.failed(post != null ? post.getId() : null,
+                        BatchItemResult.Status.INVALID, "Title and description are required"));
+            } else if (FileStorageService.referencesStoredMedia(post.getMediaUrls())) {
+                results.set(i, BatchItemResult.failed(post.getId(),
+                        BatchItemResult.Status.INVALID, "Media must be uploaded, not referenced"));
+            } else {
+                post.setMediaVariants(null);
+                valid.add(i);
+            }
+        }
+
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int start = 0; start < valid.size(); start += batchChunkSize) {
+            List<Integer> indexes = valid.subList(start, Math.min(start + batchChunkSize, valid.size()));
+            List<FoodPost> chunk = new ArrayList<>(indexes.size());
+            indexes.forEach(i -> chunk.add(foodPosts.get(i)));
+            chunks.add(postStore.createPosts(chunk).handle((saved, e) -> {
+                for (int i : indexes) {
+                    FoodPost post = foodPosts.get(i);
+                    results.set(i, e == null
+                            ? BatchItemResult.ok(post.getId(), post)
+                            : BatchItemResult.failed(post.getId(), BatchItemResult.Status.FAILED, e.getMessage()));
+                }
+                return null;
+            }));
+        }
+
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            for (BatchItemResult<FoodPost> result : results) {
+                if (result.getStatus() == BatchItemResult.Status.OK) {
+                    readCaches.postsById().put(result.getId(), CompletableFuture.completedFuture(result.getItem()));
+                    searchIndex.indexPost(result.getItem());
+                    scheduleDerivatives(result.getItem());
+                }
+            }
+            readCaches.postsByCategory().synchronous().invalidateAll();
+            return results;
+        });
+    }
+
+    /**
+     * Fetches all ids concurrently; missing posts are reported as NOT_FOUND.
+     */
+    public CompletableFuture<List<BatchItemResult<FoodPost>>> getPosts(List<String> ids) {
+        List<CompletableFuture<BatchItemResult<FoodPost>>> lookups = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            lookups.add(getPostById(id).handle((post, e) -> {
+                if (e == null) {
+                    return BatchItemResult.ok(id, post);
+                }
+                return PostNotFoundException.isCause(e)
+                        ? BatchItemResult.failed(id, BatchItemResult.Status.NOT_FOUND, e.getMessage())
+                        : BatchItemResult.failed(id, BatchItemResult.Status.FAILED, e.getMessage());
+            }));
+        }
+        return CompletableFuture.allOf(lookups.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> lookups.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+    }
+
+    /**
+     * Deletes the posts that exist in chunked multi-location updates and then
+     * releases their media.
+     */
+    public CompletableFuture<List<BatchItemResult<FoodPost>>> deletePosts(List<String> ids) {
+        return getPosts(ids).thenCompose(lookups -> {
+            List<BatchItemResult<FoodPost>> found = lookups.stream()
+                    .filter(result -> result.getStatus() == BatchItemResult.Status.OK)
+                    .collect(Collectors.toList());
+
+            List<CompletableFuture<Void>> chunks = new ArrayList<>();
+            for (int start = 0; start < found.size(); start += batchChunkSize) {
+                List<BatchItemResult<FoodPost>> chunk = found.subList(start, Math.min(start + batchChunkSize, found.size()));
+                List<String> chunkIds = chunk.stream().map(BatchItemResult::getId).collect(Collectors.toList());
+                chunks.add(postStore.deletePosts(chunkIds).handle((v, e) -> {
+                    for (BatchItemResult<FoodPost> result : chunk) {
+                        if (e == null) {
+                            releaseMediaAsync(result.getItem());
+                        } else {
+                            result.setStatus(BatchItemResult.Status.FAILED);
+                            result.setError(e.getMessage());
+                        }
+                        result.setItem(null);
+                    }
+                    return null;
+                }));
+            }
+
+            return CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+                for (BatchItemResult<FoodPost> result : found) {
+                    readCaches.postsById().synchronous().invalidate(result.getId());
+                    if (result.getStatus() == BatchItemResult.Status.OK) {
+                        searchIndex.removePost(result.getId());
+                    }
+                }
+                readCaches.postsByCategory().synchronous().invalidateAll();
+                return lookups;
+            });
+        });
+    }
 
-    public FoodPost createPost(FoodPost foodPost) {
-        return firebaseService.createPost(foodPost);
+    /**
+     * Deletes a post's media and any derivatives generated from it, in the background.
+     */
+    public void releaseMediaAsync(FoodPost post) {
+        fileStorageService.deleteFilesAsync(post.getMediaUrls());
+        fileStorageService.deleteFilesAsync(MediaVariants.derivativesOf(post.getMediaVariants()));
     }
 
-    public List<FoodPost> getPostsByCategory(String category) {
-        return firebaseService.getPostsByCategory(category);
+    /**
+     * Generates derivatives in the background and records them on the post,
+     * unless its media has been replaced by the time they are ready.
+     */
+    private void scheduleDerivatives(FoodPost post) {
+        List<String> mediaUrls = post.getMediaUrls();
+        List<MediaVariants> existing = post.getMediaVariants();
+        if (MediaVariants.isCurrent(mediaUrls, existing)) {
+            return;
+        }
+        try {
+            // Only media without derivatives is processed, e.g. what a patch added
+            mediaDerivativeService.generate(MediaVariants.missing(mediaUrls, existing))
+                    .thenCompose(generated -> postStore.setMediaVariants(post.getId(), mediaUrls,
+                                    MediaVariants.merge(mediaUrls, existing, generated))
+                            .thenAccept(applied -> {
+                                if (applied) {
+                                    invalidate(post.getId());
+                                } else {
+                                    fileStorageService.deleteFilesAsync(MediaVariants.derivativesOf(generated));
+                                }
+                            }))
+                    .exceptionally(e -> {
+                        logger.warn("Failed to record media derivatives for post id={}: {}", post.getId(), e.getMessage());
+                        return null;
+                    });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Derivative queue full; skipping derivatives for post id={}", post.getId());
+        }
     }
 
-    public FoodPost getPostById(String id) {
-        return firebaseService.getPostById(id);
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
     }
 
-    public void deletePost(String id) {
-        firebaseService.deletePost(id);
+    private void invalidate(String id) {
+        readCaches.postsById().synchronous().invalidate(id);
+        readCaches.postsByCategory().synchronous().invalidateAll();
     }
-}
\ No newline at end of file
+}
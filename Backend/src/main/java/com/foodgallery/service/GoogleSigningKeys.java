@@ -0,0 +1,146 @@
+package com.foodgallery.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.PublicKey;
+import java.security.cert.CertificateFactory;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Google's published certificates for Firebase ID tokens, held in memory and
+ * refreshed in the background when the {@code Cache-Control} max-age of the
+ * last response runs out. Lookups never touch the network. An unknown key id
+ * triggers an early refresh, at most once per {@link #MIN_REFRESH_INTERVAL},
+ * in case the keys were rotated ahead of schedule.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.enabled", havingValue = "true")
+public class GoogleSigningKeys implements SigningKeys {
+
+    private static final Logger logger = LoggerFactory.getLogger(GoogleSigningKeys.class);
+
+    private static final Duration DEFAULT_MAX_AGE = Duration.ofHours(1);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+    private static final Duration MIN_REFRESH_INTERVAL = Duration.ofSeconds(30);
+    private static final Duration FETCH_TIMEOUT = Duration.ofSeconds(10);
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+
+    private final URI keysUri;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Every refresh runs on this one thread, so refreshes never overlap
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "signing-keys-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong lastAttempt = new AtomicLong();
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private ScheduledFuture<?> nextRefresh;
+
+    public GoogleSigningKeys(@Value("${auth.public-keys-url}") String keysUrl) {
+        this.keysUri = URI.create(keysUrl);
+    }
+
+    /**
+     * Loads the keys before the application takes traffic, so the first
+     * authenticated request does not wait for them.
+     */
+    @PostConstruct
+    public void start() {
+        try {
+            scheduler.submit(this::refresh).get(FETCH_TIMEOUT.toMillis() + 5_000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Token signing keys not loaded at startup: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public PublicKey find(String keyId) {
+        PublicKey key = keys.get(keyId);
+        if (key == null) {
+            long now = System.nanoTime();
+            long last = lastAttempt.get();
+            if (now - last >= MIN_REFRESH_INTERVAL.toNanos() && lastAttempt.compareAndSet(last, now)) {
+                scheduler.execute(this::refresh);
+            }
+        }
+        return key;
+    }
+
+    private void refresh() {
+        lastAttempt.set(System.nanoTime());
+        Duration delay;
+        try {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(keysUri).timeout(FETCH_TIMEOUT).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IOException("HTTP " + response.statusCode());
+            }
+            Map<String, String> certificates = objectMapper.readValue(response.body(), new TypeReference<Map<String, String>>() {
+            });
+            CertificateFactory factory = CertificateFactory.getInstance("X.509");
+            Map<String, PublicKey> loaded = new HashMap<>();
+            for (Map.Entry<String, String> certificate : certificates.entrySet()) {
+                loaded.put(certificate.getKey(), factory.generateCertificate(
+                        new ByteArrayInputStream(certificate.getValue().getBytes(StandardCharsets.US_ASCII))).getPublicKey());
+            }
+            keys = Map.copyOf(loaded);
+            delay = maxAge(response).orElse(DEFAULT_MAX_AGE);
+            logger.info("Loaded {} token signing keys; next refresh in {}", loaded.size(), delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            // Keep the current keys; they stay valid well past their max-age
+            logger.warn("Failed to refresh token signing keys: {}", e.getMessage());
+            delay = RETRY_DELAY;
+        }
+        if (nextRefresh != null) {
+            nextRefresh.cancel(false);
+        }
+        nextRefresh = scheduler.schedule(this::refresh, delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static Optional<Duration> maxAge(HttpResponse<?> response) {
+        return response.headers().firstValue("Cache-Control")
+                .map(MAX_AGE::matcher)
+                .filter(Matcher::find)
+                .map(matcher -> Duration.ofSeconds(Long.parseLong(matcher.group(1))));
+    }
+}
@@ -0,0 +1,176 @@
+package com.foodgallery.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Verifies Firebase ID tokens locally: RS256 signature against
+ * {@link SigningKeys}, then audience, issuer, expiry and subject as described
+ * in the Firebase "verify ID tokens using a third-party JWT library" guide.
+ * Verified tokens are cached, keyed by a SHA-256 of the token, until they
+ * expire, so repeat requests with the same token skip the RSA check.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.enabled", havingValue = "true")
+public class IdTokenVerifier {
+
+    private static final Base64.Decoder BASE64URL = Base64.getUrlDecoder();
+    private static final Base64.Encoder CACHE_KEY = Base64.getEncoder().withoutPadding();
+
+    private final SigningKeys signingKeys;
+    private final String projectId;
+    private final String issuer;
+    private final Duration clockSkew;
+    private final Clock clock;
+    private final Cache<String, VerifiedToken> verified;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    public IdTokenVerifier(SigningKeys signingKeys, MeterRegistry meterRegistry,
+                           @Value("${auth.project-id}") String projectId,
+                           @Value("${auth.clock-skew:60s}") Duration clockSkew,
+                           @Value("${auth.token-cache.max-size:10000}") long cacheSize) {
+        this(signingKeys, projectId, clockSkew, cacheSize, Clock.systemUTC());
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "auth.tokens", Tags.empty());
+    }
+
+    IdTokenVerifier(SigningKeys signingKeys, String projectId, Duration clockSkew, long cacheSize, Clock clock) {
+        this.signingKeys = signingKeys;
+        this.projectId = projectId;
+        this.issuer = "https://securetoken.google.com/" + projectId;
+        this.clockSkew = clockSkew;
+        this.clock = clock;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    // A token is cached until it expires, and reading it does not extend that
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        Duration remaining = Duration.between(clock.instant(), token.expiresAt().plus(clockSkew));
+                        return remaining.isNegative() ? 0 : remaining.toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the token's claims, or throws {@link InvalidTokenException} if
+     * it is malformed, not signed by a current key, expired, or issued for
+     * another project.
+     */
+    public VerifiedToken verify(String token) {
+        String key = cacheKey(token);
+        VerifiedToken cached = verified.getIfPresent(key);
+        // Expiry in the cache is approximate; the exact check is cheap
+        if (cached != null && clock.instant().isBefore(cached.expiresAt().plus(clockSkew))) {
+            return cached;
+        }
+        VerifiedToken fresh = verifyUncached(token);
+        verified.put(key, fresh);
+        return fresh;
+    }
+
+    private VerifiedToken verifyUncached(String token) {
+        String[] parts = token.split("\\.", -1);
+        if (parts.length != 3) {
+            throw new InvalidTokenException("Malformed token");
+        }
+        try {
+            JsonNode header = decode(parts[0]);
+            JsonNode claims = decode(parts[1]);
+            if (!"RS256".equals(header.path("alg").asText())) {
+                throw new InvalidTokenException("Unexpected signing algorithm");
+            }
+            String keyId = header.path("kid").asText("");
+            PublicKey key = keyId.isEmpty() ? null : signingKeys.find(keyId);
+            if (key == null) {
+                throw new InvalidTokenException("Unknown signing key");
+            }
+
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initVerify(key);
+            signature.update((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+            if (!signature.verify(BASE64URL.decode(parts[2]))) {
+                throw new InvalidTokenException("Invalid signature");
+            }
+
+            long now = clock.instant().getEpochSecond();
+            long skew = clockSkew.getSeconds();
+            long expiresAt = claims.path("exp").asLong(0);
+            if (expiresAt + skew <= now) {
+                throw new InvalidTokenException("Token expired");
+            }
+            if (claims.path("iat").asLong(Long.MAX_VALUE) > now + skew
+                    || claims.path("auth_time").asLong(Long.MAX_VALUE) > now + skew) {
+                throw new InvalidTokenException("Token issued in the future");
+            }
+            if (!projectId.equals(claims.path("aud").asText())) {
+                throw new InvalidTokenException("Token issued for another project");
+            }
+            if (!issuer.equals(claims.path("iss").asText())) {
+                throw new InvalidTokenException("Unexpected issuer");
+            }
+            String uid = claims.path("sub").asText("");
+            if (uid.isEmpty() || uid.length() > 128) {
+                throw new InvalidTokenException("Missing or invalid subject");
+            }
+            return new VerifiedToken(uid, text(claims, "email"), text(claims, "name"), text(claims, "picture"),
+                    Instant.ofEpochSecond(expiresAt));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new InvalidTokenException("Malformed token", e);
+        } catch (GeneralSecurityException e) {
+            throw new InvalidTokenException("Signature check failed", e);
+        }
+    }
+
+    private JsonNode decode(String part) throws IOException {
+        return objectMapper.readTree(BASE64URL.decode(part));
+    }
+
+    private static String text(JsonNode claims, String name) {
+        JsonNode value = claims.get(name);
+        return value != null && value.isTextual() ? value.asText() : null;
+    }
+
+    // Raw tokens are bearer credentials; keep only a digest of them in memory
+    private static String cacheKey(String token) {
+        try {
+            return CACHE_KEY.encodeToString(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
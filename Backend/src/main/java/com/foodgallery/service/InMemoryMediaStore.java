@@ -0,0 +1,110 @@
+package com.foodgallery.service;
+
+import com.foodgallery.model.StoredMedia;
+import com.foodgallery.repository.SimulatedLatency;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Media kept on the heap, for running the backend offline and under load tests
+ * ({@code media.storage.type=memory}). Stored bytes count towards heap usage,
+ * so load tests should upload small files. Every call goes through
+ * {@link SimulatedLatency}.
+ */
+@Service
+@ConditionalOnProperty(name = "media.storage.type", havingValue = "memory")
+public class InMemoryMediaStore implements MediaStore {
+
+    // Replaced rather than updated, so the media handed out is never changed afterwards
+    private record Blob(StoredMedia media, byte[] content) {
+    }
+
+    private final Map<String, Blob> blobs = new ConcurrentHashMap<>();
+    private final int chunkSize;
+    private final SimulatedLatency latency;
+
+    public InMemoryMediaStore(@Value("${media.upload.chunk-size:64KB}") DataSize chunkSize,
+                              @Value("${fake.media.latency:${fake.latency:0ms}}") Duration latency,
+                              @Value("${fake.media.latency-jitter:${fake.latency-jitter:0ms}}") Duration jitter,
+                              @Value("${fake.media.failure-rate:${fake.failure-rate:0}}") double failureRate) {
+        this.chunkSize = (int) chunkSize.toBytes();
+        this.latency = new SimulatedLatency("media", latency, jitter, failureRate);
+    }
+
+    @Override
+    public StoredMedia store(InputStream content, String contentType) throws IOException {
+        latency.pause("media.store");
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        MediaStreams.CopyResult copied = MediaStreams.copy(content, Channels.newChannel(buffer), chunkSize);
+        String id = MediaIds.forContent(copied.sha256(), contentType);
+        byte[] bytes = buffer.toByteArray();
+        return blobs.compute(id, (key, existing) -> existing != null
+                ? withReferences(existing, existing.media().getReferences() + 1)
+                : new Blob(new StoredMedia(id, contentType, copied.size(), copied.sha256(), System.currentTimeMillis(), 1), bytes))
+                .media();
+    }
+
+    @Override
+    public Optional<StoredMedia> retain(String sha256, String contentType) {
+        try {
+            latency.pause("media.retain");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not retain media " + sha256, e);
+        }
+        Blob retained = blobs.computeIfPresent(MediaIds.forContent(sha256, contentType),
+                (key, existing) -> withReferences(existing, existing.media().getReferences() + 1));
+        return Optional.ofNullable(retained).map(Blob::media);
+    }
+
+    @Override
+    public Optional<StoredMedia> describe(String id) {
+        Blob blob = blobs.get(id);
+        return Optional.ofNullable(blob).map(Blob::media);
+    }
+
+    @Override
+    public InputStream open(String id) throws IOException {
+        latency.pause("media.open");
+        Blob blob = blobs.get(id);
+        if (blob == null) {
+            throw new FileNotFoundException("No media with id " + id);
+        }
+        return new ByteArrayInputStream(blob.content());
+    }
+
+    @Override
+    public boolean release(String id) {
+        try {
+            latency.pause("media.release");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not release media " + id, e);
+        }
+        boolean[] released = new boolean[1];
+        blobs.computeIfPresent(id, (key, existing) -> {
+            released[0] = true;
+            long references = existing.media().getReferences();
+            return references > 1 ? withReferences(existing, references - 1) : null;
+        });
+        return released[0];
+    }
+
+    private static Blob withReferences(Blob blob, long references) {
+        StoredMedia media = blob.media();
+        return new Blob(new StoredMedia(media.getId(), media.getContentType(), media.getSize(), media.getSha256(),
+                media.getLastModified(), references), blob.content());
+    }
+}
@@ -0,0 +1,221 @@
+package com.foodgallery.service;
+
+import com.foodgallery.model.FoodPost;
+import com.foodgallery.model.MediaVariants;
+import com.foodgallery.model.PostPage;
+import com.foodgallery.repository.SimulatedLatency;
+import com.foodgallery.repository.VersionConflictException;
+import com.foodgallery.repository.WriteJournal;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Posts kept in memory instead of the Realtime Database, for running the
+ * backend offline and under load tests ({@code datastore.type=memory}).
+ * Results are ordered by key and paginated like the database, and every call
+ * goes through {@link SimulatedLatency}.
+ * <p>
+ * Posts are copied on the way in and out, so callers get fresh objects as they
+ * would from the database. Writes are serialized; reads see each post
+ * atomically through the concurrent maps.
+ */
+@Service
+@Qualifier(WriteJournal.BACKING_STORE)
+@ConditionalOnProperty(name = "datastore.type", havingValue = "memory")
+public class InMemoryPostStore implements PostStore {
+
+    private final NavigableMap<String, FoodPost> posts = new ConcurrentSkipListMap<>();
+    private final Map<String, NavigableMap<String, FoodPost>> byCategory = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final SimulatedLatency latency;
+
+    public InMemoryPostStore(@Value("${fake.posts.latency:${fake.latency:0ms}}") Duration latency,
+                             @Value("${fake.posts.latency-jitter:${fake.latency-jitter:0ms}}") Duration jitter,
+                             @Value("${fake.posts.failure-rate:${fake.failure-rate:0}}") double failureRate) {
+        this.latency = new SimulatedLatency("posts", latency, jitter, failureRate);
+    }
+
+    @Override
+    public CompletableFuture<FoodPost> createPost(FoodPost foodPost) {
+        return latency.call("posts.create", () -> {
+            put(foodPost);
+            return foodPost;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<FoodPost>> createPosts(List<FoodPost> foodPosts) {
+        return latency.call("posts.createBatch", () -> {
+            foodPosts.forEach(this::put);
+            return foodPosts;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<FoodPost>> getPostsByCategory(String category) {
+        return latency.call("posts.byCategory", () -> {
+            NavigableMap<String, FoodPost> index = byCategory.get(category);
+            return index != null ? detachAll(index.values(), Integer.MAX_VALUE) : new ArrayList<>();
+        });
+    }
+
+    @Override
+    public CompletableFuture<PostPage> getPostsPage(String category, String cursor, int size) {
+        String afterKey = PostCursors.decode(cursor);
+        return latency.call("posts.page", () -> {
+            NavigableMap<String, FoodPost> index = byCategory.get(category);
+            if (index == null) {
+                return new PostPage(new ArrayList<>(), null);
+            }
+            Collection<FoodPost> from = afterKey == null ? index.values() : index.tailMap(afterKey, false).values();
+            List<FoodPost> page = detachAll(from, size + 1);
+            String nextCursor = null;
+            if (page.size() > size) {
+                page = new ArrayList<>(page.subList(0, size));
+                nextCursor = PostCursors.encode(page.get(size - 1).getId());
+            }
+            return new PostPage(page, nextCursor);
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<FoodPost>> getAllPosts() {
+        return latency.call("posts.all", () -> detachAll(posts.values(), Integer.MAX_VALUE));
+    }
+
+    @Override
+    public CompletableFuture<FoodPost> getPostById(String id) {
+        return latency.call("posts.byId", () -> {
+            FoodPost post = posts.get(id);
+            return post != null ? detach(post) : null;
+        }).thenCompose(post -> post != null
+                ? CompletableFuture.completedFuture(post)
+                : CompletableFuture.failedFuture(new PostNotFoundException(id)));
+    }
+
+    @Override
+    public CompletableFuture<Void> deletePost(String id) {
+        return latency.call("posts.delete", () -> {
+            remove(id);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deletePosts(List<String> ids) {
+        return latency.call("posts.deleteBatch", () -> {
+            ids.forEach(this::remove);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> patchPost(FoodPost updated, long expectedVersion, Map<String, Object> changes) {
+        return latency.call("posts.patch", () -> {
+            synchronized (this) {
+                FoodPost current = posts.get(updated.getId());
+                if (current == null) {
+                    throw new PostNotFoundException(updated.getId());
+                }
+                if (current.getVersion() != expectedVersion) {
+                    throw new VersionConflictException(updated.getId(), expectedVersion);
+                }
+                FoodPost patched = detach(updated);
+                patched.setVersion(expectedVersion + 1);
+                if (!Objects.equals(current.getCategory(), patched.getCategory())) {
+                    unindex(current);
+                }
+                index(patched);
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setMediaVariants(String id, List<String> mediaUrls, List<MediaVariants> variants) {
+        return latency.call("posts.setMediaVariants", () -> {
+            synchronized (this) {
+                FoodPost current = posts.get(id);
+                if (current == null || !Objects.equals(current.getMediaUrls(), mediaUrls)) {
+                    return false;
+                }
+                FoodPost updated = current.copy();
+                updated.setMediaVariants(variants != null ? new ArrayList<>(variants) : null);
+                index(updated);
+                return true;
+            }
+        });
+    }
+
+    private synchronized void put(FoodPost foodPost) {
+        if (foodPost.getId() == null) {
+            foodPost.setId(nextKey());
+        }
+        FoodPost previous = posts.get(foodPost.getId());
+        if (previous != null && !Objects.equals(previous.getCategory(), foodPost.getCategory())) {
+            unindex(previous);
+        }
+        index(detach(foodPost));
+    }
+
+    private synchronized void remove(String id) {
+        FoodPost previous = posts.remove(id);
+        if (previous != null) {
+            unindex(previous);
+        }
+    }
+
+    private void index(FoodPost post) {
+        posts.put(post.getId(), post);
+        if (post.getCategory() == null) {
+            return;
+        }
+        byCategory.computeIfAbsent(post.getCategory(), key -> new ConcurrentSkipListMap<>()).put(post.getId(), post);
+    }
+
+    private void unindex(FoodPost post) {
+        NavigableMap<String, FoodPost> index = post.getCategory() != null ? byCategory.get(post.getCategory()) : null;
+        if (index != null) {
+            index.remove(post.getId());
+        }
+    }
+
+    /**
+     * Chronologically ordered keys, like the database's push ids.
+     */
+    private String nextKey() {
+        return String.format("-%011x%05x", System.currentTimeMillis(), sequence.incrementAndGet() & 0xfffff);
+    }
+
+    private static List<FoodPost> detachAll(Collection<FoodPost> source, int limit) {
+        List<FoodPost> result = new ArrayList<>();
+        for (FoodPost post : source) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(detach(post));
+        }
+        return result;
+    }
+
+    private static FoodPost detach(FoodPost post) {
+        FoodPost copy = post.copy();
+        copy.setMediaUrls(post.getMediaUrls() != null ? new ArrayList<>(post.getMediaUrls()) : null);
+        copy.setMediaVariants(post.getMediaVariants() != null ? new ArrayList<>(post.getMediaVariants()) : null);
+        return copy;
+    }
+}
@@ -0,0 +1,91 @@
+package com.foodgallery.service;
+
+import com.foodgallery.model.FoodPost;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One-time migration that moves inline Base64 data URIs out of the {@code posts}
+ * tree into the {@link MediaStore}, leaving only media references on each post.
+ * Enable with {@code media.migration.inline-data-uris=true}; posts without data
+ * URIs are left untouched, so re-running it is harmless.
+ */
+@Component
+@ConditionalOnProperty(name = "media.migration.inline-data-uris", havingValue = "true")
+public class InlineMediaMigration implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(InlineMediaMigration.class);
+
+    private static final String DATA_URI_PREFIX = "data:";
+    private static final String BASE64_MARKER = ";base64,";
+
+    @Autowired
+    private PostStore postStore;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int migratedPosts = 0;
+        int migratedMedia = 0;
+        for (FoodPost post : postStore.getAllPosts().join()) {
+            List<String> mediaUrls = post.getMediaUrls();
+            if (mediaUrls == null || mediaUrls.stream().noneMatch(InlineMediaMigration::isDataUri)) {
+                continue;
+            }
+            List<String> migrated = new ArrayList<>(mediaUrls.size());
+            List<String> stored = new ArrayList<>();
+            try {
+                for (String url : mediaUrls) {
+                    if (isDataUri(url)) {
+                        String reference = storeDataUri(url);
+                        stored.add(reference);
+                        migrated.add(reference);
+                    } else {
+                        migrated.add(url);
+                    }
+                }
+                post.setMediaUrls(migrated);
+                postStore.createPost(post).join();
+            } catch (Exception e) {
+                logger.error("Failed to migrate media for post id={}", post.getId(), e);
+                fileStorageService.deleteFiles(stored);
+                continue;
+            }
+            migratedPosts++;
+            migratedMedia += stored.size();
+        }
+        logger.info("Inline media migration finished: {} posts, {} media items moved to blob storage",
+                migratedPosts, migratedMedia);
+    }
+
+    private String storeDataUri(String dataUri) throws IOException {
+        int marker = dataUri.indexOf(BASE64_MARKER);
+        if (marker < 0) {
+            throw new IOException("Unsupported data URI encoding");
+        }
+        String contentType = dataUri.substring(DATA_URI_PREFIX.length(), marker);
+        byte[] encoded = dataUri.substring(marker + BASE64_MARKER.length()).getBytes(StandardCharsets.US_ASCII);
+        try (InputStream content = Base64.getDecoder().wrap(new ByteArrayInputStream(encoded))) {
+            return fileStorageService.store(content, contentType);
+        }
+    }
+
+    private static boolean isDataUri(String url) {
+        return url != null && url.startsWith(DATA_URI_PREFIX);
+    }
+}
@@ -0,0 +1,14 @@
+package com.foodgallery.service;
+
+public class InvalidTokenException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+
+    public InvalidTokenException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,207 @@
+package com.foodgallery.service;
+
+import com.foodgallery.model.FoodPost;
+import com.foodgallery.model.MediaVariants;
+import com.foodgallery.model.PostPage;
+import com.foodgallery.repository.WriteJournal;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Write-behind posts ({@code journal.enabled=true}). Creates, updates and
+ * deletes are acknowledged once they are in the {@link WriteJournal}, and
+ * applied to the backing store in the background. Until then they are kept
+ * here and laid over every read, so they are visible immediately, including
+ * after a restart. Patches and derivative updates check versions or media in
+ * the backing store, so they wait for the post's journaled writes to be
+ * applied first.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "journal.enabled", havingValue = "true")
+public class JournaledPostStore implements PostStore {
+
+    private static final String STORE = "posts";
+
+    /** A journaled write not yet applied; {@code post} is null for a delete. */
+    private record Pending(long sequence, FoodPost post) {
+    }
+
+    private final PostStore delegate;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    private WriteJournal journal;
+
+    public JournaledPostStore(@Qualifier(WriteJournal.BACKING_STORE) PostStore delegate) {
+        this.delegate = delegate;
+    }
+
+    @PostConstruct
+    public void register() {
+        journal.register(STORE, this::apply, this::track, entry -> untrack(List.of(entry)));
+    }
+
+    @Override
+    public CompletableFuture<FoodPost> createPost(FoodPost foodPost) {
+        if (foodPost.getId() == null) {
+            foodPost.setId(PushIds.next());
+        }
+        return journal.append(STORE, WriteJournal.PUT, foodPost.getId(), foodPost).thenApply(entry -> foodPost);
+    }
+
+    @Override
+    public CompletableFuture<List<FoodPost>> createPosts(List<FoodPost> foodPosts) {
+        List<CompletableFuture<FoodPost>> writes = new ArrayList<>(foodPosts.size());
+        for (FoodPost foodPost : foodPosts) {
+            writes.add(createPost(foodPost));
+        }
+        return CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).thenApply(v -> foodPosts);
+    }
+
+    @Override
+    public CompletableFuture<List<FoodPost>> getPostsByCategory(String category) {
+        return delegate.getPostsByCategory(category)
+                .thenApply(posts -> overlay(posts, post -> Objects.equals(post.getCategory(), category)));
+    }
+
+    /**
+     * Pages are read from the backing store and the journaled writes within
+     * the page's key range applied to them, so a page may come back shorter
+     * than {@code size} while deletes are pending.
+     */
+    @Override
+    public CompletableFuture<PostPage> getPostsPage(String category, String cursor, int size) {
+        String afterKey = PostCursors.decode(cursor);
+        return delegate.getPostsPage(category, cursor, size).thenApply(page -> {
+            if (pending.isEmpty()) {
+                return page;
+            }
+            List<FoodPost> items = page.getItems();
+            // The last page also takes new posts keyed after it
+            String upToKey = page.getNextCursor() != null ? items.get(items.size() - 1).getId() : null;
+            NavigableMap<String, FoodPost> merged = new TreeMap<>();
+            items.forEach(post -> merged.put(post.getId(), post));
+            pending.forEach((id, write) -> {
+                if (afterKey != null && id.compareTo(afterKey) <= 0 || upToKey != null && id.compareTo(upToKey) > 0) {
+                    return;
+                }
+                if (write.post() != null && Objects.equals(write.post().getCategory(), category)) {
+                    merged.put(id, write.post().copy());
+                } else {
+                    merged.remove(id);
+                }
+            });
+            if (merged.size() <= size) {
+                return new PostPage(new ArrayList<>(merged.values()), page.getNextCursor());
+            }
+            List<FoodPost> trimmed = new ArrayList<>(merged.values()).subList(0, size);
+            return new PostPage(new ArrayList<>(trimmed), PostCursors.encode(trimmed.get(size - 1).getId()));
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<FoodPost>> getAllPosts() {
+        return delegate.getAllPosts().thenApply(posts -> overlay(posts, post -> true));
+    }
+
+    @Override
+    public CompletableFuture<FoodPost> getPostById(String id) {
+        Pending write = pending.get(id);
+        if (write == null) {
+            return delegate.getPostById(id);
+        }
+        return write.post() != null
+                ? CompletableFuture.completedFuture(write.post().copy())
+                : CompletableFuture.failedFuture(new PostNotFoundException(id));
+    }
+
+    @Override
+    public CompletableFuture<Void> deletePost(String id) {
+        return journal.append(STORE, WriteJournal.DELETE, id, null).thenApply(entry -> null);
+    }
+
+    @Override
+    public CompletableFuture<Void> deletePosts(List<String> ids) {
+        return CompletableFuture.allOf(ids.stream().map(this::deletePost).toArray(CompletableFuture[]::new));
+    }
+
+    @Override
+    public CompletableFuture<Void> patchPost(FoodPost updated, long expectedVersion, Map<String, Object> changes) {
+        return applied(updated.getId()).thenCompose(v -> delegate.patchPost(updated, expectedVersion, changes));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setMediaVariants(String id, List<String> mediaUrls, List<MediaVariants> variants) {
+        return applied(id).thenCompose(v -> delegate.setMediaVariants(id, mediaUrls, variants));
+    }
+
+    @Override
+    public boolean servesFromReplica() {
+        return delegate.servesFromReplica();
+    }
+
+    private CompletableFuture<Void> applied(String id) {
+        Pending write = pending.get(id);
+        return write != null ? journal.awaitDrained(write.sequence()) : CompletableFuture.completedFuture(null);
+    }
+
+    private List<FoodPost> overlay(List<FoodPost> posts, Predicate<FoodPost> filter) {
+        if (pending.isEmpty()) {
+            return posts;
+        }
+        NavigableMap<String, FoodPost> merged = new TreeMap<>();
+        posts.forEach(post -> merged.put(post.getId(), post));
+        pending.forEach((id, write) -> {
+            if (write.post() != null && filter.test(write.post())) {
+                merged.put(id, write.post().copy());
+            } else {
+                merged.remove(id);
+            }
+        });
+        return new ArrayList<>(merged.values());
+    }
+
+    private void track(WriteJournal.Entry entry) {
+        FoodPost post = WriteJournal.PUT.equals(entry.operation()) ? journal.read(entry, FoodPost.class) : null;
+        pending.merge(entry.id(), new Pending(entry.sequence(), post),
+                (current, next) -> next.sequence() > current.sequence() ? next : current);
+    }
+
+    private CompletableFuture<Void> apply(List<WriteJournal.Entry> entries) {
+        List<FoodPost> puts = new ArrayList<>();
+        List<String> deletes = new ArrayList<>();
+        for (WriteJournal.Entry entry : entries) {
+            if (WriteJournal.PUT.equals(entry.operation())) {
+                puts.add(journal.read(entry, FoodPost.class));
+            } else {
+                deletes.add(entry.id());
+            }
+        }
+        CompletableFuture<?> written = puts.isEmpty() ? CompletableFuture.completedFuture(null) : delegate.createPosts(puts);
+        CompletableFuture<?> deleted = deletes.isEmpty() ? CompletableFuture.completedFuture(null) : delegate.deletePosts(deletes);
+        return CompletableFuture.allOf(written, deleted).thenRun(() -> untrack(entries));
+    }
+
+    private void untrack(Collection<WriteJournal.Entry> entries) {
+        // A newer write to the same post stays until it is applied too
+        for (WriteJournal.Entry entry : entries) {
+            pending.computeIfPresent(entry.id(), (id, write) -> write.sequence() <= entry.sequence() ? null : write);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.foodgallery.service;
+
+import com.foodgallery.model.StoredMedia;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.Properties;
+
+@Service
+@ConditionalOnProperty(name = "media.storage.type", havingValue = "local")
+public class LocalFileSystemMediaStore implements MediaStore {
+
+    private static final String META_SUFFIX = ".meta";
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path root;
+    private final int chunkSize;
+    // Reference counts live in the sidecar files; updates to one id are serialized by its stripe
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public LocalFileSystemMediaStore(@Value("${media.storage.local.root:media-store}") String root,
+                                     @Value("${media.upload.chunk-size:64KB}") DataSize chunkSize) {
+        this.root = Paths.get(root).toAbsolutePath();
+        this.chunkSize = (int) chunkSize.toBytes();
+        try {
+            Files.createDirectories(this.root);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create media store directory " + this.root, e);
+        }
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Override
+    public StoredMedia store(InputStream content, String contentType) throws IOException {
+        Path temp = Files.createTempFile(root, "upload-", ".tmp");
+        try {
+            MediaStreams.CopyResult copied;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                copied = MediaStreams.copy(content, channel, chunkSize);
+            }
+            String id = MediaIds.forContent(copied.sha256(), contentType);
+            synchronized (lockFor(id)) {
+                Optional<StoredMedia> existing = addReference(id);
+                if (existing.isPresent()) {
+                    return existing.get();
+                }
+                StoredMedia media = new StoredMedia(id, contentType, copied.size(), copied.sha256(),
+                        Files.getLastModifiedTime(temp).toMillis(), 1);
+                writeMeta(media);
+                Files.move(temp, root.resolve(id), StandardCopyOption.ATOMIC_MOVE);
+                return media;
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Optional<StoredMedia> retain(String sha256, String contentType) {
+        String id = MediaIds.forContent(sha256, contentType);
+        synchronized (lockFor(id)) {
+            try {
+                return addReference(id);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not retain media " + id, e);
+            }
+        }
+    }
+
+    @Override
+    public Optional<StoredMedia> describe(String id) {
+        if (!MediaIds.isValid(id) || !Files.exists(root.resolve(id))) {
+            return Optional.empty();
+        }
+        Properties meta = new Properties();
+        long lastModified;
+        try (Reader reader = Files.newBufferedReader(root.resolve(id + META_SUFFIX), StandardCharsets.UTF_8)) {
+            meta.load(reader);
+            lastModified = Files.getLastModifiedTime(root.resolve(id)).toMillis();
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+        return Optional.of(new StoredMedia(id, meta.getProperty("contentType"),
+                Long.parseLong(meta.getProperty("size", "0")), meta.getProperty("sha256"), lastModified,
+                Long.parseLong(meta.getProperty("references", "1"))));
+    }
+
+    @Override
+    public InputStream open(String id) throws IOException {
+        if (!MediaIds.isValid(id)) {
+            throw new IOException("Invalid media id: " + id);
+        }
+        return Files.newInputStream(root.resolve(id));
+    }
+
+    /**
+     * Media is kept as plain files, so it can be served with sendfile or
+     * {@link FileChannel#transferTo} instead of being streamed through the heap.
+     */
+    @Override
+    public Optional<Path> localFile(String id) {
+        if (!MediaIds.isValid(id)) {
+            return Optional.empty();
+        }
+        Path file = root.resolve(id);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    @Override
+    public boolean release(String id) {
+        if (!MediaIds.isValid(id)) {
+            return false;
+        }
+        synchronized (lockFor(id)) {
+            Optional<StoredMedia> existing = describe(id);
+            if (existing.isEmpty()) {
+                return false;
+            }
+            StoredMedia media = existing.get();
+            try {
+                if (media.getReferences() > 1) {
+                    media.setReferences(media.getReferences() - 1);
+                    writeMeta(media);
+                    return true;
+                }
+                Files.deleteIfExists(root.resolve(id));
+                Files.deleteIfExists(root.resolve(id + META_SUFFIX));
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not release media " + id, e);
+            }
+        }
+    }
+
+    private Optional<StoredMedia> addReference(String id) throws IOException {
+        Optional<StoredMedia> existing = describe(id);
+        if (existing.isPresent()) {
+            existing.get().setReferences(existing.get().getReferences() + 1);
+            writeMeta(existing.get());
+        }
+        return existing;
+    }
+
+    private Object lockFor(String id) {
+        return locks[Math.floorMod(id.hashCode(), LOCK_STRIPES)];
+    }
+
+    private void writeMeta(StoredMedia media) throws IOException {
+        Properties meta = new Properties();
+        if (media.getContentType() != null) {
+            meta.setProperty("contentType", media.getContentType());
+        }
+        meta.setProperty("size", Long.toString(media.getSize()));
+        meta.setProperty("sha256", media.getSha256());
+        meta.setProperty("references", Long.toString(media.getReferences()));
+        // Replaced atomically, so a crash never leaves a half-written reference count
+        Path temp = Files.createTempFile(root, "meta-", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                meta.store(out, null);
+            }
+            Files.move(temp, root.resolve(media.getId() + META_SUFFIX),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
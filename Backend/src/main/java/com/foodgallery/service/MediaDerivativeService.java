@@ -0,0 +1,229 @@
+package com.foodgallery.service;
+
+import com.foodgallery.model.MediaVariants;
+import com.foodgallery.model.StoredMedia;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Produces resized, recompressed JPEG derivatives (thumbnail, card, full) of
+ * uploaded images on a bounded background pool, using only {@code javax.imageio}
+ * and Java2D. Videos and formats ImageIO cannot decode are passed through with
+ * no derivatives.
+ */
+@Service
+public class MediaDerivativeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaDerivativeService.class);
+
+    private static final String DATA_URI_PREFIX = "data:";
+    private static final String BASE64_MARKER = ";base64,";
+    private static final String DERIVATIVE_TYPE = "image/jpeg";
+
+    @Autowired
+    private MediaStore mediaStore;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    @Qualifier("derivativeTaskExecutor")
+    private Executor derivativeTaskExecutor;
+
+    @Value("${media.derivatives.thumbnail-size:160}")
+    private int thumbnailSize;
+
+    @Value("${media.derivatives.card-size:480}")
+    private int cardSize;
+
+    @Value("${media.derivatives.full-size:1280}")
+    private int fullSize;
+
+    @Value("${media.derivatives.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    @Value("${media.derivatives.max-source-pixels:50000000}")
+    private long maxSourcePixels;
+
+    /**
+     * Generates derivatives for each entry, in order. Entries that cannot be
+     * processed get a {@link MediaVariants} holding only the original.
+     */
+    public CompletableFuture<List<MediaVariants>> generate(List<String> media) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<MediaVariants> variants = new ArrayList<>(media.size());
+            for (String entry : media) {
+                variants.add(generateOne(entry));
+            }
+            return variants;
+        }, derivativeTaskExecutor);
+    }
+
+    private MediaVariants generateOne(String entry) {
+        MediaVariants variants = MediaVariants.of(entry);
+        List<String> stored = new ArrayList<>(3);
+        try (InputStream source = openSource(entry)) {
+            if (source == null) {
+                return variants;
+            }
+            BufferedImage image = decode(source);
+            if (image == null) {
+                return variants;
+            }
+            int longest = Math.max(image.getWidth(), image.getHeight());
+            // Largest first, so each smaller size is scaled from the previous one
+            BufferedImage current = image;
+            if (longest > fullSize) {
+                current = resize(current, fullSize);
+                variants.setFull(storeJpeg(current, stored));
+            }
+            if (longest > cardSize) {
+                current = resize(current, cardSize);
+                variants.setCard(storeJpeg(current, stored));
+            }
+            if (longest > thumbnailSize) {
+                current = resize(current, thumbnailSize);
+                variants.setThumbnail(storeJpeg(current, stored));
+            }
+            return variants;
+        } catch (Exception e) {
+            logger.warn("Failed to generate derivatives for media {}: {}", abbreviate(entry), e.getMessage());
+            fileStorageService.deleteFiles(stored);
+            return MediaVariants.of(entry);
+        }
+    }
+
+    /**
+     * Opens an image entry, either a stored media reference or a legacy inline
+     * data URI; returns {@code null} for anything that is not an image.
+     */
+    private InputStream openSource(String entry) throws IOException {
+        String mediaId = FileStorageService.toMediaId(entry);
+        if (mediaId != null) {
+            Optional<StoredMedia> media = mediaStore.describe(mediaId);
+            if (media.isEmpty() || media.get().getContentType() == null
+                    || !media.get().getContentType().startsWith("image/")) {
+                return null;
+            }
+            return mediaStore.open(mediaId);
+        }
+        if (entry != null && entry.startsWith(DATA_URI_PREFIX + "image/")) {
+            int marker = entry.indexOf(BASE64_MARKER);
+            if (marker < 0) {
+                return null;
+            }
+            byte[] encoded = entry.substring(marker + BASE64_MARKER.length()).getBytes(StandardCharsets.US_ASCII);
+            return Base64.getDecoder().wrap(new ByteArrayInputStream(encoded));
+        }
+        return null;
+    }
+
+    /**
+     * Decodes with source subsampling so very large photos are never fully
+     * materialised at their original resolution.
+     */
+    private BufferedImage decode(InputStream source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxSourcePixels) {
+                    throw new IOException("Image too large: " + width + "x" + height);
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.max(width, height) / (fullSize * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales so the longest side is {@code target}, halving in steps to keep
+     * bilinear filtering from aliasing on large reductions.
+     */
+    private static BufferedImage resize(BufferedImage image, int target) {
+        BufferedImage current = image;
+        int width = current.getWidth();
+        int height = current.getHeight();
+        double scale = (double) target / Math.max(width, height);
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = scaled.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                // JPEG has no alpha channel; flatten transparent images onto white
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = scaled;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private String storeJpeg(BufferedImage image, List<String> stored) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        String reference = fileStorageService.store(new ByteArrayInputStream(out.toByteArray()), DERIVATIVE_TYPE);
+        stored.add(reference);
+        return reference;
+    }
+
+    private static String abbreviate(String entry) {
+        return entry != null && entry.length() > 64 ? entry.substring(0, 64) + "..." : entry;
+    }
+}
@@ -0,0 +1,37 @@
+package com.foodgallery.service;
+
+import java.util.Map;
+import java.util.regex.Pattern;
+
+final class MediaIds {
+
+    private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9_-]{1,128}(\\.[a-z0-9]{1,8})?");
+
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/jpeg", "jpg",
+            "image/png", "png",
+            "image/gif", "gif",
+            "image/webp", "webp",
+            "video/mp4", "mp4",
+            "video/webm", "webm",
+            "video/quicktime", "mov");
+
+    private MediaIds() {
+    }
+
+    /**
+     * Media is content-addressed: identical bytes of the same type always get
+     * the same id, which is what lets the stores share them.
+     */
+    static String forContent(String sha256, String contentType) {
+        return withExtension(sha256, contentType);
+    }
+
+    static String withExtension(String baseName, String contentType) {
+        return baseName + "." + EXTENSIONS.getOrDefault(contentType, "bin");
+    }
+
+    static boolean isValid(String id) {
+        return id != null && VALID_ID.matcher(id).matches();
+    }
+}
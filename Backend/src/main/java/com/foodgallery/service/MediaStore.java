@@ -0,0 +1,62 @@
+package com.foodgallery.service;
+
+import com.foodgallery.model.StoredMedia;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Blob store for post media. Implementations only deal with raw bytes; the
+ * references persisted on posts are built by {@link FileStorageService}.
+ * <p>
+ * Media is stored once per distinct content and reference counted: storing
+ * bytes that already exist takes another reference, and {@link #release}
+ * only deletes them when the last reference is dropped.
+ */
+public interface MediaStore {
+
+    /**
+     * Stores the content under an id derived from its SHA-256, or takes another
+     * reference when identical content is already stored.
+     */
+    StoredMedia store(InputStream content, String contentType) throws IOException;
+
+    /**
+     * Takes another reference to stored content with the given SHA-256, without
+     * writing anything; empty when no such content is stored.
+     */
+    Optional<StoredMedia> retain(String sha256, String contentType);
+
+    Optional<StoredMedia> describe(String id);
+
+    InputStream open(String id) throws IOException;
+
+    /**
+     * Opens the media positioned at {@code offset}, for range requests.
+     */
+    default InputStream open(String id, long offset) throws IOException {
+        InputStream in = open(id);
+        try {
+            in.skipNBytes(offset);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return in;
+    }
+
+    /**
+     * The file holding the media, when it is stored on this machine.
+     */
+    default Optional<Path> localFile(String id) {
+        return Optional.empty();
+    }
+
+    /**
+     * Drops one reference and deletes the bytes with the last one; returns
+     * {@code false} when there was no such media.
+     */
+    boolean release(String id);
+}
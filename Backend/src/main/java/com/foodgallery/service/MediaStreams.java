@@ -0,0 +1,59 @@
+package com.foodgallery.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Chunked copy used by the media stores. Only one buffer of {@code chunkSize}
+ * bytes is held per upload, regardless of the file size; the SHA-256 and byte
+ * count are computed on the fly.
+ */
+final class MediaStreams {
+
+    private MediaStreams() {
+    }
+
+    static CopyResult copy(InputStream content, WritableByteChannel target, int chunkSize) throws IOException {
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
+        ReadableByteChannel source = Channels.newChannel(content);
+        long size = 0;
+        while (source.read(buffer) != -1) {
+            buffer.flip();
+            digest.update(buffer.array(), 0, buffer.limit());
+            while (buffer.hasRemaining()) {
+                size += target.write(buffer);
+            }
+            buffer.clear();
+        }
+        return new CopyResult(size, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    static String sha256(InputStream content, int chunkSize) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[chunkSize];
+        int read;
+        while ((read = content.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    record CopyResult(long size, String sha256) {
+    }
+}
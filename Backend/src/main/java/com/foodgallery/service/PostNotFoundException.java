@@ -0,0 +1,23 @@
+package com.foodgallery.service;
+
+public class PostNotFoundException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PostNotFoundException(String id) {
+        super("Post not found with id: " + id);
+    }
+
+    /**
+     * True if {@code e} or any of its causes is a {@link PostNotFoundException};
+     * future stages wrap the original exception.
+     */
+    public static boolean isCause(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof PostNotFoundException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,180 @@
+package com.foodgallery.service;
+
+import com.foodgallery.config.FirebaseClients;
+import com.foodgallery.model.FoodPost;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.function.SingletonSupplier;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Live in-memory copy of the {@code posts} tree, kept current by a persistent
+ * {@link ChildEventListener}. Enabled with {@code firebase.replica.enabled=true};
+ * once the initial load has completed, {@link FirebaseService} serves post reads
+ * from here instead of issuing one-shot queries.
+ * <p>
+ * All mutations happen on the Firebase event thread, so there is a single
+ * writer; readers see each post atomically through the concurrent maps.
+ */
+@Component
+@ConditionalOnProperty(name = "firebase.replica.enabled", havingValue = "true")
+public class PostReplica {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostReplica.class);
+
+    private final SingletonSupplier<DatabaseReference> databaseReference;
+    private final Map<String, FoodPost> posts = new ConcurrentHashMap<>();
+    // Per-category index ordered by key, matching the database's order within a category
+    private final Map<String, NavigableMap<String, FoodPost>> byCategory = new ConcurrentHashMap<>();
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+
+    private ChildEventListener childListener;
+
+    @Autowired
+    private SearchIndex searchIndex;
+
+    public PostReplica(FirebaseClients firebaseClients) {
+        databaseReference = SingletonSupplier.of(() -> firebaseClients.database().getReference("posts"));
+    }
+
+    @PostConstruct
+    public void start() {
+        childListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(DataSnapshot snapshot, String previousChildName) {
+                upsert(snapshot);
+            }
+
+            @Override
+            public void onChildChanged(DataSnapshot snapshot, String previousChildName) {
+                upsert(snapshot);
+            }
+
+            @Override
+            public void onChildRemoved(DataSnapshot snapshot) {
+                remove(snapshot.getKey());
+            }
+
+            @Override
+            public void onChildMoved(DataSnapshot snapshot, String previousChildName) {
+                // Ordering is maintained by the category index itself
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                logger.error("Posts replica listener cancelled: {}", error.getMessage());
+                ready.completeExceptionally(new RuntimeException("Posts replica cancelled: " + error.getMessage()));
+            }
+        };
+        databaseReference.obtain().addChildEventListener(childListener);
+        // Served from the data synced for the child listener, so the tree is only downloaded once;
+        // the value event fires after all initial child events.
+        databaseReference.obtain().addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                logger.info("Posts replica loaded: {} posts", posts.size());
+                ready.complete(null);
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                ready.completeExceptionally(new RuntimeException("Posts replica load failed: " + error.getMessage()));
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (childListener != null) {
+            databaseReference.obtain().removeEventListener(childListener);
+        }
+    }
+
+    public boolean isReady() {
+        return ready.isDone() && !ready.isCompletedExceptionally();
+    }
+
+    public FoodPost getPostById(String id) {
+        return posts.get(id);
+    }
+
+    public List<FoodPost> getPostsByCategory(String category) {
+        NavigableMap<String, FoodPost> index = byCategory.get(category);
+        return index != null ? new ArrayList<>(index.values()) : Collections.emptyList();
+    }
+
+    /**
+     * Returns up to {@code limit} posts of {@code category} whose keys sort after
+     * {@code afterKey} ({@code null} starts from the beginning).
+     */
+    public List<FoodPost> getPostsAfter(String category, String afterKey, int limit) {
+        NavigableMap<String, FoodPost> index = byCategory.get(category);
+        if (index == null) {
+            return Collections.emptyList();
+        }
+        List<FoodPost> page = new ArrayList<>(limit);
+        for (FoodPost post : (afterKey != null ? index.tailMap(afterKey, false) : index).values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(post);
+        }
+        return page;
+    }
+
+    public List<FoodPost> getAllPosts() {
+        return new ArrayList<>(posts.values());
+    }
+
+    private void upsert(DataSnapshot snapshot) {
+        FoodPost post = snapshot.getValue(FoodPost.class);
+        if (post == null) {
+            return;
+        }
+        post.setId(snapshot.getKey());
+        FoodPost previous = posts.put(post.getId(), post);
+        if (previous != null && previous.getCategory() != null
+                && !previous.getCategory().equals(post.getCategory())) {
+            removeFromIndex(previous);
+        }
+        if (post.getCategory() != null) {
+            byCategory.computeIfAbsent(post.getCategory(), category -> new ConcurrentSkipListMap<>())
+                    .put(post.getId(), post);
+        }
+        // Also picks up posts written by other instances
+        searchIndex.indexPost(post);
+    }
+
+    private void remove(String id) {
+        FoodPost previous = posts.remove(id);
+        if (previous != null) {
+            removeFromIndex(previous);
+            searchIndex.removePost(id);
+        }
+    }
+
+    private void removeFromIndex(FoodPost post) {
+        NavigableMap<String, FoodPost> index = byCategory.get(post.getCategory());
+        if (index != null) {
+            index.remove(post.getId());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.foodgallery.service;
+
+import com.foodgallery.model.FoodPost;
+import com.foodgallery.model.MediaVariants;
+import com.foodgallery.model.PostPage;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Storage for posts. {@link FirebaseService} keeps them in the Realtime
+ * Database; {@link InMemoryPostStore} stands in for it when
+ * {@code datastore.type=memory}.
+ */
+public interface PostStore {
+
+    CompletableFuture<FoodPost> createPost(FoodPost foodPost);
+
+    /**
+     * Writes all posts at once, assigning ids to posts that lack one.
+     */
+    CompletableFuture<List<FoodPost>> createPosts(List<FoodPost> foodPosts);
+
+    CompletableFuture<List<FoodPost>> getPostsByCategory(String category);
+
+    /**
+     * Keyset pagination within a category, ordered by key.
+     */
+    CompletableFuture<PostPage> getPostsPage(String category, String cursor, int size);
+
+    CompletableFuture<List<FoodPost>> getAllPosts();
+
+    /**
+     * Fails with {@link PostNotFoundException} when there is no such post.
+     */
+    CompletableFuture<FoodPost> getPostById(String id);
+
+    CompletableFuture<Void> deletePost(String id);
+
+    CompletableFuture<Void> deletePosts(List<String> ids);
+
+    /**
+     * Writes only {@code changes} (field name to new value) and bumps the version,
+     * provided the post is still at {@code expectedVersion}; fails with
+     * {@link com.foodgallery.repository.VersionConflictException} otherwise, or
+     * {@link PostNotFoundException}. {@code updated} is the post as it will be
+     * afterwards, for read-your-writes.
+     */
+    CompletableFuture<Void> patchPost(FoodPost updated, long expectedVersion, Map<String, Object> changes);
+
+    /**
+     * Records derivatives on a post, but only if its media is still
+     * {@code mediaUrls}; resolves to false otherwise.
+     */
+    CompletableFuture<Boolean> setMediaVariants(String id, List<String> mediaUrls, List<MediaVariants> variants);
+
+    /**
+     * True when reads are already answered from memory, which makes an
+     * additional read cache in front of the store redundant.
+     */
+    default boolean servesFromReplica() {
+        return false;
+    }
+}
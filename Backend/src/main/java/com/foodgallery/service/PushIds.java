@@ -0,0 +1,51 @@
+package com.foodgallery.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keys in the format of the Realtime Database's {@code push()}: 8 characters
+ * of timestamp followed by 12 random ones, incremented rather than re-drawn
+ * within the same millisecond, so keys sort in creation order. Lets posts get
+ * their final key before the database is involved.
+ */
+final class PushIds {
+
+    private static final String PUSH_CHARS = "-0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ_abcdefghijklmnopqrstuvwxyz";
+
+    private static long lastTimestamp;
+    private static final int[] lastRandom = new int[12];
+
+    private PushIds() {
+    }
+
+    static synchronized String next() {
+        long now = System.currentTimeMillis();
+        boolean sameMillisecond = now == lastTimestamp;
+        lastTimestamp = now;
+
+        char[] id = new char[20];
+        for (int i = 7; i >= 0; i--) {
+            id[i] = PUSH_CHARS.charAt((int) (now % 64));
+            now /= 64;
+        }
+        if (!sameMillisecond) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < lastRandom.length; i++) {
+                lastRandom[i] = random.nextInt(64);
+            }
+        } else {
+            int i = lastRandom.length - 1;
+            while (i >= 0 && lastRandom[i] == 63) {
+                lastRandom[i] = 0;
+                i--;
+            }
+            if (i >= 0) {
+                lastRandom[i]++;
+            }
+        }
+        for (int i = 0; i < lastRandom.length; i++) {
+            id[8 + i] = PUSH_CHARS.charAt(lastRandom[i]);
+        }
+        return new String(id);
+    }
+}
@@ -0,0 +1,100 @@
+package com.foodgallery.service;
+
+import com.foodgallery.model.DecorationTip;
+import com.foodgallery.model.FoodPost;
+import com.foodgallery.repository.PayloadSizes;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Weigher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bounded read caches in front of the posts tree and the decoration-tips
+ * collection. Entries are weighed by their approximate payload size so a few
+ * media-heavy records cannot crowd out everything else. Hit, miss and eviction
+ * counts are published as {@code cache.*} metrics tagged with the cache name.
+ */
+@Component
+public class ReadCaches {
+
+    /** Key used in {@link #tipLists()} for the unfiltered tip list. */
+    public static final String ALL_TIPS = "*";
+
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final AsyncCache<String, FoodPost> postsById;
+    private final AsyncCache<String, List<FoodPost>> postsByCategory;
+    private final AsyncCache<String, DecorationTip> tipsById;
+    private final AsyncCache<String, List<DecorationTip>> tipLists;
+
+    public ReadCaches(MeterRegistry meterRegistry,
+                      @Value("${cache.posts.max-weight:64MB}") DataSize postsMaxWeight,
+                      @Value("${cache.posts.ttl:60s}") Duration postsTtl,
+                      @Value("${cache.tips.max-weight:32MB}") DataSize tipsMaxWeight,
+                      @Value("${cache.tips.ttl:60s}") Duration tipsTtl) {
+        // Split each budget between the by-id and the list cache
+        long postsBudget = postsMaxWeight.toBytes() / 2;
+        long tipsBudget = tipsMaxWeight.toBytes() / 2;
+        postsById = build(meterRegistry, "posts.byId", postsBudget, postsTtl,
+                (String key, FoodPost post) -> weigh(post));
+        postsByCategory = build(meterRegistry, "posts.byCategory", postsBudget, postsTtl,
+                (String key, List<FoodPost> posts) -> weighAll(posts, ReadCaches::weigh));
+        tipsById = build(meterRegistry, "tips.byId", tipsBudget, tipsTtl,
+                (String key, DecorationTip tip) -> weigh(tip));
+        tipLists = build(meterRegistry, "tips.lists", tipsBudget, tipsTtl,
+                (String key, List<DecorationTip> tips) -> weighAll(tips, ReadCaches::weigh));
+    }
+
+    public AsyncCache<String, FoodPost> postsById() {
+        return postsById;
+    }
+
+    public AsyncCache<String, List<FoodPost>> postsByCategory() {
+        return postsByCategory;
+    }
+
+    public AsyncCache<String, DecorationTip> tipsById() {
+        return tipsById;
+    }
+
+    /** Tip lists keyed by category, or {@link #ALL_TIPS} for the full list. */
+    public AsyncCache<String, List<DecorationTip>> tipLists() {
+        return tipLists;
+    }
+
+    private static <V> AsyncCache<String, V> build(MeterRegistry meterRegistry, String name, long maxWeight,
+                                                   Duration ttl, Weigher<String, V> weigher) {
+        AsyncCache<String, V> cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher(weigher)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, name, Tags.empty());
+    }
+
+    static int weigh(FoodPost post) {
+        return (int) Math.min(Integer.MAX_VALUE, ENTRY_OVERHEAD + PayloadSizes.of(post));
+    }
+
+    static int weigh(DecorationTip tip) {
+        return (int) Math.min(Integer.MAX_VALUE, ENTRY_OVERHEAD + PayloadSizes.of(tip));
+    }
+
+    private static <T> int weighAll(List<T> items, ToIntFunction<T> weigher) {
+        long weight = ENTRY_OVERHEAD;
+        for (T item : items) {
+            weight += weigher.applyAsInt(item);
+        }
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+}
@@ -0,0 +1,104 @@
+package com.foodgallery.service;
+
+import com.foodgallery.model.FoodPost;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Write-through view of posts written or deleted by this instance. Reads are
+ * overlaid with it so a client sees its own write immediately after the
+ * database acknowledges it, without waiting for listeners to catch up.
+ * <p>
+ * Entries expire after {@code firebase.recent-writes.ttl} and at most
+ * {@code firebase.recent-writes.max-size} are kept; both are enforced on
+ * write, so a bulk import with no reads in between cannot grow it unbounded.
+ * Only read-after-write visibility is lost when an entry is evicted early.
+ */
+@Component
+public class RecentPostWrites {
+
+    private final Cache<String, Entry> entries;
+
+    public RecentPostWrites(@Value("${firebase.recent-writes.ttl:30s}") Duration ttl,
+                            @Value("${firebase.recent-writes.max-size:10000}") long maxSize) {
+        entries = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                // Evict on the writing thread rather than a pool, so the bound holds as writes are recorded
+                .executor(Runnable::run)
+                .build();
+    }
+
+    public void recordWrite(FoodPost post) {
+        entries.put(post.getId(), new Entry(post));
+    }
+
+    public void recordDelete(String id) {
+        entries.put(id, new Entry(null));
+    }
+
+    /**
+     * Returns the recent entry for {@code id}, or {@code null} if there is none.
+     * An entry whose {@link Entry#post()} is {@code null} marks a deletion.
+     */
+    public Entry lookup(String id) {
+        return entries.getIfPresent(id);
+    }
+
+    /**
+     * Applies recent writes to a list fetched from the database. {@code category}
+     * restricts which recently written posts are added; {@code null} means all.
+     */
+    public List<FoodPost> overlay(List<FoodPost> fetched, String category) {
+        Map<String, Entry> recent = entries.asMap();
+        if (recent.isEmpty()) {
+            return fetched;
+        }
+        Map<String, FoodPost> merged = new LinkedHashMap<>();
+        for (FoodPost post : fetched) {
+            merged.put(post.getId(), post);
+        }
+        recent.forEach((id, entry) -> {
+            if (entry.post() == null
+                    || (category != null && !Objects.equals(category, entry.post().getCategory()))) {
+                merged.remove(id);
+            } else {
+                merged.put(id, entry.post());
+            }
+        });
+        return new ArrayList<>(merged.values());
+    }
+
+    /**
+     * Applies recent writes to one page of results: updated posts are replaced
+     * and deleted or re-categorised ones dropped, but nothing is added, since a
+     * page only covers a slice of the key range.
+     */
+    public List<FoodPost> refresh(List<FoodPost> page, String category) {
+        if (entries.asMap().isEmpty()) {
+            return page;
+        }
+        List<FoodPost> refreshed = new ArrayList<>(page.size());
+        for (FoodPost post : page) {
+            Entry entry = lookup(post.getId());
+            if (entry == null) {
+                refreshed.add(post);
+            } else if (entry.post() != null && Objects.equals(category, entry.post().getCategory())) {
+                refreshed.add(entry.post());
+            }
+        }
+        return refreshed;
+    }
+
+    public record Entry(FoodPost post) {
+    }
+}
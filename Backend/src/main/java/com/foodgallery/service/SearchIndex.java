@@ -0,0 +1,418 @@
+package com.foodgallery.service;
+
+import com.foodgallery.model.DecorationTip;
+import com.foodgallery.model.FoodPost;
+import com.foodgallery.model.SearchResult;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over the text of posts (title, description) and
+ * decoration tips (title, description, tip). It is built once at startup by
+ * {@link SearchIndexLoader} and then kept current by the services on every
+ * write, so queries never touch Firebase.
+ * <p>
+ * Results are ranked with BM25, with title terms weighted higher. The last
+ * query term also matches as a prefix, so partially typed words find results.
+ */
+@Component
+public class SearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 3;
+    private static final int MIN_TOKEN_LENGTH = 2;
+    private static final int MIN_PREFIX_LENGTH = 3;
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+    // Prefix expansions rank below exact matches of the same term
+    private static final double PREFIX_BOOST = 0.5;
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in",
+            "is", "it", "of", "on", "or", "the", "this", "to", "with");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Documents live in numbered slots, so postings and scoring work on primitive arrays; guarded by lock
+    private final NavigableMap<String, Postings> postings = new TreeMap<>();
+    private final Map<String, Integer> slotsByKey = new HashMap<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private Document[] slots = new Document[1024];
+    private int slotCount;
+    private long totalLength;
+
+    // Documents written while the startup load runs; the load must not overwrite them with older data
+    private final Set<String> writtenDuringLoad = ConcurrentHashMap.newKeySet();
+    private volatile boolean loading;
+
+    public void indexPost(FoodPost post) {
+        put(postDocument(post));
+    }
+
+    public void indexTip(DecorationTip tip) {
+        put(tipDocument(tip));
+    }
+
+    public void removePost(String id) {
+        remove(key(SearchResult.POST, id));
+    }
+
+    public void removeTip(String id) {
+        remove(key(SearchResult.TIP, id));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void beginLoad() {
+        writtenDuringLoad.clear();
+        loading = true;
+    }
+
+    /**
+     * Adds the loaded documents, except those already written or removed since
+     * {@link #beginLoad()}. Text is tokenized before taking the write lock.
+     */
+    void load(List<FoodPost> posts, List<DecorationTip> tips) {
+        List<Document> loaded = new ArrayList<>(posts.size() + tips.size());
+        posts.forEach(post -> loaded.add(postDocument(post)));
+        tips.forEach(tip -> loaded.add(tipDocument(tip)));
+        lock.writeLock().lock();
+        try {
+            for (Document document : loaded) {
+                if (!writtenDuringLoad.contains(document.key)) {
+                    putLocked(document);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void endLoad() {
+        loading = false;
+        writtenDuringLoad.clear();
+    }
+
+    /**
+     * Returns up to {@code limit} hits ordered by relevance. {@code type},
+     * {@code category} and {@code difficulty} are optional exact filters
+     * (case-insensitive); posts have no difficulty.
+     */
+    public List<SearchResult> search(String query, String type, String category, String difficulty, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            int count = slotsByKey.size();
+            if (count == 0) {
+                return List.of();
+            }
+            double averageLength = (double) totalLength / count;
+            // Scores are always positive, so zero means "not matched yet"
+            double[] scores = new double[slotCount];
+            double[] termScores = new double[slotCount];
+            int[] matched = new int[slotCount];
+            int matchedCount = 0;
+            int[] termMatched = new int[slotCount];
+            for (int i = 0; i < terms.size(); i++) {
+                String term = terms.get(i);
+                boolean expand = i == terms.size() - 1 && term.length() >= MIN_PREFIX_LENGTH;
+                int termMatchedCount = 0;
+                for (Map.Entry<String, Postings> entry : matchingTerms(term, expand).entrySet()) {
+                    Postings list = entry.getValue();
+                    double idf = Math.log(1 + (count - list.size + 0.5) / (list.size + 0.5));
+                    double weight = entry.getKey().equals(term) ? idf : idf * PREFIX_BOOST;
+                    for (int p = 0; p < list.size; p++) {
+                        int slot = list.slots[p];
+                        Document document = slots[slot];
+                        if (!document.matches(type, category, difficulty)) {
+                            continue;
+                        }
+                        int frequency = list.frequencies[p];
+                        double score = weight * frequency * (K1 + 1)
+                                / (frequency + K1 * (1 - B + B * document.length / averageLength));
+                        if (termScores[slot] == 0) {
+                            termMatched[termMatchedCount++] = slot;
+                        }
+                        // Best expansion per document, so several expansions of one term don't add up
+                        termScores[slot] = Math.max(termScores[slot], score);
+                    }
+                }
+                for (int t = 0; t < termMatchedCount; t++) {
+                    int slot = termMatched[t];
+                    if (scores[slot] == 0) {
+                        matched[matchedCount++] = slot;
+                    }
+                    scores[slot] += termScores[slot];
+                    termScores[slot] = 0;
+                }
+            }
+            return top(scores, matched, matchedCount, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<String, Postings> matchingTerms(String term, boolean expand) {
+        if (!expand) {
+            Postings exact = postings.get(term);
+            return exact != null ? Map.of(term, exact) : Map.of();
+        }
+        Map<String, Postings> matching = new LinkedHashMap<>();
+        for (Map.Entry<String, Postings> entry
+                : postings.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+            matching.put(entry.getKey(), entry.getValue());
+            if (matching.size() >= MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+        }
+        return matching;
+    }
+
+    private List<SearchResult> top(double[] scores, int[] matched, int matchedCount, int limit) {
+        // Min-heap of the best hits so far; avoids sorting every match
+        PriorityQueue<Integer> best = new PriorityQueue<>(Comparator.comparingDouble(slot -> scores[slot]));
+        for (int i = 0; i < matchedCount; i++) {
+            int slot = matched[i];
+            if (best.size() < limit) {
+                best.offer(slot);
+            } else if (scores[slot] > scores[best.peek()]) {
+                best.poll();
+                best.offer(slot);
+            }
+        }
+        List<SearchResult> results = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            int slot = best.poll();
+            Document document = slots[slot];
+            results.add(new SearchResult(document.type, document.id, document.title,
+                    document.category, document.difficulty, scores[slot]));
+        }
+        results.sort(Comparator.comparingDouble(SearchResult::getScore).reversed());
+        return results;
+    }
+
+    private void put(Document document) {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                writtenDuringLoad.add(document.key);
+            }
+            putLocked(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(String key) {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                writtenDuringLoad.add(key);
+            }
+            removeLocked(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putLocked(Document document) {
+        removeLocked(document.key);
+        int slot;
+        if (!freeSlots.isEmpty()) {
+            slot = freeSlots.pop();
+        } else {
+            if (slotCount == slots.length) {
+                slots = Arrays.copyOf(slots, slots.length * 2);
+            }
+            slot = slotCount++;
+        }
+        slots[slot] = document;
+        slotsByKey.put(document.key, slot);
+        totalLength += document.length;
+        for (Map.Entry<String, Term> entry : document.terms.entrySet()) {
+            Term term = entry.getValue();
+            term.position = postings.computeIfAbsent(entry.getKey(), t -> new Postings()).add(slot, term.frequency);
+        }
+    }
+
+    private void removeLocked(String key) {
+        Integer slot = slotsByKey.remove(key);
+        if (slot == null) {
+            return;
+        }
+        Document previous = slots[slot];
+        slots[slot] = null;
+        freeSlots.push(slot);
+        totalLength -= previous.length;
+        for (Map.Entry<String, Term> entry : previous.terms.entrySet()) {
+            Postings list = postings.get(entry.getKey());
+            // The last posting moves into the freed position; keep its document's bookkeeping in step
+            int moved = list.removeAt(entry.getValue().position);
+            if (moved >= 0) {
+                slots[moved].terms.get(entry.getKey()).position = entry.getValue().position;
+            }
+            if (list.size == 0) {
+                postings.remove(entry.getKey());
+            }
+        }
+    }
+
+    private static Document postDocument(FoodPost post) {
+        return document(SearchResult.POST, post.getId(), post.getTitle(), post.getCategory(), null,
+                post.getDescription());
+    }
+
+    private static Document tipDocument(DecorationTip tip) {
+        return document(SearchResult.TIP, tip.getId(), tip.getTitle(), tip.getCategory(), tip.getDifficulty(),
+                tip.getDescription(), tip.getTip());
+    }
+
+    private static Document document(String type, String id, String title, String category, String difficulty,
+                                     String... body) {
+        Map<String, Term> terms = new HashMap<>();
+        int length = 0;
+        for (String token : tokenize(title)) {
+            terms.computeIfAbsent(token, t -> new Term()).frequency += TITLE_WEIGHT;
+            length += TITLE_WEIGHT;
+        }
+        for (String text : body) {
+            for (String token : tokenize(text)) {
+                terms.computeIfAbsent(token, t -> new Term()).frequency++;
+                length++;
+            }
+        }
+        return new Document(key(type, id), type, id, title, category, difficulty, terms, length);
+    }
+
+    /**
+     * Lower-cases, strips accents, splits on anything that is not a letter or
+     * digit, drops stop words and folds simple plurals.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_WORD.split(normalized)) {
+            if (token.length() >= MIN_TOKEN_LENGTH && !STOP_WORDS.contains(token)) {
+                tokens.add(stem(token));
+            }
+        }
+        return tokens;
+    }
+
+    private static String stem(String token) {
+        if (token.length() > 4 && token.endsWith("ies")) {
+            return token.substring(0, token.length() - 3) + "y";
+        }
+        if (token.length() > 3 && token.endsWith("s") && !token.endsWith("ss")) {
+            return token.substring(0, token.length() - 1);
+        }
+        return token;
+    }
+
+    private static String key(String type, String id) {
+        return type + ":" + id;
+    }
+
+    /**
+     * Slots and weighted frequencies of the documents containing one term,
+     * unordered; removal swaps the last entry into the freed position.
+     */
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        int add(int slot, int frequency) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            slots[size] = slot;
+            frequencies[size] = frequency;
+            return size++;
+        }
+
+        /**
+         * Returns the slot of the entry moved into {@code position}, or -1 if none moved.
+         */
+        int removeAt(int position) {
+            int last = --size;
+            if (position == last) {
+                return -1;
+            }
+            slots[position] = slots[last];
+            frequencies[position] = frequencies[last];
+            return slots[position];
+        }
+    }
+
+    private static final class Term {
+        private int frequency;
+        // Index of this document's entry in the term's postings
+        private int position;
+    }
+
+    private static final class Document {
+        private final String key;
+        private final String type;
+        private final String id;
+        private final String title;
+        private final String category;
+        private final String difficulty;
+        private final Map<String, Term> terms;
+        private final int length;
+
+        Document(String key, String type, String id, String title, String category, String difficulty,
+                 Map<String, Term> terms, int length) {
+            this.key = key;
+            this.type = type;
+            this.id = id;
+            this.title = title;
+            this.category = category;
+            this.difficulty = difficulty;
+            this.terms = terms;
+            this.length = length;
+        }
+
+        boolean matches(String type, String category, String difficulty) {
+            return (type == null || type.equalsIgnoreCase(this.type))
+                    && (category == null || category.equalsIgnoreCase(this.category))
+                    && (difficulty == null || difficulty.equalsIgnoreCase(this.difficulty));
+        }
+    }
+}
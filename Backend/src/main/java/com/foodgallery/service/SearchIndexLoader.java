@@ -0,0 +1,93 @@
+package com.foodgallery.service;
+
+import com.foodgallery.repository.TipStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Fills the {@link SearchIndex} from the data stores once at startup, without holding
+ * up the application: until the load completes, search only finds documents
+ * written since startup. Tips are read in chunks of {@code search.index.chunk-size}
+ * with only the indexed fields; the posts tree has no projection, so posts are
+ * read whole. Disable with {@code search.index.load=false}, e.g. for instances
+ * that do not serve search. With {@code firebase.startup=lazy} nothing is read
+ * at startup: the first search starts the load, and is answered from what is
+ * indexed so far, like every search until the load completes.
+ */
+@Component
+@ConditionalOnProperty(name = "search.index.load", havingValue = "true", matchIfMissing = true)
+public class SearchIndexLoader implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexLoader.class);
+
+    @Autowired
+    private SearchIndex searchIndex;
+
+    @Autowired
+    private PostStore postStore;
+
+    @Autowired
+    private TipStore tipStore;
+
+    @Value("${search.index.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${firebase.startup:eager}")
+    private String startup;
+
+    private final AtomicBoolean loadStarted = new AtomicBoolean();
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!"lazy".equals(startup)) {
+            load();
+        }
+    }
+
+    /**
+     * Starts loading the index in the background, unless that has already
+     * happened; cheap to call on every search.
+     */
+    public void load() {
+        if (loadStarted.get() || !loadStarted.compareAndSet(false, true)) {
+            return;
+        }
+        long started = System.nanoTime();
+        searchIndex.beginLoad();
+        // Issued off the main thread: the first store call may have to create a Firebase client
+        CompletableFuture.supplyAsync(() -> postStore.getAllPosts()
+                        .thenAccept(posts -> searchIndex.load(posts, List.of()))
+                        .thenCombine(loadTips(null), (posts, tips) -> (Void) null))
+                .thenCompose(Function.identity())
+                .whenComplete((v, e) -> {
+                    searchIndex.endLoad();
+                    if (e != null) {
+                        logger.error("Failed to build the search index: {}", e.getMessage(), e);
+                    } else {
+                        logger.info("Search index built: {} documents in {} ms", searchIndex.size(),
+                                (System.nanoTime() - started) / 1_000_000);
+                    }
+                });
+    }
+
+    private CompletableFuture<Void> loadTips(String afterId) {
+        return tipStore.findSearchChunk(afterId, chunkSize).thenCompose(tips -> {
+            searchIndex.load(List.of(), tips);
+            if (tips.size() < chunkSize) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return loadTips(tips.get(tips.size() - 1).getId());
+        });
+    }
+}
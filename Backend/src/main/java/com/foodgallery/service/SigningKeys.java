@@ -0,0 +1,14 @@
+package com.foodgallery.service;
+
+import java.security.PublicKey;
+
+/**
+ * Public keys that ID tokens are signed with, by key id ({@code kid}).
+ */
+public interface SigningKeys {
+
+    /**
+     * Returns null when no key with this id is known.
+     */
+    PublicKey find(String keyId);
+}
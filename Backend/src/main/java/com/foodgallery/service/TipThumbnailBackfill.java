@@ -0,0 +1,65 @@
+package com.foodgallery.service;
+
+import com.foodgallery.model.DecorationTip;
+import com.foodgallery.model.MediaVariants;
+import com.foodgallery.repository.TipStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * One-time backfill of tip thumbnails. Tips saved before thumbnails were
+ * derivatives have none, or a copy of their first image inline, so they show
+ * blank or heavy in list summaries. This generates their derivatives, which
+ * also records the thumbnail. Enable with {@code media.migration.tip-thumbnails=true};
+ * tips that already have a thumbnail are skipped, so re-running it is harmless.
+ */
+@Component
+@ConditionalOnProperty(name = "media.migration.tip-thumbnails", havingValue = "true")
+public class TipThumbnailBackfill implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(TipThumbnailBackfill.class);
+
+    @Autowired
+    private TipStore tipStore;
+
+    @Autowired
+    private DecorationTipService decorationTipService;
+
+    @Value("${streaming.chunk-size:200}")
+    private int chunkSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int refreshed = 0;
+        int failed = 0;
+        String afterId = null;
+        List<DecorationTip> chunk;
+        do {
+            chunk = tipStore.findChunk(null, afterId, chunkSize).join();
+            for (DecorationTip tip : chunk) {
+                boolean hasMedia = tip.getMedia() != null && !tip.getMedia().isEmpty();
+                if (!hasMedia || tip.getThumbnail() != null && !MediaVariants.isInline(tip.getThumbnail())) {
+                    continue;
+                }
+                try {
+                    // One at a time, so the backfill never fills the derivative queue
+                    decorationTipService.refreshDerivatives(tip).join();
+                    refreshed++;
+                } catch (Exception e) {
+                    logger.error("Failed to backfill the thumbnail of tip id={}", tip.getId(), e);
+                    failed++;
+                }
+            }
+            afterId = chunk.isEmpty() ? null : chunk.get(chunk.size() - 1).getId();
+        } while (chunk.size() == chunkSize);
+        logger.info("Tip thumbnail backfill finished: {} tips refreshed, {} failed", refreshed, failed);
+    }
+}
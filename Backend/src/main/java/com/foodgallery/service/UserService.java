@@ -0,0 +1,58 @@
+package com.foodgallery.service;
+
+import com.foodgallery.model.User;
+import com.foodgallery.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Resolves authenticated callers to {@link User} records. Users are cached by
+ * uid, so after the first request a caller costs no data store round trip.
+ */
+@Service
+public class UserService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final AsyncCache<String, User> usersById;
+
+    public UserService(MeterRegistry meterRegistry,
+                       @Value("${cache.users.max-size:10000}") long maxSize,
+                       @Value("${cache.users.ttl:10m}") Duration ttl) {
+        usersById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, usersById, "users.byId", Tags.empty());
+    }
+
+    /**
+     * Returns the user for a verified token, creating the record from the
+     * token's claims the first time this uid is seen.
+     */
+    public CompletableFuture<User> resolve(VerifiedToken token) {
+        return usersById.get(token.uid(), (uid, executor) -> userRepository.findById(uid)
+                .thenCompose(existing -> existing != null ? CompletableFuture.completedFuture(existing) : create(token)));
+    }
+
+    private CompletableFuture<User> create(VerifiedToken token) {
+        User user = new User(token.uid(), token.email(), token.name(), token.picture(), System.currentTimeMillis());
+        logger.info("Creating user {}", token.uid());
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,9 @@
+package com.foodgallery.service;
+
+import java.time.Instant;
+
+/**
+ * The claims of an ID token whose signature and validity have been checked.
+ */
+public record VerifiedToken(String uid, String email, String name, String picture, Instant expiresAt) {
+}
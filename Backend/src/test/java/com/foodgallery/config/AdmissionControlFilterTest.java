@@ -0,0 +1,115 @@
+package com.foodgallery.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionControlFilterTest {
+
+    private static final int MAX_CONCURRENT = 2;
+    private static final int MAX_QUEUE = 2;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService writers = Executors.newCachedThreadPool();
+    private final CountDownLatch finishWrites = new CountDownLatch(1);
+    private final CountDownLatch writesStarted = new CountDownLatch(MAX_CONCURRENT);
+    private AdmissionControlFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        AdmissionLimiter uploads = new AdmissionLimiter("uploads", MAX_CONCURRENT, 1 << 20, MAX_QUEUE,
+                Duration.ofSeconds(30), meterRegistry);
+        AdmissionLimiter writes = new AdmissionLimiter("writes", MAX_CONCURRENT, 1 << 20, MAX_QUEUE,
+                Duration.ofSeconds(30), meterRegistry);
+        filter = new AdmissionControlFilter(uploads, writes, 1024, Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        finishWrites.countDown();
+        writers.shutdown();
+        assertThat(writers.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void servesReadsWhileWritesAreSaturated() throws Exception {
+        List<Future<MockHttpServletResponse>> blocked = new ArrayList<>();
+        for (int i = 0; i < MAX_CONCURRENT + MAX_QUEUE; i++) {
+            blocked.add(writers.submit(() -> perform(post(), (request, response) -> {
+                writesStarted.countDown();
+                awaitUninterruptibly(finishWrites);
+            })));
+        }
+        assertThat(writesStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        awaitQueueDepth(MAX_QUEUE);
+
+        long started = System.nanoTime();
+        MockHttpServletResponse read = perform(get(), new MockFilterChain());
+        MockHttpServletResponse rejected = perform(post(), new MockFilterChain());
+        long elapsed = System.nanoTime() - started;
+
+        assertThat(read.getStatus()).isEqualTo(200);
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        // Neither waited for a slot
+        assertThat(Duration.ofNanos(elapsed)).isLessThan(Duration.ofSeconds(1));
+
+        finishWrites.countDown();
+        for (Future<MockHttpServletResponse> write : blocked) {
+            assertThat(write.get(10, TimeUnit.SECONDS).getStatus()).isEqualTo(200);
+        }
+        assertThat(meterRegistry.get("admission.rejections").tags("limiter", "writes", "reason", "queue-full")
+                .counter().count()).isEqualTo(1);
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private void awaitQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (meterRegistry.get("admission.queue.depth").tag("limiter", "writes").gauge().value() < depth) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/api/posts/1");
+    }
+
+    private static MockHttpServletRequest post() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/decoration-tips");
+        request.setContentType("application/json");
+        request.setContent("{}".getBytes());
+        return request;
+    }
+}
@@ -0,0 +1,109 @@
+package com.foodgallery.controller;
+
+import com.foodgallery.model.StoredMedia;
+import com.foodgallery.service.LocalFileSystemMediaStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class MediaControllerTest {
+
+    private static final byte[] CONTENT = "0123456789abcdefghij".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path root;
+
+    private MockMvc mvc;
+    private StoredMedia media;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        LocalFileSystemMediaStore store = new LocalFileSystemMediaStore(root.toString(), DataSize.ofKilobytes(64));
+        media = store.store(new ByteArrayInputStream(CONTENT), "video/mp4");
+        MediaController controller = new MediaController();
+        ReflectionTestUtils.setField(controller, "mediaStore", store);
+        mvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void servesFullContentAsImmutable() throws Exception {
+        String cacheControl = mvc.perform(get("/api/media/{id}", media.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("video/mp4"))
+                .andExpect(content().bytes(CONTENT))
+                .andExpect(header().string(HttpHeaders.ETAG, etag()))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.CACHE_CONTROL);
+
+        assertThat(cacheControl).contains("max-age=31536000", "public", "immutable");
+    }
+
+    @Test
+    void servesSingleRange() throws Exception {
+        mvc.perform(get("/api/media/{id}", media.getId()).header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/" + CONTENT.length))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andExpect(content().bytes(Arrays.copyOfRange(CONTENT, 2, 6)));
+    }
+
+    @Test
+    void servesSuffixRange() throws Exception {
+        mvc.perform(get("/api/media/{id}", media.getId()).header(HttpHeaders.RANGE, "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE,
+                        "bytes " + (CONTENT.length - 3) + "-" + (CONTENT.length - 1) + "/" + CONTENT.length))
+                .andExpect(content().bytes(Arrays.copyOfRange(CONTENT, CONTENT.length - 3, CONTENT.length)));
+    }
+
+    @Test
+    void rejectsUnsatisfiableRange() throws Exception {
+        mvc.perform(get("/api/media/{id}", media.getId()).header(HttpHeaders.RANGE, "bytes=100-200"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + CONTENT.length));
+    }
+
+    @Test
+    void sendsFullContentWhenIfRangeIsStale() throws Exception {
+        mvc.perform(get("/api/media/{id}", media.getId())
+                        .header(HttpHeaders.RANGE, "bytes=2-5")
+                        .header(HttpHeaders.IF_RANGE, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    void answersNotModifiedForCurrentEtag() throws Exception {
+        mvc.perform(get("/api/media/{id}", media.getId()).header(HttpHeaders.IF_NONE_MATCH, etag()))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag()))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void answersNotFoundForUnknownId() throws Exception {
+        mvc.perform(get("/api/media/{id}", "0".repeat(64) + ".mp4"))
+                .andExpect(status().isNotFound());
+    }
+
+    private String etag() {
+        return "\"" + media.getSha256() + "\"";
+    }
+}
@@ -0,0 +1,157 @@
+package com.foodgallery.repository;
+
+import com.foodgallery.model.BatchItemResult;
+import com.foodgallery.model.DecorationTip;
+import com.google.cloud.firestore.FirestoreException;
+import io.grpc.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JournaledTipStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TipStore delegate = mock(TipStore.class);
+    // What the backing store holds, and how often each tip was sent to it
+    private final Map<String, DecorationTip> stored = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+    private final List<String> rejected = new CopyOnWriteArrayList<>();
+    private WriteJournal journal;
+    private JournaledTipStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        journal = new WriteJournal(meterRegistry, directory.toString(), DataSize.ofKilobytes(64), 16, 10,
+                Duration.ofSeconds(5), Duration.ofMillis(10), Duration.ofMillis(50), 100, DataSize.ofMegabytes(1));
+        journal.start();
+        when(delegate.findById(anyString()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(stored.get(invocation.<String>getArgument(0))));
+        when(delegate.saveAll(anyList())).thenAnswer(invocation -> CompletableFuture.completedFuture(
+                saveAll(invocation.getArgument(0))));
+        store = new JournaledTipStore(delegate);
+        ReflectionTestUtils.setField(store, "journal", journal);
+        store.register();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        journal.stop();
+    }
+
+    @Test
+    void deadLettersTipsTheStoreRejectsAndDrainsTheRest() throws Exception {
+        // What DecorationTipRepository reports for a document over Firestore's size limit
+        rejected.add("oversized");
+        store.save(tip("before")).get(5, TimeUnit.SECONDS);
+        store.save(tip("oversized")).get(5, TimeUnit.SECONDS);
+        store.save(tip("after")).get(5, TimeUnit.SECONDS);
+
+        journal.startDraining();
+        awaitDrained();
+
+        assertThat(stored).containsOnlyKeys("before", "after");
+        assertThat(meterRegistry.get("journal.dead.letters").counter().count()).isEqualTo(1);
+        assertThat(Files.readString(directory.resolve("dead-letters"))).contains("\"id\":\"oversized\"");
+        // No longer served from the journal either
+        assertThat(store.findById("oversized").get(5, TimeUnit.SECONDS)).isNull();
+    }
+
+    @Test
+    void retriesTransientFailuresUntilApplied() throws Exception {
+        attempts.put("flaky", new AtomicInteger(-2));
+        store.save(tip("flaky")).get(5, TimeUnit.SECONDS);
+
+        journal.startDraining();
+        awaitDrained();
+
+        assertThat(stored).containsOnlyKeys("flaky");
+        assertThat(meterRegistry.get("journal.drain.failures").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("journal.dead.letters").counter().count()).isZero();
+    }
+
+    @Test
+    void deadLettersInvalidResults() throws Exception {
+        when(delegate.saveAll(anyList())).thenAnswer(invocation -> {
+            List<DecorationTip> tips = invocation.getArgument(0);
+            List<BatchItemResult<DecorationTip>> results = new ArrayList<>();
+            for (DecorationTip tip : tips) {
+                if (tip.getTitle() == null) {
+                    results.add(BatchItemResult.failed(tip.getId(), BatchItemResult.Status.INVALID, "Title is required"));
+                } else {
+                    stored.put(tip.getId(), tip);
+                    results.add(BatchItemResult.ok(tip.getId(), tip));
+                }
+            }
+            return CompletableFuture.completedFuture(results);
+        });
+        DecorationTip untitled = tip("untitled");
+        untitled.setTitle(null);
+        store.save(untitled).get(5, TimeUnit.SECONDS);
+        store.save(tip("titled")).get(5, TimeUnit.SECONDS);
+
+        journal.startDraining();
+        awaitDrained();
+
+        assertThat(stored).containsOnlyKeys("titled");
+        assertThat(meterRegistry.get("journal.dead.letters").counter().count()).isEqualTo(1);
+    }
+
+    private List<BatchItemResult<DecorationTip>> saveAll(List<DecorationTip> tips) {
+        List<BatchItemResult<DecorationTip>> results = new ArrayList<>();
+        for (DecorationTip tip : tips) {
+            if (rejected.contains(tip.getId())) {
+                results.add(BatchItemResult.failed(tip.getId(), BatchItemResult.Status.FAILED, FirestoreFutures.classify(
+                        FirestoreException.forServerRejection(Status.INVALID_ARGUMENT, "Document exceeds the maximum size"))));
+            } else if (attempts.computeIfAbsent(tip.getId(), id -> new AtomicInteger()).getAndIncrement() < 0) {
+                results.add(BatchItemResult.failed(tip.getId(), BatchItemResult.Status.FAILED, FirestoreFutures.classify(
+                        FirestoreException.forServerRejection(Status.UNAVAILABLE, "Backend unavailable"))));
+            } else {
+                stored.put(tip.getId(), tip);
+                results.add(BatchItemResult.ok(tip.getId(), tip));
+            }
+        }
+        return results;
+    }
+
+    private void awaitDrained() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (meterRegistry.get("journal.pending").gauge().value() > 0) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static DecorationTip tip(String id) {
+        DecorationTip tip = new DecorationTip();
+        tip.setId(id);
+        tip.setTitle("Tip " + id);
+        tip.setCategory("piping");
+        return tip;
+    }
+}
@@ -0,0 +1,244 @@
+package com.foodgallery.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WriteJournalTest {
+
+    private static final String STORE = "tips";
+
+    @TempDir
+    Path directory;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<WriteJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (WriteJournal journal : opened) {
+            journal.stop();
+        }
+    }
+
+    @Test
+    void replaysEntriesAfterCheckpointOnRestart() throws Exception {
+        WriteJournal journal = open(100);
+        RecordingStore store = new RecordingStore(journal);
+        journal.startDraining();
+        append(journal, "a");
+        WriteJournal.Entry b = append(journal, "b");
+        journal.awaitDrained(b.sequence()).get(5, TimeUnit.SECONDS);
+        store.failure = entry -> new RuntimeException("Store unavailable");
+        append(journal, "c");
+        append(journal, "d");
+        journal.stop();
+
+        WriteJournal reopened = open(100);
+        RecordingStore recovered = new RecordingStore(reopened);
+        assertThat(ids(recovered.durable)).containsExactly("c", "d");
+
+        reopened.startDraining();
+        WriteJournal.Entry e = append(reopened, "e");
+        reopened.awaitDrained(e.sequence()).get(5, TimeUnit.SECONDS);
+        assertThat(e.sequence()).isEqualTo(5);
+        assertThat(ids(recovered.applied)).containsExactly("c", "d", "e");
+    }
+
+    @Test
+    void ignoresTornRecordAndKeepsLaterAppends() throws Exception {
+        WriteJournal journal = open(100);
+        append(journal, "a");
+        append(journal, "b");
+        append(journal, "c");
+        journal.stop();
+        tearThirdRecord(onlySegment());
+
+        WriteJournal reopened = open(100);
+        assertThat(ids(new RecordingStore(reopened).durable)).containsExactly("a", "b");
+        WriteJournal.Entry d = append(reopened, "d");
+        assertThat(d.sequence()).isEqualTo(3);
+        reopened.stop();
+
+        WriteJournal again = open(100);
+        assertThat(ids(new RecordingStore(again).durable)).containsExactly("a", "b", "d");
+    }
+
+    @Test
+    void setsAsideOutOfSequenceSegment() throws Exception {
+        WriteJournal journal = open(100);
+        append(journal, "a");
+        append(journal, "b");
+        journal.stop();
+        Path skipped = directory.resolve("journal-00000000000000000010.log");
+        Files.write(skipped, record(10, "x"));
+
+        WriteJournal reopened = open(100);
+        assertThat(ids(new RecordingStore(reopened).durable)).containsExactly("a", "b");
+        assertThat(skipped).doesNotExist();
+        assertThat(skipped.resolveSibling(skipped.getFileName() + ".corrupt")).exists();
+        assertThat(append(reopened, "c").sequence()).isEqualTo(3);
+    }
+
+    @Test
+    void deadLettersPermanentFailuresAndDrainsTheRest() throws Exception {
+        WriteJournal journal = open(100);
+        RecordingStore store = new RecordingStore(journal);
+        store.failure = entry -> entry.id().equals("bad") ? new PermanentWriteException("Rejected by the store") : null;
+        append(journal, "a");
+        WriteJournal.Entry bad = append(journal, "bad");
+        WriteJournal.Entry c = append(journal, "c");
+        CompletableFuture<Void> badDrained = journal.awaitDrained(bad.sequence());
+        CompletableFuture<Void> cDrained = journal.awaitDrained(c.sequence());
+
+        journal.startDraining();
+
+        cDrained.get(5, TimeUnit.SECONDS);
+        assertThatThrownBy(() -> badDrained.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(PermanentWriteException.class);
+        assertThat(ids(store.applied)).containsExactly("a", "c");
+        assertThat(ids(store.discarded)).containsExactly("bad");
+        assertThat(meterRegistry.get("journal.dead.letters").counter().count()).isEqualTo(1);
+        assertThat(Files.readString(directory.resolve("dead-letters"))).contains("\"id\":\"bad\"");
+    }
+
+    @Test
+    void retriesTransientFailures() throws Exception {
+        WriteJournal journal = open(100);
+        RecordingStore store = new RecordingStore(journal);
+        AtomicInteger attempts = new AtomicInteger();
+        store.failure = entry -> attempts.incrementAndGet() <= 2 ? new RuntimeException("Deadline exceeded") : null;
+        journal.startDraining();
+
+        WriteJournal.Entry a = append(journal, "a");
+        journal.awaitDrained(a.sequence()).get(5, TimeUnit.SECONDS);
+
+        assertThat(ids(store.applied)).containsExactly("a");
+        assertThat(store.discarded).isEmpty();
+        assertThat(meterRegistry.get("journal.drain.failures").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("journal.dead.letters").counter().count()).isZero();
+    }
+
+    @Test
+    void rejectsAppendsWhileFull() throws Exception {
+        WriteJournal journal = open(2);
+        new RecordingStore(journal);
+        append(journal, "a");
+        WriteJournal.Entry b = append(journal, "b");
+
+        assertThatThrownBy(() -> journal.append(STORE, WriteJournal.PUT, "c", value("c")).join())
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(meterRegistry.get("journal.rejections").counter().count()).isEqualTo(1);
+
+        journal.startDraining();
+        journal.awaitDrained(b.sequence()).get(5, TimeUnit.SECONDS);
+        assertThat(append(journal, "c").sequence()).isEqualTo(3);
+    }
+
+    private WriteJournal open(long maxPending) throws IOException {
+        WriteJournal journal = new WriteJournal(meterRegistry, directory.toString(), DataSize.ofKilobytes(64), 16, 10,
+                Duration.ofSeconds(5), Duration.ofMillis(10), Duration.ofMillis(50), maxPending, DataSize.ofMegabytes(1));
+        journal.start();
+        opened.add(journal);
+        return journal;
+    }
+
+    private static WriteJournal.Entry append(WriteJournal journal, String id) throws Exception {
+        return journal.append(STORE, WriteJournal.PUT, id, value(id)).get(5, TimeUnit.SECONDS);
+    }
+
+    private static Map<String, String> value(String id) {
+        return Map.of("id", id, "title", "Tip " + id);
+    }
+
+    private static List<String> ids(List<WriteJournal.Entry> entries) {
+        return entries.stream().map(WriteJournal.Entry::id).toList();
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = files.filter(path -> path.getFileName().toString().endsWith(".log")).toList();
+            assertThat(segments).hasSize(1);
+            return segments.get(0);
+        }
+    }
+
+    /** Zeroes the second half of the third record's payload, as if the write had been cut short. */
+    private static void tearThirdRecord(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+            long position = 0;
+            for (int i = 0; i < 2; i++) {
+                length.clear();
+                channel.read(length, position);
+                position += 16 + length.getInt(0);
+            }
+            length.clear();
+            channel.read(length, position);
+            int size = length.getInt(0);
+            channel.write(ByteBuffer.allocate(size - size / 2), position + 16 + size / 2);
+        }
+    }
+
+    private byte[] record(long sequence, String id) throws IOException {
+        byte[] payload = objectMapper.writeValueAsBytes(Map.of("store", STORE, "operation", WriteJournal.PUT,
+                "id", id, "value", value(id)));
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, sequence));
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(4096);
+        record.putInt(payload.length).putInt((int) crc.getValue()).putLong(sequence).put(payload);
+        return record.array();
+    }
+
+    /** Records what the journal hands a store; {@code failure} decides which entries fail to apply. */
+    private static final class RecordingStore {
+
+        private final List<WriteJournal.Entry> durable = new CopyOnWriteArrayList<>();
+        private final List<WriteJournal.Entry> applied = new CopyOnWriteArrayList<>();
+        private final List<WriteJournal.Entry> discarded = new CopyOnWriteArrayList<>();
+        private volatile Function<WriteJournal.Entry, RuntimeException> failure = entry -> null;
+
+        RecordingStore(WriteJournal journal) {
+            journal.register(STORE, this::apply, durable::add, discarded::add);
+        }
+
+        private CompletableFuture<Void> apply(List<WriteJournal.Entry> entries) {
+            for (WriteJournal.Entry entry : entries) {
+                RuntimeException e = failure.apply(entry);
+                if (e != null) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }
+            applied.addAll(entries);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.foodgallery.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdTokenVerifierTest {
+
+    private static final String PROJECT_ID = "food-gallery-test";
+    private static final String KEY_ID = "key-1";
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(60);
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+
+    private static final KeyPair SIGNING_KEY = generateKeyPair();
+    private static final KeyPair OTHER_KEY = generateKeyPair();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private MutableClock clock;
+    private IdTokenVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2024-06-01T12:00:00Z"));
+        SigningKeys keys = keyId -> KEY_ID.equals(keyId) ? SIGNING_KEY.getPublic() : null;
+        verifier = new IdTokenVerifier(keys, PROJECT_ID, CLOCK_SKEW, 100, clock);
+    }
+
+    @Test
+    void acceptsValidToken() throws Exception {
+        VerifiedToken token = verifier.verify(sign(header(KEY_ID), claims(), SIGNING_KEY.getPrivate()));
+
+        assertThat(token.uid()).isEqualTo("user-1");
+        assertThat(token.email()).isEqualTo("cook@example.com");
+        assertThat(token.expiresAt()).isEqualTo(clock.instant().plusSeconds(3600));
+    }
+
+    @Test
+    void rejectsSignatureFromAnotherKey() throws Exception {
+        String token = sign(header(KEY_ID), claims(), OTHER_KEY.getPrivate());
+
+        assertThatThrownBy(() -> verifier.verify(token))
+                .isInstanceOf(InvalidTokenException.class)
+                .hasMessage("Invalid signature");
+    }
+
+    @Test
+    void rejectsModifiedClaims() throws Exception {
+        String[] parts = sign(header(KEY_ID), claims(), SIGNING_KEY.getPrivate()).split("\\.");
+        Map<String, Object> claims = claims();
+        claims.put("sub", "someone-else");
+        String token = parts[0] + "." + encode(claims) + "." + parts[2];
+
+        assertThatThrownBy(() -> verifier.verify(token))
+                .isInstanceOf(InvalidTokenException.class)
+                .hasMessage("Invalid signature");
+    }
+
+    @Test
+    void rejectsUnknownKeyId() throws Exception {
+        String token = sign(header("retired-key"), claims(), SIGNING_KEY.getPrivate());
+
+        assertThatThrownBy(() -> verifier.verify(token))
+                .isInstanceOf(InvalidTokenException.class)
+                .hasMessage("Unknown signing key");
+    }
+
+    @Test
+    void rejectsOtherAlgorithms() throws Exception {
+        Map<String, Object> header = header(KEY_ID);
+        header.put("alg", "none");
+        String token = sign(header, claims(), SIGNING_KEY.getPrivate());
+
+        assertThatThrownBy(() -> verifier.verify(token))
+                .isInstanceOf(InvalidTokenException.class)
+                .hasMessage("Unexpected signing algorithm");
+    }
+
+    @Test
+    void rejectsWrongAudience() throws Exception {
+        Map<String, Object> claims = claims();
+        claims.put("aud", "another-project");
+        String token = sign(header(KEY_ID), claims, SIGNING_KEY.getPrivate());
+
+        assertThatThrownBy(() -> verifier.verify(token))
+                .isInstanceOf(InvalidTokenException.class)
+                .hasMessage("Token issued for another project");
+    }
+
+    @Test
+    void rejectsWrongIssuer() throws Exception {
+        Map<String, Object> claims = claims();
+        claims.put("iss", "https://securetoken.google.com/another-project");
+        String token = sign(header(KEY_ID), claims, SIGNING_KEY.getPrivate());
+
+        assertThatThrownBy(() -> verifier.verify(token))
+                .isInstanceOf(InvalidTokenException.class)
+                .hasMessage("Unexpected issuer");
+    }
+
+    @Test
+    void rejectsExpiredToken() throws Exception {
+        Map<String, Object> claims = claims();
+        claims.put("iat", clock.instant().minusSeconds(7200).getEpochSecond());
+        claims.put("exp", clock.instant().minus(CLOCK_SKEW).minusSeconds(1).getEpochSecond());
+        String token = sign(header(KEY_ID), claims, SIGNING_KEY.getPrivate());
+
+        assertThatThrownBy(() -> verifier.verify(token))
+                .isInstanceOf(InvalidTokenException.class)
+                .hasMessage("Token expired");
+    }
+
+    @Test
+    void rejectsCachedTokenOnceExpired() throws Exception {
+        String token = sign(header(KEY_ID), claims(), SIGNING_KEY.getPrivate());
+        verifier.verify(token);
+
+        clock.advance(Duration.ofHours(1).plus(CLOCK_SKEW).plusSeconds(1));
+
+        assertThatThrownBy(() -> verifier.verify(token))
+                .isInstanceOf(InvalidTokenException.class)
+                .hasMessage("Token expired");
+    }
+
+    @Test
+    void rejectsMalformedToken() {
+        assertThatThrownBy(() -> verifier.verify("not-a-token"))
+                .isInstanceOf(InvalidTokenException.class)
+                .hasMessage("Malformed token");
+    }
+
+    private Map<String, Object> header(String keyId) {
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("alg", "RS256");
+        header.put("kid", keyId);
+        header.put("typ", "JWT");
+        return header;
+    }
+
+    private Map<String, Object> claims() {
+        long now = clock.instant().getEpochSecond();
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("iss", "https://securetoken.google.com/" + PROJECT_ID);
+        claims.put("aud", PROJECT_ID);
+        claims.put("auth_time", now - 60);
+        claims.put("iat", now - 60);
+        claims.put("exp", now + 3600);
+        claims.put("sub", "user-1");
+        claims.put("email", "cook@example.com");
+        return claims;
+    }
+
+    private String sign(Map<String, Object> header, Map<String, Object> claims, PrivateKey key) throws Exception {
+        String signed = encode(header) + "." + encode(claims);
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(key);
+        signature.update(signed.getBytes(StandardCharsets.US_ASCII));
+        return signed + "." + BASE64URL.encodeToString(signature.sign());
+    }
+
+    private String encode(Map<String, Object> json) throws Exception {
+        return BASE64URL.encodeToString(objectMapper.writeValueAsBytes(json));
+    }
+
+    private static KeyPair generateKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.foodgallery.service;
+
+import com.foodgallery.model.StoredMedia;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalFileSystemMediaStoreTest {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    @TempDir
+    Path root;
+
+    @Test
+    void storesLargeUploadWithConstantHeap() throws Exception {
+        LocalFileSystemMediaStore store = new LocalFileSystemMediaStore(root.toString(), DataSize.ofBytes(CHUNK_SIZE));
+        // Warm up, so class loading and the digest provider are not counted
+        store.store(new GeneratedContent(CHUNK_SIZE * 4L), "video/mp4");
+
+        long size = DataSize.ofMegabytes(64).toBytes();
+        GeneratedContent content = new GeneratedContent(size);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        StoredMedia media = store.store(content, "video/mp4");
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        assertThat(media.getSize()).isEqualTo(size);
+        assertThat(media.getSha256()).isEqualTo(content.sha256());
+        assertThat(Files.size(root.resolve(media.getId()))).isEqualTo(size);
+        // A copy of the file, or its Base64 form, would be tens of megabytes
+        assertThat(allocated).isLessThan(DataSize.ofMegabytes(2).toBytes());
+    }
+
+    @Test
+    void identicalContentSharesOneBlob() throws Exception {
+        LocalFileSystemMediaStore store = new LocalFileSystemMediaStore(root.toString(), DataSize.ofBytes(CHUNK_SIZE));
+        byte[] bytes = "same photo".getBytes();
+
+        StoredMedia first = store.store(new ByteArrayInputStream(bytes), "image/jpeg");
+        StoredMedia second = store.store(new ByteArrayInputStream(bytes), "image/jpeg");
+
+        assertThat(second.getId()).isEqualTo(first.getId());
+        assertThat(second.getReferences()).isEqualTo(2);
+        assertThat(store.release(first.getId())).isTrue();
+        assertThat(store.localFile(first.getId())).isPresent();
+        assertThat(store.release(first.getId())).isTrue();
+        assertThat(store.localFile(first.getId())).isEmpty();
+    }
+
+    /**
+     * Produces {@code size} pseudo-random bytes without ever holding them,
+     * hashing them as they are read.
+     */
+    private static final class GeneratedContent extends InputStream {
+
+        private final long size;
+        private final MessageDigest digest = MediaStreams.sha256();
+        private long position;
+
+        GeneratedContent(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public int read() {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (position >= size) {
+                return -1;
+            }
+            int count = (int) Math.min(length, size - position);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = (byte) ((position + i) * 31 >>> 3);
+            }
+            digest.update(buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+        String sha256() {
+            return HexFormat.of().formatHex(digest.digest());
+        }
+    }
+}
@@ -1,4 +1,5 @@
 import React, { useState, useEffect } from 'react';
+import { resolveMediaUrl } from '../services/api';
 
 const FoodPostCard = ({ post, onClick, onLike, onAddComment }) => {
   const [commentText, setCommentText] = useState('');
@@ -37,7 +38,7 @@ const FoodPostCard = ({ post, onClick, onLike, onAddComment }) => {
               style={{ position: 'absolute', top: 0, left: 0 }}
             >
               <img
-                src={url}
+                src={resolveMediaUrl(url)}
                 alt={`${post.title || "Decoration"} Image ${index + 1}`}
                 className="w-full h-80 object-cover"
                 onError={(e) => {
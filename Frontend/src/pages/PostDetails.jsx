@@ -1,7 +1,7 @@
 import { useEffect, useState } from "react";
 import { useNavigate } from "react-router-dom";
 import LoadingSpinner from "../components/LoadingSpinner";
-import { getPostsByCategory } from "../services/api";
+import { getPostsByCategory, resolveMediaUrl, isVideoMedia } from "../services/api";
 
 const PostDetails = () => {
   const [posts, setPosts] = useState([]);
@@ -82,16 +82,18 @@ const PostDetails = () => {
               {/* Image or Video with Title and More Options */}
               <div className="relative">
                 {post.mediaUrls && post.mediaUrls.length > 0 ? (
-                  post.mediaUrls[0].startsWith("data:image/") ? (
+                  !isVideoMedia(post.mediaUrls[0]) ? (
                     <img
-                      src={post.mediaUrls[0]}
+                      src={resolveMediaUrl(post.mediaUrls[0])}
+                      loading="lazy"
                       alt={post.title}
                       className="w-full h-64 object-cover"
                       onError={(e) => (e.target.src = "/placeholder-image.jpg")}
                     />
                   ) : (
                     <video
-                      src={post.mediaUrls[0]}
+                      src={resolveMediaUrl(post.mediaUrls[0])}
+                      preload="metadata"
                       className="w-full h-64 object-cover"
                       controls
                     >
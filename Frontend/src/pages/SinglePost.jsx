@@ -1,6 +1,6 @@
 import { useEffect, useState } from "react";
 import { useParams, useNavigate } from "react-router-dom";
-import { getPostById, deletePost } from "../services/api";
+import { getPostById, deletePost, resolveMediaUrl, isVideoMedia } from "../services/api";
 import LoadingSpinner from "../components/LoadingSpinner";
 
 const SinglePost = () => {
@@ -62,10 +62,11 @@ const SinglePost = () => {
         <p className="text-gray-600 mb-6">{post.description}</p>
         <div className="grid grid-cols-1 md:grid-cols-2 gap-4 mb-6">
           {post.mediaUrls.map((url, index) =>
-            url.startsWith("data:image/") ? (
+            !isVideoMedia(url) ? (
               <img
                 key={index}
-                src={url}
+                src={resolveMediaUrl(url)}
+                loading="lazy"
                 alt={`Media ${index + 1}`}
                 className="w-full h-48 object-cover rounded-md"
                 onError={(e) => (e.target.src = "/placeholder-image.jpg")}
@@ -73,7 +74,8 @@ const SinglePost = () => {
             ) : (
               <video
                 key={index}
-                src={url}
+                src={resolveMediaUrl(url)}
+                preload="metadata"
                 className="w-full h-48 object-cover rounded-md"
                 controls
               >
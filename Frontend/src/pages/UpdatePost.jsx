@@ -1,6 +1,6 @@
 import React, { useState, useEffect } from "react";
 import { useParams } from "react-router-dom";
-import { getPostById, updatePost } from "../services/api";
+import { getPostById, updatePost, resolveMediaUrl, isVideoMedia } from "../services/api";
 
 const UpdatePost = () => {
   const { id } = useParams();
@@ -174,15 +174,15 @@ const UpdatePost = () => {
             <div className="mt-4 grid grid-cols-2 gap-2">
               {existingMediaUrls.map((url, index) => (
                 <div key={`existing-${index}`} className="relative">
-                  {url.startsWith("data:image/") ? (
+                  {!isVideoMedia(url) ? (
                     <img
-                      src={url}
+                      src={resolveMediaUrl(url)}
                       alt={`Existing Media ${index + 1}`}
                       className="w-full h-32 object-cover rounded-md"
                     />
                   ) : (
                     <video
-                      src={url}
+                      src={resolveMediaUrl(url)}
                       className="w-full h-32 object-cover rounded-md"
                       controls
                     >
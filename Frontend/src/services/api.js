@@ -1,6 +1,32 @@
-export const getPostsByCategory = async (category) => {
+const API_BASE_URL = "http://localhost:8080";
+
+// Post media is stored as "/api/media/{id}" references; older posts may still carry data URIs.
+export const resolveMediaUrl = (url) =>
+  url && url.startsWith("/") ? `${API_BASE_URL}${url}` : url;
+
+export const isVideoMedia = (url) =>
+  !!url && (url.startsWith("data:video/") || /\.(mp4|webm|mov)$/i.test(url));
+
+// Grids only need card-sized images; pass variant = null for the originals.
+export const getPostsByCategory = async (category, variant = "card") => {
+  const query = variant ? `?variant=${variant}` : "";
+  const response = await fetch(
+    `${API_BASE_URL}/api/posts/category/${category}${query}`
+  );
+  if (!response.ok) {
+    throw new Error("Failed to fetch posts");
+  }
+  return response.json();
+};
+
+// Cursor-paginated variant: resolves to { items, nextCursor }; nextCursor is null on the last page.
+export const getPostsByCategoryPage = async (category, size = 20, cursor) => {
+  const params = new URLSearchParams({ size });
+  if (cursor) {
+    params.append("cursor", cursor);
+  }
   const response = await fetch(
-    `http://localhost:8080/api/posts/category/${category}`
+    `${API_BASE_URL}/api/posts/category/${category}?${params}`
   );
   if (!response.ok) {
     throw new Error("Failed to fetch posts");